@@ -82,4 +82,22 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+val transportDatabase = layout.buildDirectory.dir("generated/transports")
+
+// transports.json stays the editable source, the jar ships the binary form it compiles to
+val compileTransports by tasks.registering(JavaExec::class) {
+    val json = file("src/main/resources/com/tonic/services/pathfinder/transports.json")
+    val output = transportDatabase.map { it.file("com/tonic/services/pathfinder/transports.bin") }
+    inputs.file(json)
+    outputs.dir(transportDatabase)
+    classpath = sourceSets.main.get().output + configurations.compileClasspath.get()
+    mainClass.set("com.tonic.services.pathfinder.transports.TransportDatabase")
+    args(json.absolutePath, output.get().asFile.absolutePath)
+}
+
+tasks.jar {
+    from(compileTransports)
+}
+
@@ -1,10 +1,12 @@
 package com.tonic.api.game;
 
 import com.tonic.Static;
+import com.tonic.services.pathfinder.local.DistanceField;
+import com.tonic.util.WorldPointUtil;
+import it.unimi.dsi.fastutil.ints.IntList;
 import net.runelite.api.*;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
@@ -15,72 +17,47 @@ import java.util.function.Predicate;
 public class SceneAPI {
 
     /**
-     * Returns a list of all reachable tiles from the player's current position using a breadth-first search algorithm.
-     * This method considers the collision data to determine which tiles can be reached.
+     * Returns a list of all reachable tiles from the player's current position.
+     * The underlying flood fill is computed once per game tick and shared between callers.
      *
      * @return A list of WorldPoint objects representing all reachable tiles.
      */
     public static List<WorldPoint> reachableTiles()
     {
-        Client client = Static.getClient();
-        return reachableTiles(client.getLocalPlayer().getWorldLocation());
+        return DistanceField.ofPlayer().getReachableWorldPoints();
     }
 
     /**
-     * Returns a list of all reachable tiles from the origins position using a breadth-first search algorithm.
-     * This method considers the collision data to determine which tiles can be reached.
+     * Returns a list of all reachable tiles from the origins position.
+     * The underlying flood fill is cached until the scene's collision changes.
      *
      * @param origin The point to query from
      * @return A list of WorldPoint objects representing all reachable tiles from the origin.
      */
     public static List<WorldPoint> reachableTiles(WorldPoint origin) {
-        Client client = Static.getClient();
-        boolean[][] visited = new boolean[104][104];
-        CollisionData[] collisionData = client.getTopLevelWorldView().getCollisionMaps();
-        if (collisionData == null) {
-            return new ArrayList<>();
-        }
-        WorldView worldView = client.getTopLevelWorldView();
-        int[][] flags = collisionData[worldView.getPlane()].getFlags();
-        int firstPoint = (origin.getX()-worldView.getBaseX() << 16) | origin.getY()-worldView.getBaseY();
-        ArrayDeque<Integer> queue = new ArrayDeque<>();
-        queue.add(firstPoint);
-        while (!queue.isEmpty()) {
-            int point = queue.poll();
-            short x =(short)(point >> 16);
-            short y = (short)point;
-            if (y < 0 || x < 0 || y > 104 || x > 104) {
-                continue;
-            }
-            if ((flags[x][y] & CollisionDataFlag.BLOCK_MOVEMENT_SOUTH) == 0 && (flags[x][y - 1] & CollisionDataFlag.BLOCK_MOVEMENT_FULL) == 0 && !visited[x][y - 1]) {
-                queue.add((x << 16) | (y - 1));
-                visited[x][y - 1] = true;
-            }
-            if ((flags[x][y] & CollisionDataFlag.BLOCK_MOVEMENT_NORTH) == 0 && (flags[x][y + 1] & CollisionDataFlag.BLOCK_MOVEMENT_FULL) == 0 && !visited[x][y + 1]) {
-                queue.add((x << 16) | (y + 1));
-                visited[x][y + 1] = true;
-            }
-            if ((flags[x][y] & CollisionDataFlag.BLOCK_MOVEMENT_WEST) == 0 && (flags[x - 1][y] & CollisionDataFlag.BLOCK_MOVEMENT_FULL) == 0 && !visited[x - 1][y]) {
-                queue.add(((x - 1) << 16) | y);
-                visited[x - 1][y] = true;
-            }
-            if ((flags[x][y] & CollisionDataFlag.BLOCK_MOVEMENT_EAST) == 0 && (flags[x + 1][y] & CollisionDataFlag.BLOCK_MOVEMENT_FULL) == 0 && !visited[x + 1][y]) {
-                queue.add(((x + 1) << 16) | y);
-                visited[x + 1][y] = true;
-            }
-        }
-        int baseX = worldView.getBaseX();
-        int baseY = worldView.getBaseY();
-        int plane = worldView.getPlane();
-        List<WorldPoint> finalPoints = new ArrayList<>();
-        for (int x = 0; x < 104; ++x) {
-            for (int y = 0; y < 104; ++y) {
-                if (visited[x][y]) {
-                    finalPoints.add(new WorldPoint(baseX + x, baseY + y, plane));
-                }
-            }
-        }
-        return finalPoints;
+        return DistanceField.of(origin).getReachableWorldPoints();
+    }
+
+    /**
+     * Returns all reachable tiles from the player's current position as compressed points, see
+     * {@link WorldPointUtil#compress(int, int, int)}. Cheaper than {@link #reachableTiles()} for bulk use.
+     *
+     * @return The compressed reachable tiles.
+     */
+    public static IntList reachableTilesCompressed()
+    {
+        return DistanceField.ofPlayer().getReachable();
+    }
+
+    /**
+     * Returns the walking distance in tiles from the player's current position.
+     *
+     * @param to The destination WorldPoint.
+     * @return The distance in tiles, or -1 if the destination is not reachable.
+     */
+    public static int pathDistance(WorldPoint to)
+    {
+        return DistanceField.ofPlayer().distance(to);
     }
 
     /**
@@ -513,10 +490,7 @@ public class SceneAPI {
      * @return True if the destination tile is reachable, false otherwise.
      */
     public static boolean isReachable(Tile from, Tile to) {
-        List<Tile> path  = pathTo(from, to);
-        if(path == null || path.isEmpty())
-            return false;
-        return (path.get(path.size()-1) == to);
+        return isReachable(from.getWorldLocation(), to.getWorldLocation());
     }
 
     /**
@@ -527,26 +501,7 @@ public class SceneAPI {
      */
     public static boolean isReachable(WorldPoint from, WorldPoint to)
     {
-        Client client = Static.getClient();
-        WorldView worldView = client.getTopLevelWorldView();
-        if(worldView.getPlane() != to.getPlane())
-            return false;
-        LocalPoint lp = LocalPoint.fromWorld(worldView, to.getX(), to.getY());
-        LocalPoint lp_from = LocalPoint.fromWorld(worldView, from.getX(), from.getY());
-        if(lp == null || lp_from == null)
-            return false;
-        Tile[][][] tiles = worldView.getScene().getTiles();
-        try
-        {
-            Tile tile_from = tiles[from.getPlane()][lp_from.getSceneX()][lp_from.getSceneY()];
-            Tile tile_to = tiles[to.getPlane()][lp.getSceneX()][lp.getSceneY()];
-            List<Tile> path  = pathTo(tile_from, tile_to);
-            return path != null && (path.get(path.size()-1) == tile_to);
-        }
-        catch (Exception ignored)
-        {
-            return false;
-        }
+        return DistanceField.of(from).isReachable(to);
     }
 
     /**
@@ -556,8 +511,6 @@ public class SceneAPI {
      */
     public static boolean isReachable(WorldPoint to)
     {
-        Client client = Static.getClient();
-        WorldPoint from = client.getLocalPlayer().getWorldLocation();
-        return isReachable(from, to);
+        return DistanceField.ofPlayer().isReachable(to);
     }
 }
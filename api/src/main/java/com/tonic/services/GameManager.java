@@ -9,9 +9,12 @@ import com.tonic.data.LoginResponse;
 import com.tonic.data.TileItemEx;
 import com.tonic.data.TileObjectEx;
 import com.tonic.services.hotswapper.PluginReloader;
-import com.tonic.services.pathfinder.Pathfinder;
+import com.tonic.services.pathfinder.PathfindingService;
 import com.tonic.services.pathfinder.Walker;
+import com.tonic.services.pathfinder.local.SceneCollisionSnapshot;
 import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.requirements.Dependency;
+import com.tonic.services.pathfinder.teleports.TeleportLoader;
 import com.tonic.services.pathfinder.transports.TransportLoader;
 import com.tonic.util.ThreadPool;
 import lombok.Getter;
@@ -20,6 +23,7 @@ import net.runelite.api.Point;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.*;
+import net.runelite.api.gameval.InventoryID;
 import net.runelite.api.gameval.InterfaceID;
 import net.runelite.api.widgets.Widget;
 import net.runelite.client.eventbus.Subscribe;
@@ -181,6 +185,10 @@ public class GameManager extends Overlay {
     protected void onGameTick(GameTick event)
     {
         tickCount++;
+
+        SceneCollisionSnapshot collision = SceneCollisionSnapshot.peek();
+        if(collision != null && collision.getPlane() != Static.getClient().getTopLevelWorldView().getPlane())
+            SceneCollisionSnapshot.invalidate();
     }
 
     @Subscribe
@@ -188,6 +196,72 @@ public class GameManager extends Overlay {
     {
         if(event.getGameState() == GameState.LOGIN_SCREEN || event.getGameState() == GameState.HOPPING)
             tickCount = 0;
+        if(event.getGameState() == GameState.LOADING || event.getGameState() == GameState.LOGGED_IN)
+            SceneCollisionSnapshot.invalidate();
+        if(event.getGameState() == GameState.LOGGED_IN)
+        {
+            TransportLoader.invalidate(Dependency.ALL);
+            TeleportLoader.invalidate();
+        }
+    }
+
+    @Subscribe
+    public void onVarbitChanged(VarbitChanged event)
+    {
+        TransportLoader.onVarChanged(event.getVarbitId(), event.getVarpId());
+        TeleportLoader.onVarChanged(event.getVarbitId(), event.getVarpId());
+    }
+
+    @Subscribe
+    public void onStatChanged(StatChanged event)
+    {
+        TransportLoader.onStatChanged(event.getSkill(), event.getLevel(), event.getBoostedLevel());
+    }
+
+    @Subscribe
+    public void onItemContainerChanged(ItemContainerChanged event)
+    {
+        if(event.getContainerId() == InventoryID.INV || event.getContainerId() == InventoryID.WORN)
+        {
+            TransportLoader.invalidate(Dependency.ITEMS);
+            TeleportLoader.invalidate();
+        }
+    }
+
+    @Subscribe
+    public void onGameObjectSpawned(GameObjectSpawned event)
+    {
+        SceneCollisionSnapshot.invalidate();
+    }
+
+    @Subscribe
+    public void onGameObjectDespawned(GameObjectDespawned event)
+    {
+        SceneCollisionSnapshot.invalidate();
+    }
+
+    @Subscribe
+    public void onWallObjectSpawned(WallObjectSpawned event)
+    {
+        SceneCollisionSnapshot.invalidate();
+    }
+
+    @Subscribe
+    public void onWallObjectDespawned(WallObjectDespawned event)
+    {
+        SceneCollisionSnapshot.invalidate();
+    }
+
+    @Subscribe
+    public void onGroundObjectSpawned(GroundObjectSpawned event)
+    {
+        SceneCollisionSnapshot.invalidate();
+    }
+
+    @Subscribe
+    public void onGroundObjectDespawned(GroundObjectDespawned event)
+    {
+        SceneCollisionSnapshot.invalidate();
     }
 
     @Subscribe
@@ -267,10 +341,8 @@ public class GameManager extends Overlay {
                 .setParam1(event.getActionParam1())
                 .setIdentifier(event.getIdentifier())
                 .setType(MenuAction.RUNELITE)
-                .onClick(e -> ThreadPool.submit(() -> {
-                    Pathfinder engine = new Pathfinder(wp);
-                    List<Step> path = engine.find();
-                    if(path == null || path.isEmpty())
+                .onClick(e -> PathfindingService.submit(wp).thenAccept(path -> {
+                    if(path.isEmpty())
                         return;
                     testPoints = Step.toWorldPoints(path);
                 }));
@@ -4,6 +4,7 @@ import com.tonic.Static;
 import com.tonic.api.threaded.Delays;
 import com.tonic.services.pathfinder.collision.Flags;
 import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.local.SceneCollisionSnapshot;
 import com.tonic.util.ThreadPool;
 import com.tonic.util.TileDrawingUtil;
 import lombok.Getter;
@@ -94,20 +95,20 @@ public class TileOverlays extends Overlay
     public void drawCollisionMap(Graphics2D graphics) {
         Client client = Static.getClient();
         WorldView wv = client.getTopLevelWorldView();
-        if(wv.getCollisionMaps() == null || wv.getCollisionMaps()[wv.getPlane()] == null)
+        SceneCollisionSnapshot snapshot = SceneCollisionSnapshot.current();
+        if(snapshot.getSizeX() == 0 || snapshot.getPlane() != wv.getPlane())
             return;
 
-        int[][] c_flags = wv.getCollisionMaps()[wv.getPlane()].getFlags();
         WorldPoint point;
         LocalPoint localPoint;
         Tile tile;
-        LocalCollisionMap map = new LocalCollisionMap();
+        LocalCollisionMap map = new LocalCollisionMap(snapshot);
         Color wall = Color.RED;
         Color fill = new Color(255, 0, 0, 80);
         Stroke stroke = new BasicStroke(1.0f);
-        for(int x = 0; x < c_flags.length; x++)
+        for(int x = 0; x < snapshot.getSizeX(); x++)
         {
-            for(int y = 0; y < c_flags[x].length; y++)
+            for(int y = 0; y < snapshot.getSizeY(); y++)
             {
                 point = WorldPoint.fromScene(wv, x, y, wv.getPlane());
                 localPoint = LocalPoint.fromScene(x, y, wv);
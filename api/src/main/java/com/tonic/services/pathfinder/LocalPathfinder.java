@@ -1,16 +1,13 @@
 package com.tonic.services.pathfinder;
 
 import com.tonic.Logger;
-import com.tonic.Static;
 import com.tonic.services.pathfinder.collections.BFSCache;
 import com.tonic.services.pathfinder.collections.HybridIntQueue;
 import com.tonic.services.pathfinder.collections.IntQueue;
 import com.tonic.services.pathfinder.local.CollisionUtil;
+import com.tonic.services.pathfinder.local.SceneCollisionSnapshot;
 import com.tonic.services.pathfinder.model.Step;
 import com.tonic.util.WorldPointUtil;
-import gnu.trove.map.hash.TIntIntHashMap;
-import net.runelite.api.Client;
-import net.runelite.api.WorldView;
 import net.runelite.api.coords.WorldPoint;
 
 import java.util.ArrayList;
@@ -33,7 +30,7 @@ public class LocalPathfinder
 
     public List<Step> findPath(WorldPoint start, WorldPoint end)
     {
-        collisionUtil = new CollisionUtil(getCollision());
+        collisionUtil = new CollisionUtil(SceneCollisionSnapshot.current());
 
         target = WorldPointUtil.compress(end.getX(), end.getY(), end.getPlane());
         visited.clear();
@@ -111,24 +108,4 @@ public class LocalPathfinder
             queue.enqueue(neighbor);
         }
     }
-    private TIntIntHashMap getCollision()
-    {
-        Client client = Static.getClient();
-        TIntIntHashMap collisionMap = new TIntIntHashMap();
-        WorldView wv = client.getTopLevelWorldView();
-        if(wv.getCollisionMaps() == null || wv.getCollisionMaps()[wv.getPlane()] == null)
-            return collisionMap;
-
-        int[][] flags = wv.getCollisionMaps()[wv.getPlane()].getFlags();
-        WorldPoint point;
-        for(int x = 0; x < flags.length; x++)
-        {
-            for(int y = 0; y < flags[x].length; y++)
-            {
-                point = WorldPoint.fromScene(client, x, y, wv.getPlane());
-                collisionMap.put(WorldPointUtil.compress(point.getX(), point.getY(), wv.getPlane()), flags[x][y]);
-            }
-        }
-        return collisionMap;
-    }
 }
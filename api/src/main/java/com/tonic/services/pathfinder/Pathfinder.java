@@ -8,25 +8,43 @@ import com.tonic.services.pathfinder.collections.HybridIntQueue;
 import com.tonic.services.pathfinder.collision.CollisionMap;
 import com.tonic.services.pathfinder.collision.Flags;
 import com.tonic.services.pathfinder.collision.GlobalCollisionMap;
+import com.tonic.services.pathfinder.collision.MappedCollisionMap;
+import com.tonic.services.pathfinder.collision.MovementMaskCollisionMap;
 import com.tonic.services.pathfinder.collision.Properties;
+import com.tonic.services.pathfinder.local.DistanceField;
 import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.metrics.PathfinderMetrics;
+import com.tonic.services.pathfinder.metrics.SearchMetrics;
+import com.tonic.services.pathfinder.metrics.SearchTrace;
 import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.model.TargetDistance;
+import com.tonic.services.pathfinder.search.AStarSearch;
+import com.tonic.services.pathfinder.search.BidirectionalSearch;
+import com.tonic.services.pathfinder.search.CostModel;
+import com.tonic.services.pathfinder.search.DistanceSearch;
+import com.tonic.services.pathfinder.search.HubGraph;
+import com.tonic.services.pathfinder.search.ParallelSearch;
+import com.tonic.services.pathfinder.search.RepairSearch;
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import com.tonic.services.pathfinder.search.SearchContext;
 import com.tonic.services.pathfinder.teleports.Teleport;
 import com.tonic.services.pathfinder.transports.Transport;
+import com.tonic.services.pathfinder.transports.TransportIndex;
 import com.tonic.services.pathfinder.transports.TransportLoader;
-import com.tonic.util.Location;
-import com.tonic.util.Profiler;
 import com.tonic.util.WorldPointUtil;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
 import lombok.Getter;
+import lombok.Setter;
 import net.runelite.api.Client;
-import net.runelite.api.Tile;
 import net.runelite.api.coords.WorldArea;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.gameval.ItemID;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Pathfinder class to find paths between points in the game world.
@@ -35,30 +53,76 @@ public class Pathfinder
 {
     static {
         try {
-            collisionMap = GlobalCollisionMap.load();
+            collisionMap = MappedCollisionMap.load();
         } catch (Exception e) {
-            Logger.error(e, "[Pathfinder] Failed to load collision map: %e");
+            Logger.error(e, "[Pathfinder] Failed to map collision cache, falling back to map.dat: %e");
+            try {
+                collisionMap = GlobalCollisionMap.load();
+            } catch (Exception ex) {
+                Logger.error(ex, "[Pathfinder] Failed to load collision map: %e");
+            }
+        }
+        if (collisionMap != null) {
+            collisionMap = new MovementMaskCollisionMap(collisionMap);
         }
     }
 
+    private static final int REPAIR_RADIUS = 32;
+    // teleports landing closer than this many tiles of walking are not used as starts
+    private static final int TELEPORT_WALK_DISTANCE = 20;
+
     @Getter
     private static CollisionMap collisionMap;
+    /**
+     * The search engine new Pathfinder instances start out with.
+     */
+    @Getter
+    @Setter
+    private static SearchAlgorithm defaultAlgorithm = SearchAlgorithm.BFS;
+    /**
+     * Whether finished routes are stored in and served from the {@link RouteCache}.
+     */
+    @Getter
+    @Setter
+    private static boolean routeCacheEnabled = true;
+    @Getter
+    @Setter
+    private SearchAlgorithm algorithm = defaultAlgorithm;
+    @Getter
+    @Setter
+    private CostModel costModel = CostModel.DEFAULT;
     private LocalCollisionMap localMap;
     @Getter
     private Teleport teleport;
     private WorldPoint targetWorldPoint;
 
     private int[] worldAreaPoints;
+    private int[][] targetGroups;
     private boolean inInstance = false;
     private int transportsUsed;
 
+    // client state captured by prepare()
+    private TIntObjectHashMap<ArrayList<Transport>> transports;
+    private TransportIndex transportIndex;
+    private TransportIndex transportIndexByDestination;
+    private List<Teleport> teleports;
+    private final List<Integer> startPoints = new ArrayList<>();
+    private final List<Integer> startCosts = new ArrayList<>();
+    private long routeKey;
+    private volatile boolean cancelled;
+    private final List<SearchContext> activeContexts = new CopyOnWriteArrayList<>();
+    /**
+     * What the last search did and where its time went, filled in from {@link #prepare()} on.
+     */
+    @Getter
+    private SearchMetrics metrics;
+
     /**
      * Initializes the pathfinder with a target WorldPoint.
      *
      * @param target The destination WorldPoint to find a path to.
      */
     public Pathfinder(final WorldPoint target) {
-        TransportLoader.refreshTransports();
         this.targetWorldPoint = target;
     }
 
@@ -68,7 +132,6 @@ public class Pathfinder
      */
     public Pathfinder(WorldArea... worldAreas)
     {
-        TransportLoader.refreshTransports();
         worldAreaPoints = WorldPointUtil.toCompressedPoints(worldAreas);
     }
 
@@ -78,10 +141,22 @@ public class Pathfinder
      */
     public Pathfinder(List<WorldArea> worldAreas)
     {
-        TransportLoader.refreshTransports();
         worldAreaPoints = WorldPointUtil.toCompressedPoints(worldAreas.toArray(new WorldArea[0]));
     }
 
+    private Pathfinder(final int[][] targetGroups)
+    {
+        this.targetGroups = targetGroups;
+    }
+
+    /**
+     * Initializes the pathfinder with compressed target tiles, searched like a WorldArea.
+     */
+    Pathfinder(final int[] targets)
+    {
+        this.worldAreaPoints = targets;
+    }
+
     /**
      * Finds a path from the player's current location to the target WorldPoint or WorldArea.
      *
@@ -94,99 +169,615 @@ public class Pathfinder
             return new ArrayList<>();
         }
         try {
-            Client client = Static.getClient();
-            this.inInstance = client.getTopLevelWorldView().isInstance();
-            List<Teleport> teleports = Teleport.buildTeleportLinks();
+            prepare();
+            return compute();
+        } catch (Exception e) {
+            Logger.error(e, "[Pathfinder] %e");
+            return null;
+        }
+    }
 
-            final List<Integer> startPoints = new ArrayList<>();
+    /**
+     * Captures everything the search needs from the client in a single client thread call:
+     * the filtered transports, the usable teleports, the player's location and, in instances,
+     * the scene collision. After this returns, {@link #compute()} can run on any thread.
+     */
+    public void prepare()
+    {
+        final SearchMetrics metrics = new SearchMetrics(algorithm);
+        this.metrics = metrics;
+        final long requested = System.nanoTime();
+        Static.invoke(() -> {
+            final long begin = System.nanoTime();
+            TransportLoader.refreshTransports();
+            transports = TransportLoader.getTransports();
+            transportIndex = TransportLoader.getTransportIndex();
+            transportIndexByDestination = TransportLoader.getTransportIndexByDestination();
+            final long refreshed = System.nanoTime();
+            startPoints.clear();
+            startCosts.clear();
+            teleports = collectStarts(startPoints, startCosts);
+            metrics.setTransportRefreshNanos(refreshed - begin);
+            metrics.setStartsNanos(System.nanoTime() - refreshed);
+            return true;
+        });
+        metrics.setClientWaitNanos(System.nanoTime() - requested - metrics.getClientThreadNanos());
+        metrics.setStarts(startPoints.size());
+        // everything after the player's own tile is a teleport destination
+        metrics.setTeleportsSeeded(startPoints.size() - 1);
+        routeKey = 0;
+        if(!inInstance && targetGroups == null)
+        {
+            final int target = targetWorldPoint != null ? WorldPointUtil.compress(targetWorldPoint) : Arrays.hashCode(worldAreaPoints);
+            final long fingerprint = RouteCache.fingerprint(transports, startPoints, startCosts, Properties.getBlacklist(), algorithm, costModel.getClass().getName());
+            routeKey = RouteCache.key(startPoints.get(0), target, fingerprint);
+        }
+    }
 
-            if(inInstance)
+    /**
+     * Runs the search on the state captured by {@link #prepare()} without touching the client.
+     *
+     * @return A list of Steps representing the path, or an empty list if no path is found or the
+     * search was cancelled.
+     */
+    public List<Step> compute() {
+        if(collisionMap == null)
+        {
+            Logger.error("[Pathfinder] Collision map is null, cannot perform pathfinding.");
+            return new ArrayList<>();
+        }
+        if(transports == null)
+        {
+            throw new IllegalStateException("prepare() must be called before compute()");
+        }
+        try {
+            final long begin = System.nanoTime();
+            if(PathfinderMetrics.isTracing())
             {
-                localMap = new LocalCollisionMap();
+                metrics.setTrace(new SearchTrace(algorithm, toArray(startPoints), targetTiles()));
             }
 
-            startPoints.add(0, WorldPointUtil.compress(client.getLocalPlayer().getWorldLocation()));
-
-            for(final Teleport teleport : teleports) {
-                if(!filterTeleports(teleport.getDestination()))
+            List<Step> path = cachedPath();
+            metrics.setCacheHit(path != null);
+            if(path == null)
+            {
+                path = search();
+                if(routeCacheEnabled && routeKey != 0 && !path.isEmpty() && !cancelled)
                 {
-                    startPoints.add(WorldPointUtil.compress(teleport.getDestination()));
+                    RouteCache.put(routeKey, path);
                 }
             }
 
-            Profiler.Start("Pathfinding");
-
-            final List<Step> path = buildPath(startPoints);
-
-            Profiler.StopMS();
-            Logger.info("Path Length: " + path.size());
+            metrics.setSearchNanos(System.nanoTime() - begin);
+            metrics.setPathLength(path.size());
+            metrics.setTransportsUsed(countTransports(path));
+            metrics.setCancelled(cancelled);
+            Logger.info(metrics.toString());
+            PathfinderMetrics.record(metrics);
 
             if(path.isEmpty())
                 return path;
 
-            for (final Teleport tp : teleports)
+            teleport = findTeleport(teleports, path.get(0).position);
+            return path;
+
+        } catch (Exception e) {
+            Logger.error(e, "[Pathfinder] %e");
+            return null;
+        }
+    }
+
+    /**
+     * Captures the state {@link #compute()} searches from arguments instead of the client, for
+     * offline tooling. There are no teleports and the route cache is not used.
+     *
+     * @param localMap the scene collision when the starts are in an instance, otherwise null
+     */
+    void prepare(final TIntObjectHashMap<ArrayList<Transport>> transports, final TransportIndex transportIndex,
+                 final TransportIndex transportIndexByDestination, final LocalCollisionMap localMap,
+                 final int[] starts, final int[] costs)
+    {
+        this.metrics = new SearchMetrics(algorithm);
+        this.transports = transports;
+        this.transportIndex = transportIndex;
+        this.transportIndexByDestination = transportIndexByDestination;
+        this.localMap = localMap;
+        this.inInstance = localMap != null;
+        this.teleports = new ArrayList<>();
+        startPoints.clear();
+        startCosts.clear();
+        for(int i = 0; i < starts.length; i++)
+        {
+            startPoints.add(starts[i]);
+            startCosts.add(costs[i]);
+        }
+        metrics.setStarts(startPoints.size());
+        routeKey = 0;
+    }
+
+    /**
+     * Runs the engine {@link #algorithm} selects on the captured state, including the fallbacks
+     * of engines that can not answer the query, without the route cache.
+     *
+     * @return the path, or an empty list if no path is found or the search was cancelled
+     */
+    List<Step> search()
+    {
+        return algorithm == SearchAlgorithm.BFS
+                ? buildPath(startPoints)
+                : buildCostPath(startPoints, startCosts);
+    }
+
+    /**
+     * Replaces the collision map every search runs on, for offline tooling that loads its own.
+     */
+    static void useCollisionMap(final CollisionMap map)
+    {
+        collisionMap = map;
+    }
+
+    /**
+     * Reconnects the player to a path they drifted off by searching only the area around them for
+     * the nearest step that is still ahead, instead of the whole route.
+     *
+     * @param position The player's current location.
+     * @param remaining The steps of the path that have not been walked yet.
+     * @return The repaired path, or null if no remaining step is within reach and a full search is needed.
+     */
+    public static List<Step> repair(final WorldPoint position, final List<Step> remaining)
+    {
+        if(collisionMap == null || LocalCollisionMap.isInstanced(position.getX()))
+        {
+            return null;
+        }
+        final SearchContext context = SearchContext.acquire();
+        try
+        {
+            final RepairSearch search = new RepairSearch(collisionMap, TransportLoader.getTransportIndex(), CostModel.DEFAULT, context);
+            search.setBlacklist(Properties.getBlacklist());
+            return search.search(WorldPointUtil.compress(position), remaining, REPAIR_RADIUS);
+        }
+        finally
+        {
+            SearchContext.release(context);
+        }
+    }
+
+    /**
+     * Serves the route from the {@link RouteCache} if one was stored for the same region, target
+     * and requirements. A route that started on another tile of the region is joined from the
+     * player's tile with a local repair search.
+     */
+    private List<Step> cachedPath()
+    {
+        if(!routeCacheEnabled || routeKey == 0)
+        {
+            return null;
+        }
+        final List<Step> path = RouteCache.get(routeKey, collisionMap, transports);
+        if(path == null)
+        {
+            return null;
+        }
+        if(startPoints.contains(path.get(0).position))
+        {
+            Logger.info("[Pathfinder] Using cached route");
+            return path;
+        }
+        final SearchContext context = acquireContext();
+        try
+        {
+            final RepairSearch search = new RepairSearch(collisionMap, transportIndex, costModel, context);
+            search.setBlacklist(Properties.getBlacklist());
+            final List<Step> joined = search.search(startPoints.get(0), path, REPAIR_RADIUS);
+            if(joined != null)
             {
-                if(WorldPointUtil.compress(tp.getDestination()) == path.get(0).position)
+                Logger.info("[Pathfinder] Using cached route");
+            }
+            return joined;
+        }
+        finally
+        {
+            releaseContext(context);
+        }
+    }
+
+    /**
+     * Stops a running {@link #compute()}, which then returns an empty path. Safe to call from any
+     * thread.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+        for(final SearchContext context : activeContexts)
+        {
+            context.cancel();
+        }
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    WorldPoint getTargetWorldPoint()
+    {
+        return targetWorldPoint;
+    }
+
+    int[] getWorldAreaPoints()
+    {
+        return worldAreaPoints;
+    }
+
+    /**
+     * Takes over the result of an identical request that was searched by another instance.
+     */
+    void copyResult(final Pathfinder other)
+    {
+        this.teleport = other.teleport;
+    }
+
+    private SearchContext acquireContext()
+    {
+        final SearchContext context = SearchContext.acquire();
+        activeContexts.add(context);
+        if(cancelled)
+        {
+            context.cancel();
+        }
+        if(metrics != null)
+        {
+            context.setTrace(metrics.getTrace());
+        }
+        return context;
+    }
+
+    private void releaseContext(final SearchContext context)
+    {
+        activeContexts.remove(context);
+        if(metrics != null)
+        {
+            metrics.add(context);
+        }
+        SearchContext.release(context);
+    }
+
+    private int[] targetTiles()
+    {
+        if(targetWorldPoint != null)
+        {
+            return new int[]{WorldPointUtil.compress(targetWorldPoint)};
+        }
+        if(targetGroups != null)
+        {
+            return Arrays.stream(targetGroups).flatMapToInt(Arrays::stream).toArray();
+        }
+        return worldAreaPoints != null ? worldAreaPoints : new int[0];
+    }
+
+    private static int[] toArray(final List<Integer> values)
+    {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int countTransports(final List<Step> path)
+    {
+        int count = 0;
+        for(final Step step : path)
+        {
+            if(step.hasTransport())
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Prices every target from the player's current location in a single search.
+     *
+     * @param targets The destination WorldPoints.
+     * @return One result per target, in the order given, including unreachable ones.
+     */
+    public static List<TargetDistance> distances(final WorldPoint... targets)
+    {
+        final int[][] groups = new int[targets.length][];
+        for(int i = 0; i < targets.length; i++)
+        {
+            groups[i] = new int[]{WorldPointUtil.compress(targets[i])};
+        }
+        return new Pathfinder(groups).findDistances();
+    }
+
+    /**
+     * Prices every target area from the player's current location in a single search. An area
+     * is reached on the first of its tiles the search settles.
+     *
+     * @param areas The destination WorldAreas.
+     * @return One result per area, in the order given, including unreachable ones.
+     */
+    public static List<TargetDistance> distances(final WorldArea... areas)
+    {
+        final int[][] groups = new int[areas.length][];
+        for(int i = 0; i < areas.length; i++)
+        {
+            groups[i] = WorldPointUtil.toCompressedPoints(areas[i]);
+        }
+        return new Pathfinder(groups).findDistances();
+    }
+
+    /**
+     * @param targets The destination WorldPoints.
+     * @return The cheapest reachable target, or null if none can be reached.
+     */
+    public static TargetDistance closest(final WorldPoint... targets)
+    {
+        return closest(distances(targets));
+    }
+
+    /**
+     * @param areas The destination WorldAreas.
+     * @return The cheapest reachable area, or null if none can be reached.
+     */
+    public static TargetDistance closest(final WorldArea... areas)
+    {
+        return closest(distances(areas));
+    }
+
+    private static TargetDistance closest(final List<TargetDistance> distances)
+    {
+        TargetDistance best = null;
+        for(final TargetDistance distance : distances)
+        {
+            if(distance.isReachable() && (best == null || distance.getCost() < best.getCost()))
+            {
+                best = distance;
+            }
+        }
+        return best;
+    }
+
+    private List<TargetDistance> findDistances()
+    {
+        if(collisionMap == null)
+        {
+            Logger.error("[Pathfinder] Collision map is null, cannot perform pathfinding.");
+            return new ArrayList<>();
+        }
+        try {
+            prepare();
+            final long begin = System.nanoTime();
+            if(PathfinderMetrics.isTracing())
+            {
+                metrics.setTrace(new SearchTrace(algorithm, toArray(startPoints), targetTiles()));
+            }
+
+            final TargetDistance[] results;
+            final SearchContext context = acquireContext();
+            try {
+                final DistanceSearch search = new DistanceSearch(collisionMap, inInstance ? localMap : null, transportIndex, costModel, context);
+                search.setBlacklist(Properties.getBlacklist());
+                results = search.search(toArray(startPoints), toArray(startCosts), targetGroups);
+            } finally {
+                releaseContext(context);
+            }
+
+            for(final TargetDistance result : results)
+            {
+                if(result.isReachable())
                 {
-                    teleport = tp.copy();
+                    result.setTeleport(findTeleport(teleports, result.getPath().get(0).position));
                 }
             }
 
-            return path;
-
+            // the result length of a distance search is the path to the cheapest target
+            final TargetDistance closest = closest(Arrays.asList(results));
+            metrics.setSearchNanos(System.nanoTime() - begin);
+            metrics.setPathLength(closest != null ? closest.getPath().size() : 0);
+            metrics.setTransportsUsed(closest != null ? countTransports(closest.getPath()) : 0);
+            metrics.setCancelled(cancelled);
+            Logger.info(metrics.toString());
+            PathfinderMetrics.record(metrics);
+            return Arrays.asList(results);
         } catch (Exception e) {
             Logger.error(e, "[Pathfinder] %e");
-            return null;
+            return new ArrayList<>();
         }
     }
 
-    private List<Step> buildPath(final List<Integer> starts)
+    /**
+     * Adds the player's tile and every usable teleport destination as search starts. Runs on
+     * the client thread.
+     * @return The teleports that were considered.
+     */
+    private List<Teleport> collectStarts(final List<Integer> startPoints, final List<Integer> startCosts)
     {
-        final BFSCache visited = new BFSCache();
+        Client client = Static.getClient();
+        this.inInstance = client.getTopLevelWorldView().isInstance();
+        List<Teleport> teleports = Teleport.buildTeleportLinks();
 
-        //blacklist
-        for(int i : Properties.getBlacklist())
+        if(inInstance)
         {
-            visited.put(i, -1);
+            localMap = new LocalCollisionMap();
         }
 
-        final HybridIntQueue queue = new HybridIntQueue(10_000_000);
+        startPoints.add(0, WorldPointUtil.compress(client.getLocalPlayer().getWorldLocation()));
+        startCosts.add(0);
 
-        for(final int wp : starts)
+        final DistanceField walkable = DistanceField.ofPlayer();
+        for(final Teleport teleport : teleports) {
+            if(!filterTeleports(walkable, teleport.getDestination()))
+            {
+                startPoints.add(WorldPointUtil.compress(teleport.getDestination()));
+                startCosts.add(costModel.teleportCost(teleport));
+            }
+        }
+        return teleports;
+    }
+
+    private static Teleport findTeleport(final List<Teleport> teleports, final int origin)
+    {
+        Teleport match = null;
+        for (final Teleport tp : teleports)
         {
-            visited.put(wp, -1);
-            queue.enqueue(wp);
+            if(WorldPointUtil.compress(tp.getDestination()) == origin)
+            {
+                match = tp.copy();
+            }
         }
+        return match;
+    }
+
+    private List<Step> buildPath(final List<Integer> starts)
+    {
+        final SearchContext context = acquireContext();
+        final int considered = transportsUsed;
+        try
+        {
+            final BFSCache visited = context.getVisited();
+
+            //blacklist
+            for(int i : Properties.getBlacklist())
+            {
+                visited.put(i, -1);
+            }
+
+            final HybridIntQueue queue = context.getQueue();
+
+            for(final int wp : starts)
+            {
+                visited.put(wp, -1);
+                queue.enqueue(wp);
+            }
 
 
+            if(targetWorldPoint != null)
+                return findWorldPoint(context, visited, queue);
+            if(worldAreaPoints != null && worldAreaPoints.length > 0)
+                return findAreaPoint(context, visited, queue);
+            return new ArrayList<>();
+        }
+        finally
+        {
+            context.consideredTransports(transportsUsed - considered);
+            releaseContext(context);
+        }
+    }
+
+    private List<Step> buildCostPath(final List<Integer> starts, final List<Integer> startCosts)
+    {
+        final int[] targets;
         if(targetWorldPoint != null)
-            return findWorldPoint(visited, queue);
-        if(worldAreaPoints != null && worldAreaPoints.length > 0)
-            return findAreaPoint(visited, queue);
-        return new ArrayList<>();
+        {
+            final int targetIndex = WorldPointUtil.compress(targetWorldPoint);
+            if(!collisionMap.walkable(targetIndex)) {
+                Logger.info("Could not generate path to a blocked tile");
+                return new ArrayList<>();
+            }
+            targets = new int[]{targetIndex};
+        }
+        else if(worldAreaPoints != null && worldAreaPoints.length > 0)
+        {
+            targets = worldAreaPoints;
+        }
+        else
+        {
+            return new ArrayList<>();
+        }
+
+        final int[] startArray = starts.stream().mapToInt(Integer::intValue).toArray();
+        final int[] costArray = startCosts.stream().mapToInt(Integer::intValue).toArray();
+
+        if(algorithm == SearchAlgorithm.HUB && !inInstance)
+        {
+            final HubGraph graph = HubGraph.get(collisionMap);
+            if(graph != null)
+            {
+                final SearchContext context = acquireContext();
+                final List<Step> path;
+                try
+                {
+                    path = graph.search(transports, costModel, context, startArray, costArray, targets);
+                }
+                finally
+                {
+                    releaseContext(context);
+                }
+                if(path != null)
+                {
+                    return path;
+                }
+            }
+        }
+
+        if(algorithm == SearchAlgorithm.BIDIRECTIONAL)
+        {
+            final SearchContext forwardContext = acquireContext();
+            final SearchContext backwardContext = acquireContext();
+            try
+            {
+                final BidirectionalSearch search = new BidirectionalSearch(collisionMap, inInstance ? localMap : null, transportIndex,
+                        transportIndexByDestination, costModel, forwardContext, backwardContext);
+                search.setBlacklist(Properties.getBlacklist());
+                return search.search(startArray, costArray, targets);
+            }
+            finally
+            {
+                releaseContext(forwardContext);
+                releaseContext(backwardContext);
+            }
+        }
+
+        final SearchContext context = acquireContext();
+        try
+        {
+            if(algorithm == SearchAlgorithm.PARALLEL && !inInstance)
+            {
+                final ParallelSearch search = new ParallelSearch(collisionMap, transportIndex, costModel, context);
+                search.setBlacklist(Properties.getBlacklist());
+                return search.search(startArray, costArray, targets);
+            }
+            // HUB and PARALLEL end up here when their own engine can not answer the query, both
+            // documented to fall back to jump point search
+            final SearchAlgorithm engine = algorithm == SearchAlgorithm.ASTAR ? SearchAlgorithm.ASTAR : SearchAlgorithm.JPS;
+            if(engine != algorithm)
+            {
+                Logger.info("[Pathfinder] " + algorithm + " can not answer this query, falling back to " + engine);
+            }
+            final AStarSearch search = new AStarSearch(collisionMap, inInstance ? localMap : null, transportIndex, costModel, engine == SearchAlgorithm.JPS, context);
+            search.setBlacklist(Properties.getBlacklist());
+            return search.search(startArray, costArray, targets);
+        }
+        finally
+        {
+            releaseContext(context);
+        }
     }
 
-    private List<Step> findAreaPoint(final BFSCache visited, final HybridIntQueue queue) {
+    private List<Step> findAreaPoint(final SearchContext context, final BFSCache visited, final HybridIntQueue queue) {
+        final TIntHashSet targets = new TIntHashSet(worldAreaPoints);
         int current;
         while(!queue.isEmpty())
         {
-            if(visited.size() > 10_000_000)
+            if(visited.size() > 10_000_000 || cancelled)
             {
                 return new ArrayList<>();
             }
             current = queue.dequeue();
-            if(ArrayUtils.contains(worldAreaPoints, current))
+            if(targets.contains(current))
             {
                 Logger.info("Nodes visited: " + visited.size());
-                return visited.path(current);
+                return visited.path(current, transportIndex);
 
             }
+            context.expanded(current);
             addNeighbors(current, queue, visited);
         }
         return new ArrayList<>();
     }
 
-    private List<Step> findWorldPoint(final BFSCache visited, final HybridIntQueue queue) {
+    private List<Step> findWorldPoint(final SearchContext context, final BFSCache visited, final HybridIntQueue queue) {
         final int targetIndex = WorldPointUtil.compress(targetWorldPoint);
 
         //validate target
@@ -198,7 +789,7 @@ public class Pathfinder
         int current;
         while(!queue.isEmpty())
         {
-            if(visited.size() > 10_000_000)
+            if(visited.size() > 10_000_000 || cancelled)
             {
                 return new ArrayList<>();
             }
@@ -206,9 +797,10 @@ public class Pathfinder
             if(current == targetIndex)
             {
                 Logger.info("Nodes visited: " + visited.size());
-                return visited.path(current);
+                return visited.path(current, transportIndex);
 
             }
+            context.expanded(current);
             addNeighbors(current, queue, visited);
         }
         return new ArrayList<>();
@@ -266,7 +858,7 @@ public class Pathfinder
         final short y = WorldPointUtil.getCompressedY(node);
         final byte plane = WorldPointUtil.getCompressedPlane(node);
 
-        if(x > 6000)
+        if(LocalCollisionMap.isInstanced(x))
         {
             if(inInstance)
                 addNeighborsLocal(node, queue, visited);
@@ -328,13 +920,14 @@ public class Pathfinder
 
     private void checkTransports(final int node, final HybridIntQueue queue, final BFSCache visited)
     {
-        final ArrayList<Transport> tr = TransportLoader.getTransports().get(node);
-        if(tr != null)
+        final int row = transportIndex.row(node);
+        if(row == TransportIndex.NO_ROW)
         {
-            for (Transport t : tr) {
-                transportsUsed++;
-                addTransportNeighbor(node, t.getDestination(), calculateDelay(t.getDuration() * 2, queue.size()), queue, visited);
-            }
+            return;
+        }
+        for (int edge = transportIndex.start(row), end = transportIndex.end(row); edge < end; edge++) {
+            transportsUsed++;
+            addTransportNeighbor(node, edge, calculateDelay(transportIndex.duration(edge) * 2, queue.size()), queue, visited);
         }
     }
 
@@ -351,8 +944,9 @@ public class Pathfinder
         return longCalculated < 0 ? Integer.MAX_VALUE : longCalculated;
     }
 
-    private void addTransportNeighbor(final int node, final int neighbor, final int delay, final HybridIntQueue queue, final BFSCache visited) {
-        if (visited.put(neighbor, node))
+    private void addTransportNeighbor(final int node, final int edge, final int delay, final HybridIntQueue queue, final BFSCache visited) {
+        final int neighbor = transportIndex.destination(edge);
+        if (visited.put(neighbor, node, edge))
         {
             queue.enqueueTransport(neighbor, delay);
         }
@@ -365,15 +959,14 @@ public class Pathfinder
         }
     }
 
-    private boolean filterTeleports(final WorldPoint dest)
+    /**
+     * A teleport is pointless if its destination is a short walk away.
+     * @param walkable the walking distances from the player's tile
+     */
+    private static boolean filterTeleports(final DistanceField walkable, final WorldPoint dest)
     {
-        return Static.invoke(() ->
-        {
-            Client client = Static.getClient();
-            WorldPoint local = client.getLocalPlayer().getWorldLocation();
-            List<Tile> path = Location.pathTo(local, dest);
-            return path != null && path.size() < 20 && Location.isReachable(local, dest);
-        });
+        final int distance = walkable.distance(dest);
+        return distance != DistanceField.UNREACHABLE && distance < TELEPORT_WALK_DISTANCE;
     }
 
 }
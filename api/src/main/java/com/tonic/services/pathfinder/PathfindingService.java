@@ -0,0 +1,297 @@
+package com.tonic.services.pathfinder;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.search.CostModel;
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import com.tonic.util.Coroutine;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes paths on a small bounded worker pool instead of the calling thread.
+ *
+ * <p>Each request captures the client state it needs with a single client thread call through
+ * {@link Pathfinder#prepare()}, then searches on a worker without touching the client again.
+ * Identical requests that arrive while one is still running share its result instead of searching
+ * twice, and a search is stopped once every caller waiting on it has cancelled.</p>
+ */
+public class PathfindingService
+{
+    private static final int THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int QUEUE_SIZE = 16;
+    private static final long POLL_MS = 50;
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+    private static final ConcurrentHashMap<RequestKey, Request> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /**
+     * Queues a path from the player to a tile.
+     * @param target the destination
+     * @return the path, completed exceptionally if the search failed or the queue is full
+     */
+    public static CompletableFuture<List<Step>> submit(WorldPoint target)
+    {
+        return submit(new Pathfinder(target));
+    }
+
+    /**
+     * Queues a path from the player to the closest of several areas.
+     * @param targets the destinations
+     * @return the path, completed exceptionally if the search failed or the queue is full
+     */
+    public static CompletableFuture<List<Step>> submit(List<WorldArea> targets)
+    {
+        return submit(new Pathfinder(targets));
+    }
+
+    /**
+     * Queues a configured pathfinder. When an identical request is already running the returned
+     * future completes with its path instead, and the teleport it found is copied onto
+     * {@code pathfinder} so {@link Pathfinder#getTeleport()} works either way.
+     *
+     * <p>Cancelling the returned future withdraws this caller. The search itself is cancelled
+     * when no caller is left waiting on it.</p>
+     * @param pathfinder the pathfinder, must not have been prepared or run yet
+     * @return the path, completed exceptionally if the search failed or the queue is full
+     */
+    public static CompletableFuture<List<Step>> submit(Pathfinder pathfinder)
+    {
+        final RequestKey key = new RequestKey(pathfinder);
+        while (true)
+        {
+            final Request created = new Request(key, pathfinder);
+            final Request existing = IN_FLIGHT.putIfAbsent(key, created);
+            final Request request = existing != null ? existing : created;
+            if (!request.join())
+            {
+                // finished between the lookup and the join, start over
+                continue;
+            }
+            if (existing == null)
+            {
+                try
+                {
+                    EXECUTOR.execute(request::run);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    request.close();
+                    request.result.completeExceptionally(e);
+                }
+            }
+            return follow(request, pathfinder);
+        }
+    }
+
+    /**
+     * Blocks the calling script until the path is ready. If the script is cancelled through
+     * {@link Coroutine#_cancel()} while waiting, the request is cancelled too.
+     * @param future a future returned by one of the submit methods
+     * @return the path, or an empty list if the search failed or was cancelled
+     */
+    public static List<Step> await(CompletableFuture<List<Step>> future)
+    {
+        while (true)
+        {
+            if (Coroutine._isCancelled())
+            {
+                future.cancel(false);
+                return new ArrayList<>();
+            }
+            try
+            {
+                return future.get(POLL_MS, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException ignored)
+            {
+            }
+            catch (CancellationException e)
+            {
+                return new ArrayList<>();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                future.cancel(false);
+                return new ArrayList<>();
+            }
+            catch (ExecutionException e)
+            {
+                Logger.error(e.getCause(), "[Pathfinder] %e");
+                return new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct searches queued or running
+     */
+    public static int getInFlight()
+    {
+        return IN_FLIGHT.size();
+    }
+
+    private static CompletableFuture<List<Step>> follow(final Request request, final Pathfinder pathfinder)
+    {
+        final CompletableFuture<List<Step>> future = request.result.thenApply(path -> {
+            if (request.pathfinder != pathfinder)
+            {
+                pathfinder.copyResult(request.pathfinder);
+            }
+            return path;
+        });
+        future.whenComplete((path, error) -> {
+            if (future.isCancelled())
+            {
+                request.leave();
+            }
+        });
+        return future;
+    }
+
+    private static ThreadPoolExecutor createExecutor()
+    {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                    final Thread thread = new Thread(runnable, "pathfinder-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * One search and everyone waiting on it.
+     */
+    private static final class Request
+    {
+        private final RequestKey key;
+        private final Pathfinder pathfinder;
+        private final CompletableFuture<List<Step>> result = new CompletableFuture<>();
+        private int waiters;
+        private boolean closed;
+
+        Request(RequestKey key, Pathfinder pathfinder)
+        {
+            this.key = key;
+            this.pathfinder = pathfinder;
+        }
+
+        synchronized boolean join()
+        {
+            if (closed)
+            {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        synchronized void leave()
+        {
+            if (closed || --waiters > 0)
+            {
+                return;
+            }
+            close();
+            pathfinder.cancel();
+            result.cancel(false);
+        }
+
+        synchronized void close()
+        {
+            closed = true;
+            IN_FLIGHT.remove(key, this);
+        }
+
+        void run()
+        {
+            try
+            {
+                if (result.isDone())
+                {
+                    return;
+                }
+                pathfinder.prepare();
+                final List<Step> path = pathfinder.compute();
+                close();
+                if (path == null)
+                {
+                    result.completeExceptionally(new IllegalStateException("Pathfinding failed"));
+                }
+                else
+                {
+                    result.complete(path);
+                }
+            }
+            catch (Exception e)
+            {
+                close();
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * What makes two requests identical: the targets and how the search is run.
+     */
+    private static final class RequestKey
+    {
+        private final WorldPoint target;
+        private final int[] areaPoints;
+        private final SearchAlgorithm algorithm;
+        private final CostModel costModel;
+        private final int hash;
+
+        RequestKey(Pathfinder pathfinder)
+        {
+            this.target = pathfinder.getTargetWorldPoint();
+            this.areaPoints = pathfinder.getWorldAreaPoints();
+            this.algorithm = pathfinder.getAlgorithm();
+            this.costModel = pathfinder.getCostModel();
+            this.hash = Objects.hash(target, Arrays.hashCode(areaPoints), algorithm, costModel);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof RequestKey))
+            {
+                return false;
+            }
+            final RequestKey other = (RequestKey) o;
+            return hash == other.hash
+                    && algorithm == other.algorithm
+                    && costModel == other.costModel
+                    && Objects.equals(target, other.target)
+                    && Arrays.equals(areaPoints, other.areaPoints);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+}
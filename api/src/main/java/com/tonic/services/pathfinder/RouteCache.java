@@ -0,0 +1,561 @@
+package com.tonic.services.pathfinder;
+
+import com.tonic.Logger;
+import com.tonic.Static;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.transports.Transport;
+import com.tonic.util.ThreadPool;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On disk cache of computed routes, shared across sessions.
+ *
+ * <p>Routes are keyed by the region the player started in, the target and a fingerprint of
+ * everything that shapes the search: the usable transports, the usable teleports, the blacklist
+ * and the algorithm. Any change in requirements changes the fingerprint, so a stale route is
+ * simply never looked up again and ages out of the LRU.</p>
+ *
+ * <p>Every client on the machine shares the file. Writes hold a lock on {@code routes.lock} and
+ * merge the routes already on disk with the ones in memory, the in memory ones counting as more
+ * recent, so clients running side by side add to the cache instead of overwriting each other.
+ * A file that can not be read, truncated or corrupt, is discarded.</p>
+ *
+ * <p>File layout, big endian:</p>
+ * <pre>
+ * int  magic 'VRTE'
+ * int  version
+ * int  entry count, least recently used first
+ * per entry:
+ *   long key
+ *   int  step count
+ *   int  first position
+ *   int  byte count of the encoded steps
+ *   byte per following step: bit 7 set if the previous step takes a transport, low 4 bits the
+ *        direction from the previous step, or 15 followed by the absolute position
+ * </pre>
+ */
+public class RouteCache
+{
+    public static final int MAGIC = 0x56525445;
+    public static final int VERSION = 1;
+    private static final int MAX_ENTRIES = 512;
+    private static final int MAX_TOTAL_STEPS = 1 << 20;
+    private static final int ABSOLUTE = 15;
+    private static final int TRANSPORT_FLAG = 0x80;
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+    private static final Path FILE = Path.of(Static.VITA_DIR.toString(), "routes.bin");
+    private static final Path LOCK = Path.of(Static.VITA_DIR.toString(), "routes.lock");
+    // key, step count, first position and byte count of an entry
+    private static final int ENTRY_HEADER = 20;
+    // every step after the first takes at most a code byte and an absolute position, with room
+    // for the files of other clients whose limits differ
+    private static final long MAX_FILE_SIZE = 12 + (long) MAX_ENTRIES * 4 * ENTRY_HEADER + (long) MAX_TOTAL_STEPS * 4 * 5;
+
+    private static final LinkedHashMap<Long, Route> ROUTES = new LinkedHashMap<>(64, 0.75f, true);
+    private static boolean loaded = false;
+    private static boolean saving = false;
+    private static int totalSteps = 0;
+
+    /**
+     * Builds the cache key of a request.
+     * @param start the compressed tile the player stands on
+     * @param target a hash of the target tiles
+     * @param fingerprint see {@link #fingerprint(TIntObjectHashMap, List, List, List, Object...)}
+     * @return the key
+     */
+    public static long key(int start, int target, long fingerprint)
+    {
+        final int region = (WorldPointUtil.getCompressedX(start) >> 6) | ((WorldPointUtil.getCompressedY(start) >> 6) << 8)
+                | (WorldPointUtil.getCompressedPlane(start) << 16);
+        return mix(mix(fingerprint ^ region) ^ target);
+    }
+
+    /**
+     * Hashes everything that changes which route the search would find. Independent of the
+     * iteration order of the transport map.
+     * @param transports the usable transports
+     * @param startPoints the search starts, the player's tile first, then teleport destinations
+     * @param startCosts the cost of each start
+     * @param blacklist tiles the search may not enter
+     * @param settings anything else the search depends on, such as the algorithm
+     * @return the fingerprint
+     */
+    public static long fingerprint(TIntObjectHashMap<ArrayList<Transport>> transports, List<Integer> startPoints,
+                                   List<Integer> startCosts, List<Integer> blacklist, Object... settings)
+    {
+        final long[] hash = {0};
+        transports.forEachValue(list -> {
+            for (Transport transport : list)
+            {
+                hash[0] += mix(((long) transport.getSource() << 32) | (transport.getDestination() & 0xFFFFFFFFL));
+            }
+            return true;
+        });
+        long h = hash[0];
+        // index 0 is the player's own tile, which only selects the region
+        for (int i = 1; i < startPoints.size(); i++)
+        {
+            h = mix(h ^ (((long) startPoints.get(i) << 32) | (startCosts.get(i) & 0xFFFFFFFFL)));
+        }
+        for (int tile : blacklist)
+        {
+            h = mix(h ^ tile);
+        }
+        for (Object setting : settings)
+        {
+            h = mix(h ^ String.valueOf(setting).hashCode());
+        }
+        return h;
+    }
+
+    /**
+     * Looks up a route and checks it against the current collision map and transports.
+     * @param key the key from {@link #key(int, int, long)}
+     * @param collisionMap the collision map to validate walking steps against
+     * @param transports the usable transports, used to validate and resolve transport steps
+     * @return the route with live transports attached, or null on a miss or if the route is no
+     * longer valid
+     */
+    public static synchronized List<Step> get(long key, CollisionMap collisionMap, TIntObjectHashMap<ArrayList<Transport>> transports)
+    {
+        load();
+        final Route route = ROUTES.get(key);
+        if (route == null)
+        {
+            return null;
+        }
+        final List<Step> steps = route.toSteps(collisionMap, transports);
+        if (steps == null)
+        {
+            remove(key);
+            Logger.info("[Pathfinder] Dropped invalid cached route");
+        }
+        return steps;
+    }
+
+    /**
+     * Stores a route and schedules a write of the cache file.
+     * @param key the key from {@link #key(int, int, long)}
+     * @param steps the route
+     */
+    public static synchronized void put(long key, List<Step> steps)
+    {
+        if (steps.isEmpty())
+        {
+            return;
+        }
+        load();
+        final Route route = Route.of(steps);
+        remove(key);
+        ROUTES.put(key, route);
+        totalSteps += route.length;
+        evict();
+        scheduleSave();
+    }
+
+    /**
+     * Drops every route, in memory and on disk.
+     */
+    public static synchronized void clear()
+    {
+        ROUTES.clear();
+        totalSteps = 0;
+        loaded = true;
+        try
+        {
+            Files.deleteIfExists(FILE);
+        }
+        catch (IOException e)
+        {
+            Logger.error(e, "[Pathfinder] Failed to delete route cache: %e");
+        }
+    }
+
+    public static synchronized int size()
+    {
+        load();
+        return ROUTES.size();
+    }
+
+    private static void remove(long key)
+    {
+        final Route old = ROUTES.remove(key);
+        if (old != null)
+        {
+            totalSteps -= old.length;
+        }
+    }
+
+    private static void evict()
+    {
+        final Iterator<Map.Entry<Long, Route>> it = ROUTES.entrySet().iterator();
+        while ((ROUTES.size() > MAX_ENTRIES || totalSteps > MAX_TOTAL_STEPS) && it.hasNext())
+        {
+            totalSteps -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private static void load()
+    {
+        if (loaded)
+        {
+            return;
+        }
+        loaded = true;
+        if (!Files.exists(FILE))
+        {
+            return;
+        }
+        try
+        {
+            for (Map.Entry<Long, Route> entry : read().entrySet())
+            {
+                ROUTES.put(entry.getKey(), entry.getValue());
+                totalSteps += entry.getValue().length;
+            }
+            evict();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Logger.error(e, "[Pathfinder] Discarding unreadable route cache: %e");
+            ROUTES.clear();
+            totalSteps = 0;
+        }
+    }
+
+    /**
+     * Reads the cache file, checking every count and length against what is left of the file.
+     * @return the routes, least recently used first, empty if there is no file
+     * @throws IOException if the file can not be read or is not a well formed cache
+     */
+    private static LinkedHashMap<Long, Route> read() throws IOException
+    {
+        final LinkedHashMap<Long, Route> routes = new LinkedHashMap<>();
+        if (!Files.exists(FILE))
+        {
+            return routes;
+        }
+        if (Files.size(FILE) > MAX_FILE_SIZE)
+        {
+            throw new IOException("Route cache too large");
+        }
+        final ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(FILE));
+        if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != VERSION)
+        {
+            throw new IOException("Unsupported route cache format");
+        }
+        final int count = in.getInt();
+        if (count < 0 || count > in.remaining() / ENTRY_HEADER)
+        {
+            throw new IOException("Corrupt route cache, " + count + " entries");
+        }
+        for (int i = 0; i < count; i++)
+        {
+            if (in.remaining() < ENTRY_HEADER)
+            {
+                throw new IOException("Truncated route cache");
+            }
+            final long key = in.getLong();
+            final int length = in.getInt();
+            final int first = in.getInt();
+            final int bytes = in.getInt();
+            if (length < 1 || length > MAX_TOTAL_STEPS || bytes < 0 || bytes > in.remaining())
+            {
+                throw new IOException("Corrupt route cache entry");
+            }
+            final byte[] data = new byte[bytes];
+            in.get(data);
+            final Route route = new Route(length, first, data);
+            if (!route.isWellFormed())
+            {
+                throw new IOException("Corrupt route cache entry");
+            }
+            routes.remove(key);
+            routes.put(key, route);
+        }
+        return routes;
+    }
+
+    private static void scheduleSave()
+    {
+        if (saving)
+        {
+            return;
+        }
+        saving = true;
+        ThreadPool.submit(RouteCache::save);
+    }
+
+    private static void save()
+    {
+        final List<Map.Entry<Long, Route>> snapshot;
+        synchronized (RouteCache.class)
+        {
+            saving = false;
+            snapshot = new ArrayList<>(ROUTES.entrySet());
+        }
+        try
+        {
+            Files.createDirectories(FILE.getParent());
+            try (FileChannel channel = FileChannel.open(LOCK, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock())
+            {
+                final LinkedHashMap<Long, Route> merged = readForMerge();
+                for (Map.Entry<Long, Route> entry : snapshot)
+                {
+                    merged.remove(entry.getKey());
+                    merged.put(entry.getKey(), entry.getValue());
+                }
+                write(trim(merged));
+            }
+        }
+        catch (IOException e)
+        {
+            Logger.error(e, "[Pathfinder] Failed to write route cache: %e");
+        }
+    }
+
+    /**
+     * @return the routes another client wrote since this one loaded, or none if the file is unreadable
+     */
+    private static LinkedHashMap<Long, Route> readForMerge()
+    {
+        try
+        {
+            return read();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Logger.error(e, "[Pathfinder] Overwriting unreadable route cache: %e");
+            return new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Drops the least recently used routes until the merged cache fits the limits.
+     */
+    private static List<Map.Entry<Long, Route>> trim(LinkedHashMap<Long, Route> routes)
+    {
+        final List<Map.Entry<Long, Route>> entries = new ArrayList<>(routes.entrySet());
+        long steps = 0;
+        for (Map.Entry<Long, Route> entry : entries)
+        {
+            steps += entry.getValue().length;
+        }
+        int from = 0;
+        while (from < entries.size() && (entries.size() - from > MAX_ENTRIES || steps > MAX_TOTAL_STEPS))
+        {
+            steps -= entries.get(from++).getValue().length;
+        }
+        return entries.subList(from, entries.size());
+    }
+
+    private static void write(List<Map.Entry<Long, Route>> entries) throws IOException
+    {
+        final Path temp = Files.createTempFile(FILE.getParent(), "routes", ".tmp");
+        try
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<Long, Route> entry : entries)
+                {
+                    final Route route = entry.getValue();
+                    out.writeLong(entry.getKey());
+                    out.writeInt(route.length);
+                    out.writeInt(route.first);
+                    out.writeInt(route.data.length);
+                    out.write(route.data);
+                }
+            }
+            Files.move(temp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long mix(long h)
+    {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * A route encoded as one byte per step after the first.
+     */
+    private static final class Route
+    {
+        private final int length;
+        private final int first;
+        private final byte[] data;
+
+        private Route(int length, int first, byte[] data)
+        {
+            this.length = length;
+            this.first = first;
+            this.data = data;
+        }
+
+        static Route of(List<Step> steps)
+        {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(steps.size());
+            int previous = steps.get(0).position;
+            for (int i = 1; i < steps.size(); i++)
+            {
+                final int position = steps.get(i).position;
+                final int flag = steps.get(i - 1).hasTransport() ? TRANSPORT_FLAG : 0;
+                final int direction = flag == 0 ? direction(previous, position) : -1;
+                if (direction != -1)
+                {
+                    bytes.write(flag | direction);
+                }
+                else
+                {
+                    bytes.write(flag | ABSOLUTE);
+                    bytes.write(position >>> 24);
+                    bytes.write(position >>> 16);
+                    bytes.write(position >>> 8);
+                    bytes.write(position);
+                }
+                previous = position;
+            }
+            return new Route(steps.size(), steps.get(0).position, bytes.toByteArray());
+        }
+
+        /**
+         * @return whether the data holds exactly one code per step after the first, with every
+         * absolute position complete, so decoding can not run off the end
+         */
+        boolean isWellFormed()
+        {
+            int offset = 0;
+            for (int i = 1; i < length; i++)
+            {
+                if (offset >= data.length)
+                {
+                    return false;
+                }
+                final int direction = data[offset++] & 0x0F;
+                if (direction == ABSOLUTE)
+                {
+                    offset += 4;
+                }
+                else if (direction >= DX.length)
+                {
+                    return false;
+                }
+            }
+            return offset == data.length;
+        }
+
+        /**
+         * Decodes the route, checking every walking step against the collision map and resolving
+         * every transport step against the live transports.
+         */
+        List<Step> toSteps(CollisionMap collisionMap, TIntObjectHashMap<ArrayList<Transport>> transports)
+        {
+            final List<Step> steps = new ArrayList<>(length);
+            int position = first;
+            int offset = 0;
+            for (int i = 1; i < length; i++)
+            {
+                final int code = data[offset++] & 0xFF;
+                final int next;
+                if ((code & 0x0F) == ABSOLUTE)
+                {
+                    next = ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                            | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+                    offset += 4;
+                }
+                else
+                {
+                    next = WorldPointUtil.dxy(position, DX[code & 0x0F], DY[code & 0x0F]);
+                }
+
+                Transport transport = null;
+                if ((code & TRANSPORT_FLAG) != 0)
+                {
+                    transport = findTransport(transports, position, next);
+                    if (transport == null)
+                    {
+                        return null;
+                    }
+                }
+                else
+                {
+                    final int direction = direction(position, next);
+                    final byte flags = collisionMap.all(WorldPointUtil.getCompressedX(position), WorldPointUtil.getCompressedY(position),
+                            WorldPointUtil.getCompressedPlane(position));
+                    if (direction == -1 || (flags & (1 << direction)) == 0)
+                    {
+                        return null;
+                    }
+                }
+                steps.add(new Step(position, transport));
+                position = next;
+            }
+            steps.add(new Step(position, null));
+            return steps;
+        }
+
+        private static Transport findTransport(TIntObjectHashMap<ArrayList<Transport>> transports, int source, int destination)
+        {
+            final ArrayList<Transport> list = transports.get(source);
+            if (list != null)
+            {
+                for (Transport transport : list)
+                {
+                    if (transport.getDestination() == destination)
+                    {
+                        return transport;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static int direction(int from, int to)
+        {
+            if (WorldPointUtil.getCompressedPlane(from) != WorldPointUtil.getCompressedPlane(to))
+            {
+                return -1;
+            }
+            final int dx = WorldPointUtil.getCompressedX(to) - WorldPointUtil.getCompressedX(from);
+            final int dy = WorldPointUtil.getCompressedY(to) - WorldPointUtil.getCompressedY(from);
+            for (int d = 0; d < 8; d++)
+            {
+                if (DX[d] == dx && DY[d] == dy)
+                {
+                    return d;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -19,7 +19,6 @@ import com.tonic.queries.TileObjectQuery;
 import com.tonic.services.GameManager;
 import com.tonic.services.pathfinder.model.Step;
 import com.tonic.services.pathfinder.teleports.Teleport;
-import com.tonic.services.pathfinder.transports.TransportLoader;
 import com.tonic.util.Coroutine;
 import com.tonic.util.IntPair;
 import com.tonic.util.Location;
@@ -68,6 +67,7 @@ public class Walker
     private boolean useTeleports = true;
     private boolean justInteracted = false;
     private int repathDelay = 0;
+    private int lastRepairOrigin = -1;
 
     private Walker()
     {
@@ -272,10 +272,9 @@ public class Walker
 
         reset();
         this.useTeleports = useTeleports;
-        TransportLoader.refreshTransports();
         final Pathfinder engine = new Pathfinder(targets);
 
-        List<Step> steps = engine.find();
+        List<Step> steps = PathfindingService.await(PathfindingService.submit(engine));
         if(useTeleports && engine.getTeleport() != null)
             teleport = engine.getTeleport();
         walkTo(steps);
@@ -294,10 +293,9 @@ public class Walker
 
         reset();
         this.useTeleports = useTeleports;
-        TransportLoader.refreshTransports();
         final Pathfinder engine = new Pathfinder(target);
 
-        List<Step> steps = engine.find();
+        List<Step> steps = PathfindingService.await(PathfindingService.submit(engine));
         if(useTeleports && engine.getTeleport() != null)
             teleport = engine.getTeleport();
         walkTo(steps);
@@ -323,6 +321,7 @@ public class Walker
     private void reset()
     {
         repathDelay = 0;
+        lastRepairOrigin = -1;
         teleport = null;
         cooldown = 0;
         timeout = 0;
@@ -742,11 +741,29 @@ public class Walker
         }
     }
 
+    /**
+     * Repairs the path around the player first and only searches the whole route again when the
+     * repair fails, or when the player has not moved since the last repair.
+     * @param steps remaining steps, replaced in place
+     */
     private void rePath(List<Step> steps)
     {
+        WorldPoint local = Static.invoke(() -> client.getLocalPlayer().getWorldLocation());
+        int origin = WorldPointUtil.compress(local);
+        if(origin != lastRepairOrigin)
+        {
+            lastRepairOrigin = origin;
+            List<Step> repaired = Pathfinder.repair(local, steps);
+            if(repaired != null)
+            {
+                steps.clear();
+                steps.addAll(repaired);
+                return;
+            }
+        }
+
         WorldPoint wp = steps.get(steps.size() - 1).getPosition();
         steps.clear();
-        Pathfinder engine = new Pathfinder(wp);
-        steps.addAll(engine.find());
+        steps.addAll(PathfindingService.await(PathfindingService.submit(wp)));
     }
 }
@@ -0,0 +1,116 @@
+package com.tonic.services.pathfinder.collections;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A sparse table of 64 bit words split into fixed size pages, one per region, that many threads
+ * can fill at once.
+ *
+ * <p>Pages are allocated the first time a region is written. {@link #clear()} zeroes the pages that
+ * were used and keeps them for the next search, so a table backing search after search only
+ * allocates pages for regions it never needed this many of before.</p>
+ */
+public final class AtomicPageTable
+{
+    private final int regions;
+    private final int pageSize;
+    private AtomicReferenceArray<AtomicLongArray> pages;
+    // the regions holding a page, and the zeroed pages waiting to be handed out again
+    private int[] used = new int[64];
+    private int usedCount;
+    private final ArrayDeque<AtomicLongArray> spare = new ArrayDeque<>();
+
+    /**
+     * Creates a new table, the region directory is allocated on first use.
+     * @param regions The number of regions.
+     * @param pageSize The number of words in a region.
+     */
+    public AtomicPageTable(final int regions, final int pageSize)
+    {
+        this.regions = regions;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param region The region.
+     * @return The page of the region, or null if nothing was written to it.
+     */
+    public AtomicLongArray get(final int region)
+    {
+        return pages == null ? null : pages.get(region);
+    }
+
+    /**
+     * Returns the page of a region, creating it if it does not exist. Safe to call from many threads.
+     * @param region The region.
+     * @return The page of the region.
+     */
+    public AtomicLongArray getOrCreate(final int region)
+    {
+        final AtomicLongArray page = pages.get(region);
+        return page != null ? page : create(region);
+    }
+
+    /**
+     * Makes the table ready to be written, must be called before the first {@link #getOrCreate(int)}
+     * of a search.
+     */
+    public void prepare()
+    {
+        if (pages == null)
+        {
+            pages = new AtomicReferenceArray<>(regions);
+        }
+    }
+
+    private synchronized AtomicLongArray create(final int region)
+    {
+        final AtomicLongArray existing = pages.get(region);
+        if (existing != null)
+        {
+            return existing;
+        }
+        final AtomicLongArray spared = spare.poll();
+        final AtomicLongArray page = spared != null ? spared : new AtomicLongArray(pageSize);
+        if (usedCount == used.length)
+        {
+            used = Arrays.copyOf(used, usedCount * 2);
+        }
+        used[usedCount++] = region;
+        pages.set(region, page);
+        return page;
+    }
+
+    /**
+     * Zeroes every used page and keeps it for reuse. Must not run while another thread writes.
+     */
+    public synchronized void clear()
+    {
+        for (int i = 0; i < usedCount; i++)
+        {
+            final AtomicLongArray page = pages.getAndSet(used[i], null);
+            for (int slot = 0; slot < pageSize; slot++)
+            {
+                page.lazySet(slot, 0);
+            }
+            spare.push(page);
+        }
+        usedCount = 0;
+    }
+
+    /**
+     * Clears the table and drops spare pages until at most the given number of words is kept.
+     * @param maxCapacity The most words to keep.
+     */
+    public synchronized void trim(final long maxCapacity)
+    {
+        clear();
+        while (!spare.isEmpty() && (long) spare.size() * pageSize > maxCapacity)
+        {
+            spare.pop();
+        }
+    }
+}
@@ -1,24 +1,64 @@
 package com.tonic.services.pathfinder.collections;
 
 import com.tonic.services.pathfinder.transports.Transport;
-import com.tonic.services.pathfinder.transports.TransportLoader;
+import com.tonic.services.pathfinder.transports.TransportIndex;
 import com.tonic.services.pathfinder.model.Step;
-import gnu.trove.map.hash.TIntIntHashMap;
 
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 public class BFSCache
 {
-    private final TIntIntHashMap cache = new TIntIntHashMap(20000);
+    public static final int NO_EDGE = -1;
+
+    private final StampedIntMap cache = new StampedIntMap(20000, -1);
+    // the TransportIndex edge each point was reached through, only points reached by a transport
+    private final StampedIntMap edges = new StampedIntMap(64, NO_EDGE);
 
     public boolean put(final int point, final int parent)
     {
-        if(cache.contains(point))
-            return false;
+        return cache.putIfAbsent(point, parent);
+    }
+
+    /**
+     * Maps a point reached through a transport to its parent, unless the point is already mapped.
+     * @param edge the {@link TransportIndex} edge taken from the parent
+     */
+    public boolean put(final int point, final int parent, final int edge)
+    {
+        if (cache.putIfAbsent(point, parent))
+        {
+            edges.put(point, edge);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Maps a point to a parent, replacing an existing parent.
+     */
+    public void set(final int point, final int parent)
+    {
+        cache.put(point, parent);
+        if (edges.size() != 0 && edges.containsKey(point))
+        {
+            edges.put(point, NO_EDGE);
+        }
+    }
+
+    /**
+     * Maps a point reached through a transport to a parent, replacing an existing parent.
+     * @param edge the {@link TransportIndex} edge taken from the parent, or {@link #NO_EDGE} for a step
+     */
+    public void set(final int point, final int parent, final int edge)
+    {
+        if (edge == NO_EDGE)
+        {
+            set(point, parent);
+            return;
+        }
         cache.put(point, parent);
-        return true;
+        edges.put(point, edge);
     }
 
     public int get(final int position)
@@ -26,9 +66,18 @@ public class BFSCache
         return cache.get(position);
     }
 
+    /**
+     * @return the transport edge the point was reached through, or {@link #NO_EDGE}
+     */
+    public int getEdge(final int position)
+    {
+        return edges.get(position);
+    }
+
     public void clear()
     {
         cache.clear();
+        edges.clear();
     }
 
     public int size()
@@ -36,7 +85,23 @@ public class BFSCache
         return cache.size();
     }
 
+    public int capacity()
+    {
+        return Math.max(cache.capacity(), edges.capacity());
+    }
+
+    /**
+     * Builds the path of a search that did not take any transports.
+     */
     public List<Step> path(int pos)
+    {
+        return path(pos, null);
+    }
+
+    /**
+     * @param transports the index the recorded edges belong to
+     */
+    public List<Step> path(int pos, TransportIndex transports)
     {
         int parent = get(pos);
         LinkedList<Step> path = new LinkedList<>();
@@ -44,7 +109,7 @@ public class BFSCache
         path.add(0, new Step(pos, null));
         while(parent != -1)
         {
-            transport = getTransport(pos, parent);
+            transport = getTransport(pos, transports);
             pos = parent;
             parent = get(pos);
             path.add(0, new Step(pos, transport));
@@ -52,19 +117,36 @@ public class BFSCache
         return path;
     }
 
-    public Transport getTransport(int pos, int parent)
+    /**
+     * Builds the path of a bidirectional search through the tile where both halves met. This
+     * cache holds the forward half, {@code backward} maps each tile to the next tile towards the
+     * target.
+     * @param transports the index the edges of this cache belong to
+     * @param backwardTransports the index the edges of {@code backward} belong to
+     */
+    public List<Step> path(int meet, TransportIndex transports, BFSCache backward, TransportIndex backwardTransports)
+    {
+        List<Step> path = path(meet, transports);
+        path.remove(path.size() - 1);
+        int pos = meet;
+        int next = backward.get(pos);
+        while(next != -1)
+        {
+            path.add(new Step(pos, backward.getTransport(pos, backwardTransports)));
+            pos = next;
+            next = backward.get(pos);
+        }
+        path.add(new Step(pos, null));
+        return path;
+    }
+
+    private Transport getTransport(int pos, TransportIndex transports)
     {
-        ArrayList<Transport> tr = TransportLoader.getTransports().get(parent);
-        if(tr != null)
+        if(transports == null)
         {
-            for (int i = 0; i < tr.size(); i++)
-            {
-                if(tr.get(i).getDestination() == pos)
-                {
-                    return tr.get(i);
-                }
-            }
+            return null;
         }
-        return null;
+        final int edge = getEdge(pos);
+        return edge == NO_EDGE ? null : transports.transport(edge);
     }
-}
\ No newline at end of file
+}
@@ -22,13 +22,15 @@ package com.tonic.services.pathfinder.collections;
  * certain conditions or time steps have passed, but you still want a queue-like interface for retrieving them.</p>
  */
 public final class HybridIntQueue {
-    private final int[] data;
-    private final int capacityMask;
+    private int[] data;
+    private int capacityMask;
     private int head;
     private int tail;
 
     // Maintain a global expansion count
     private int expansions = 0;
+    // Largest number of waiting elements, including delayed transports
+    private int peak = 0;
 
     // Transport min-heap arrays
     private int[] transportValues;
@@ -67,11 +69,11 @@ public final class HybridIntQueue {
      */
     public void enqueue(final int value) {
         if (((tail + 1) & capacityMask) == head) {
-            // Queue is full; handle resize if necessary
-            throw new IllegalStateException("Main queue is full");
+            grow();
         }
         data[tail] = value;
         tail = (tail + 1) & capacityMask;
+        updatePeak();
     }
 
     /**
@@ -87,6 +89,7 @@ public final class HybridIntQueue {
         transportReleaseTimes[transportCount] = expansions + delay;
         siftUp(transportCount);
         transportCount++;
+        updatePeak();
     }
 
     /**
@@ -122,6 +125,38 @@ public final class HybridIntQueue {
         return value;
     }
 
+    /**
+     * Removes every element and resets the expansion count, keeping the allocated buffers.
+     */
+    public void clear() {
+        head = 0;
+        tail = 0;
+        expansions = 0;
+        transportCount = 0;
+        peak = 0;
+    }
+
+    /**
+     * @return The largest number of waiting elements, transports included, since the last clear.
+     */
+    public int peak() {
+        return peak;
+    }
+
+    private void updatePeak() {
+        final int waiting = size() + transportCount;
+        if (waiting > peak) {
+            peak = waiting;
+        }
+    }
+
+    /**
+     * @return The capacity of the main queue.
+     */
+    public int capacity() {
+        return data.length;
+    }
+
     /**
      * Checks if the entire queue (main + transport) is empty.
      * @return True if empty, false otherwise.
@@ -205,6 +240,25 @@ public final class HybridIntQueue {
         transportReleaseTimes[j] = tempTime;
     }
 
+    /**
+     * Doubles the main queue, unwrapping the circular contents to the start of the new buffer.
+     */
+    private void grow() {
+        final int size = size();
+        final int[] newData = new int[data.length << 1];
+        if (head <= tail) {
+            System.arraycopy(data, head, newData, 0, size);
+        } else {
+            final int first = data.length - head;
+            System.arraycopy(data, head, newData, 0, first);
+            System.arraycopy(data, 0, newData, first, tail);
+        }
+        data = newData;
+        capacityMask = newData.length - 1;
+        head = 0;
+        tail = size;
+    }
+
     private void growTransportArrays() {
         int newCapacity = transportCapacity << 1;
         int[] newValues = new int[newCapacity];
@@ -0,0 +1,154 @@
+package com.tonic.services.pathfinder.collections;
+
+/**
+ * A binary min-heap of int values ordered by a long priority.
+ *
+ * <p>Used as the open list of the cost based search engines. Entries are never updated in place,
+ * callers push a new entry when a node improves and skip stale entries when they are polled
+ * (lazy deletion). Priorities and values live in two parallel primitive arrays so the heap
+ * never boxes and only allocates when it grows.</p>
+ */
+public final class IntMinHeap
+{
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int peak;
+    private long lastKey;
+
+    /**
+     * Creates a new heap.
+     * @param capacity The initial capacity of the heap.
+     */
+    public IntMinHeap(final int capacity)
+    {
+        keys = new long[Math.max(capacity, 16)];
+        values = new int[keys.length];
+    }
+
+    /**
+     * Adds a value to the heap.
+     * @param key The priority of the value, smaller is polled first.
+     * @param value The value.
+     */
+    public void push(final long key, final int value)
+    {
+        if (size == keys.length)
+        {
+            grow();
+        }
+        int idx = size++;
+        if (size > peak)
+        {
+            peak = size;
+        }
+        while (idx > 0)
+        {
+            int parent = (idx - 1) >>> 1;
+            if (keys[parent] <= key)
+            {
+                break;
+            }
+            keys[idx] = keys[parent];
+            values[idx] = values[parent];
+            idx = parent;
+        }
+        keys[idx] = key;
+        values[idx] = value;
+    }
+
+    /**
+     * Removes the value with the smallest priority. The priority of the removed
+     * value is available through {@link #lastKey()} afterwards.
+     * @return The removed value.
+     */
+    public int poll()
+    {
+        final int value = values[0];
+        lastKey = keys[0];
+        size--;
+        if (size > 0)
+        {
+            final long key = keys[size];
+            final int val = values[size];
+            int idx = 0;
+            int child;
+            while ((child = (idx << 1) + 1) < size)
+            {
+                if (child + 1 < size && keys[child + 1] < keys[child])
+                {
+                    child++;
+                }
+                if (key <= keys[child])
+                {
+                    break;
+                }
+                keys[idx] = keys[child];
+                values[idx] = values[child];
+                idx = child;
+            }
+            keys[idx] = key;
+            values[idx] = val;
+        }
+        return value;
+    }
+
+    /**
+     * @return The priority of the smallest entry without removing it.
+     */
+    public long peekKey()
+    {
+        return keys[0];
+    }
+
+    /**
+     * @return The priority of the value last returned by {@link #poll()}.
+     */
+    public long lastKey()
+    {
+        return lastKey;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return The largest size the heap reached since it was last cleared.
+     */
+    public int peak()
+    {
+        return peak;
+    }
+
+    public void clear()
+    {
+        size = 0;
+        peak = 0;
+    }
+
+    /**
+     * @return The number of entries the heap holds before it has to grow, retained across {@link #clear()}.
+     */
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    private void grow()
+    {
+        final int capacity = keys.length << 1;
+        final long[] newKeys = new long[capacity];
+        final int[] newValues = new int[capacity];
+        System.arraycopy(keys, 0, newKeys, 0, size);
+        System.arraycopy(values, 0, newValues, 0, size);
+        keys = newKeys;
+        values = newValues;
+    }
+}
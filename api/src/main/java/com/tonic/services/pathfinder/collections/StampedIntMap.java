@@ -0,0 +1,186 @@
+package com.tonic.services.pathfinder.collections;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing int to int hash map that can be cleared in constant time.
+ *
+ * <p>Every slot carries the generation it was written in. {@link #clear()} bumps the generation,
+ * which turns every existing slot into a free one without touching the arrays, so a single map
+ * can back search after search without being reallocated or refilled.</p>
+ */
+public final class StampedIntMap
+{
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final int noEntryValue;
+    private int[] keys;
+    private int[] values;
+    private int[] stamps;
+    private int mask;
+    private int size;
+    private int generation = 1;
+
+    /**
+     * Creates a new map.
+     * @param capacity The expected number of entries.
+     * @param noEntryValue The value returned for keys that are not present.
+     */
+    public StampedIntMap(final int capacity, final int noEntryValue)
+    {
+        this.noEntryValue = noEntryValue;
+        allocate(tableSize(capacity));
+    }
+
+    /**
+     * @param key The key.
+     * @return The value mapped to the key, or the no entry value.
+     */
+    public int get(final int key)
+    {
+        int idx = mix(key) & mask;
+        while (stamps[idx] == generation)
+        {
+            if (keys[idx] == key)
+            {
+                return values[idx];
+            }
+            idx = (idx + 1) & mask;
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * @param key The key.
+     * @return True if the key is present.
+     */
+    public boolean containsKey(final int key)
+    {
+        int idx = mix(key) & mask;
+        while (stamps[idx] == generation)
+        {
+            if (keys[idx] == key)
+            {
+                return true;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(final int key, final int value)
+    {
+        insert(key, value, true);
+    }
+
+    /**
+     * Maps a key to a value unless the key is already present.
+     * @param key The key.
+     * @param value The value.
+     * @return True if the value was inserted.
+     */
+    public boolean putIfAbsent(final int key, final int value)
+    {
+        return insert(key, value, false);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return The number of slots, retained across {@link #clear()}.
+     */
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear()
+    {
+        size = 0;
+        if (++generation == 0)
+        {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    private boolean insert(final int key, final int value, final boolean replace)
+    {
+        int idx = mix(key) & mask;
+        while (stamps[idx] == generation)
+        {
+            if (keys[idx] == key)
+            {
+                if (replace)
+                {
+                    values[idx] = value;
+                }
+                return replace;
+            }
+            idx = (idx + 1) & mask;
+        }
+        stamps[idx] = generation;
+        keys[idx] = key;
+        values[idx] = value;
+        if (++size > keys.length * LOAD_FACTOR)
+        {
+            grow();
+        }
+        return true;
+    }
+
+    private void grow()
+    {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        final int[] oldStamps = stamps;
+        final int oldGeneration = generation;
+        allocate(oldKeys.length << 1);
+        generation = 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldStamps[i] == oldGeneration)
+            {
+                int idx = mix(oldKeys[i]) & mask;
+                while (stamps[idx] == generation)
+                {
+                    idx = (idx + 1) & mask;
+                }
+                stamps[idx] = generation;
+                keys[idx] = oldKeys[i];
+                values[idx] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(final int length)
+    {
+        keys = new int[length];
+        values = new int[length];
+        stamps = new int[length];
+        mask = length - 1;
+    }
+
+    private static int tableSize(final int capacity)
+    {
+        final int needed = Math.max(16, (int) (capacity / LOAD_FACTOR));
+        return 1 << (32 - Integer.numberOfLeadingZeros(needed - 1));
+    }
+
+    private static int mix(final int key)
+    {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -14,6 +14,10 @@ public class GlobalCollisionMap implements CollisionMap {
         this.bitSet = bitSet;
     }
 
+    SparseBitSet getBitSet() {
+        return bitSet;
+    }
+
     private byte get(int index) {
         return (byte)(bitSet.get(index) ? 0 : 1);
     }
@@ -0,0 +1,282 @@
+package com.tonic.services.pathfinder.collision;
+
+import com.tonic.Logger;
+import com.tonic.Static;
+import com.tonic.services.pathfinder.Pathfinder;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Collision map backed by a memory mapped, region tiled binary file.
+ *
+ * <p>Layout, big endian:</p>
+ * <pre>
+ * int   magic 'VCOL'
+ * int   version
+ * long  fingerprint of the map.dat it was converted from
+ * int   regionsX, regionsY, planes
+ * int   blockCount
+ * int[] directory, regionsX * regionsY * planes entries, 0 for a region without blocked edges
+ *       or the 1 based index of its block
+ * byte[blockCount][1024] blocks, 2 bits per tile (bit 0 north blocked, bit 1 east blocked)
+ * </pre>
+ *
+ * <p>Regions without a block read as open, exactly like the unset bits of the {@link SparseBitSet}
+ * the file is converted from. The mapping lives off heap and is shared through the page cache by
+ * every client on the host.</p>
+ */
+public class MappedCollisionMap implements CollisionMap
+{
+    public static final int MAGIC = 0x56434F4C;
+    public static final int VERSION = 1;
+    private static final int REGION_SHIFT = 6;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int BLOCK_SIZE = (1 << (REGION_SHIFT * 2)) / 4;
+    private static final int HEADER_SIZE = 32;
+    private static final Path FILE = Path.of(Static.VITA_DIR.toString(), "collision.bin");
+
+    private final MappedByteBuffer buffer;
+    private final int regionsX;
+    private final int regionsY;
+    private final int planes;
+    private final int blocksOffset;
+
+    private MappedCollisionMap(MappedByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+        {
+            throw new IllegalStateException("Unsupported collision map format");
+        }
+        this.regionsX = buffer.getInt(16);
+        this.regionsY = buffer.getInt(20);
+        this.planes = buffer.getInt(24);
+        this.blocksOffset = HEADER_SIZE + regionsX * regionsY * planes * 4;
+    }
+
+    /**
+     * Maps the cached collision file, converting the bundled map.dat first if the cache is
+     * missing or was built from a different map.
+     * @return the collision map
+     * @throws IOException if the file can neither be read nor created
+     * @throws ClassNotFoundException if map.dat cannot be deserialized during conversion
+     */
+    public static MappedCollisionMap load() throws IOException, ClassNotFoundException
+    {
+        final long fingerprint = fingerprint();
+        if (Files.exists(FILE))
+        {
+            try
+            {
+                final MappedCollisionMap map = open(FILE);
+                if (map.buffer.getLong(8) == fingerprint)
+                {
+                    return map;
+                }
+            }
+            catch (IllegalStateException e)
+            {
+                Logger.info("[Pathfinder] Rebuilding collision cache: " + e.getMessage());
+            }
+        }
+
+        final GlobalCollisionMap source = GlobalCollisionMap.load();
+        Files.createDirectories(FILE.getParent());
+        final Path temp = Files.createTempFile(FILE.getParent(), "collision", ".tmp");
+        convert(source, temp, fingerprint);
+        Files.move(temp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(FILE);
+    }
+
+    /**
+     * Maps an existing collision file read only.
+     * @param path the file
+     * @return the collision map
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedCollisionMap open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            return new MappedCollisionMap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the binary format for a {@link GlobalCollisionMap}.
+     * @param source the deserialized map.dat
+     * @param path the output file
+     * @param fingerprint stored in the header to detect a changed map.dat
+     * @throws IOException if writing fails
+     */
+    public static void convert(GlobalCollisionMap source, Path path, long fingerprint) throws IOException
+    {
+        final SparseBitSet bits = source.getBitSet();
+        final TIntObjectHashMap<byte[]> regions = new TIntObjectHashMap<>();
+        int regionsX = 0;
+        int regionsY = 0;
+        int planes = 0;
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1))
+        {
+            final boolean east = (i & GlobalCollisionMap.W_FLAG) != 0;
+            final int x = i & 8191;
+            final int y = (i >>> 13) & 32767;
+            final int z = (i >>> 28) & 3;
+            regionsX = Math.max(regionsX, (x >> REGION_SHIFT) + 1);
+            regionsY = Math.max(regionsY, (y >> REGION_SHIFT) + 1);
+            planes = Math.max(planes, z + 1);
+
+            final int key = (x >> REGION_SHIFT) | ((y >> REGION_SHIFT) << 7) | (z << 16);
+            byte[] block = regions.get(key);
+            if (block == null)
+            {
+                block = new byte[BLOCK_SIZE];
+                regions.put(key, block);
+            }
+            final int tile = (x & REGION_MASK) | ((y & REGION_MASK) << REGION_SHIFT);
+            block[tile >> 2] |= (byte) ((east ? 2 : 1) << ((tile & 3) << 1));
+        }
+
+        final int[] directory = new int[regionsX * regionsY * planes];
+        final byte[][] blocks = new byte[regions.size()][];
+        int count = 0;
+        for (int z = 0; z < planes; z++)
+        {
+            for (int ry = 0; ry < regionsY; ry++)
+            {
+                for (int rx = 0; rx < regionsX; rx++)
+                {
+                    final byte[] block = regions.get(rx | (ry << 7) | (z << 16));
+                    if (block != null)
+                    {
+                        blocks[count++] = block;
+                        directory[(z * regionsY + ry) * regionsX + rx] = count;
+                    }
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(regionsX);
+            out.writeInt(regionsY);
+            out.writeInt(planes);
+            out.writeInt(count);
+            for (int entry : directory)
+            {
+                out.writeInt(entry);
+            }
+            for (int i = 0; i < count; i++)
+            {
+                out.write(blocks[i]);
+            }
+        }
+        Logger.info("[Pathfinder] Converted collision map, " + count + " regions");
+    }
+
+    /**
+     * Identifies the bundled map.dat by size and timestamp, without reading it.
+     */
+    private static long fingerprint() throws IOException
+    {
+        final URL url = Pathfinder.class.getResource("map.dat");
+        if (url == null)
+        {
+            throw new FileNotFoundException("map.dat");
+        }
+        final URLConnection connection = url.openConnection();
+        connection.setUseCaches(false);
+        return connection.getContentLengthLong() * 31 + connection.getLastModified();
+    }
+
+    private int bits(final short x, final short y, final byte z)
+    {
+        final int rx = (x & 8191) >> REGION_SHIFT;
+        final int ry = (y & 32767) >> REGION_SHIFT;
+        if (rx >= regionsX || ry >= regionsY || z < 0 || z >= planes)
+        {
+            return 0;
+        }
+        final int block = buffer.getInt(HEADER_SIZE + (((z * regionsY + ry) * regionsX + rx) << 2));
+        if (block == 0)
+        {
+            return 0;
+        }
+        final int tile = (x & REGION_MASK) | ((y & REGION_MASK) << REGION_SHIFT);
+        return buffer.get(blocksOffset + (block - 1) * BLOCK_SIZE + (tile >> 2)) >> ((tile & 3) << 1);
+    }
+
+    @Override
+    public byte n(short x, short y, byte z)
+    {
+        return (byte) (~bits(x, y, z) & 1);
+    }
+
+    @Override
+    public byte e(short x, short y, byte z)
+    {
+        return (byte) ((~bits(x, y, z) >> 1) & 1);
+    }
+
+    @Override
+    public byte w(short x, short y, byte z)
+    {
+        return e((short) (x - 1), y, z);
+    }
+
+    @Override
+    public byte s(short x, short y, byte z)
+    {
+        return n(x, (short) (y - 1), z);
+    }
+
+    @Override
+    public byte all(short x, short y, byte z)
+    {
+        final int here = ~bits(x, y, z);
+        final byte n = (byte) (here & 1);
+        final byte e = (byte) ((here >> 1) & 1);
+        final byte s = s(x, y, z);
+        final byte w = w(x, y, z);
+        if ((n | e | s | w) == 0)
+        {
+            return 0;
+        }
+        final int south = ~bits(x, (short) (y - 1), z);
+        final int north = ~bits(x, (short) (y + 1), z);
+        final byte sw = (byte) (s & w & ((~bits((short) (x - 1), (short) (y - 1), z) >> 1) & 1) & s((short) (x - 1), y, z));
+        final byte se = (byte) (s & e & ((south >> 1) & 1) & s((short) (x + 1), y, z));
+        final byte nw = (byte) (n & w & ((~bits((short) (x - 1), (short) (y + 1), z) >> 1) & 1) & n((short) (x - 1), y, z));
+        final byte ne = (byte) (n & e & ((north >> 1) & 1) & n((short) (x + 1), y, z));
+
+        return (byte) (nw | (n << 1) | (ne << 2) | (w << 3) | (e << 4) | (sw << 5) | (s << 6) | (se << 7));
+    }
+
+    @Override
+    public boolean walkable(short x, short y, byte z)
+    {
+        return (n(x, y, z) | e(x, y, z) | s(x, y, z) | w(x, y, z)) == 1;
+    }
+
+    @Override
+    public boolean walkable(int packed)
+    {
+        final short x = WorldPointUtil.getCompressedX(packed);
+        final short y = WorldPointUtil.getCompressedY(packed);
+        final byte plane = WorldPointUtil.getCompressedPlane(packed);
+        return walkable(x, y, plane);
+    }
+}
@@ -0,0 +1,117 @@
+package com.tonic.services.pathfinder.collision;
+
+import com.tonic.util.WorldPointUtil;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches the final {@link CollisionMap#all(short, short, byte)} byte of every tile.
+ *
+ * <p>Deriving the diagonal bits costs up to 12 probes of the underlying map. This layer computes
+ * them once per 64x64 region, the first time a region is touched, and afterwards answers
+ * {@code all()} with a single array read. Straight lookups go to the wrapped map.</p>
+ */
+public class MovementMaskCollisionMap implements CollisionMap
+{
+    private static final int REGION_SHIFT = 6;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int REGIONS_X = 8192 >> REGION_SHIFT;
+    private static final int REGIONS_Y = 32768 >> REGION_SHIFT;
+    private static final int PLANES = 4;
+
+    private final CollisionMap delegate;
+    private final AtomicReferenceArray<byte[]> regions = new AtomicReferenceArray<>(REGIONS_X * REGIONS_Y * PLANES);
+
+    public MovementMaskCollisionMap(CollisionMap delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Computes the masks of every region in the given bounds up front instead of on first use.
+     */
+    public void precompute(int minX, int minY, int maxX, int maxY)
+    {
+        for (int z = 0; z < PLANES; z++)
+        {
+            for (int x = minX; x <= maxX; x += 1 << REGION_SHIFT)
+            {
+                for (int y = minY; y <= maxY; y += 1 << REGION_SHIFT)
+                {
+                    all((short) x, (short) y, (byte) z);
+                }
+            }
+        }
+    }
+
+    @Override
+    public byte all(short x, short y, byte z)
+    {
+        if (z < 0 || z >= PLANES)
+        {
+            return delegate.all(x, y, z);
+        }
+        final int region = ((z * REGIONS_Y) + ((y & 32767) >> REGION_SHIFT)) * REGIONS_X + ((x & 8191) >> REGION_SHIFT);
+        byte[] masks = regions.get(region);
+        if (masks == null)
+        {
+            masks = build(x, y, z);
+            if (!regions.compareAndSet(region, null, masks))
+            {
+                masks = regions.get(region);
+            }
+        }
+        return masks[(x & REGION_MASK) | ((y & REGION_MASK) << REGION_SHIFT)];
+    }
+
+    private byte[] build(short x, short y, byte z)
+    {
+        final int baseX = x & ~REGION_MASK;
+        final int baseY = y & ~REGION_MASK;
+        final byte[] masks = new byte[1 << (REGION_SHIFT * 2)];
+        for (int ly = 0; ly <= REGION_MASK; ly++)
+        {
+            for (int lx = 0; lx <= REGION_MASK; lx++)
+            {
+                masks[lx | (ly << REGION_SHIFT)] = delegate.all((short) (baseX + lx), (short) (baseY + ly), z);
+            }
+        }
+        return masks;
+    }
+
+    @Override
+    public byte n(short x, short y, byte z)
+    {
+        return delegate.n(x, y, z);
+    }
+
+    @Override
+    public byte e(short x, short y, byte z)
+    {
+        return delegate.e(x, y, z);
+    }
+
+    @Override
+    public byte s(short x, short y, byte z)
+    {
+        return delegate.s(x, y, z);
+    }
+
+    @Override
+    public byte w(short x, short y, byte z)
+    {
+        return delegate.w(x, y, z);
+    }
+
+    @Override
+    public boolean walkable(short x, short y, byte z)
+    {
+        return delegate.walkable(x, y, z);
+    }
+
+    @Override
+    public boolean walkable(int packed)
+    {
+        return walkable(WorldPointUtil.getCompressedX(packed), WorldPointUtil.getCompressedY(packed), WorldPointUtil.getCompressedPlane(packed));
+    }
+}
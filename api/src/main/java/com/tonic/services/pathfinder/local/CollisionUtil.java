@@ -1,10 +1,7 @@
 package com.tonic.services.pathfinder.local;
 
-import com.tonic.util.WorldPointUtil;
-import gnu.trove.map.hash.TIntIntHashMap;
-import lombok.Getter;
+import com.tonic.services.pathfinder.collision.Flags;
 
-import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -16,55 +13,50 @@ public class CollisionUtil
     public static final Predicate<Set<MovementFlag>> BLOCKED_SOUTH = flags -> FULL_BLOCKING.test(flags) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH_EAST) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH_WEST);
     public static final Predicate<Set<MovementFlag>> BLOCKED_WEST = flags -> FULL_BLOCKING.test(flags) || flags.contains(MovementFlag.BLOCK_MOVEMENT_WEST) || flags.contains(MovementFlag.BLOCK_MOVEMENT_NORTH_WEST) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH_WEST);
 
-    private final TIntIntHashMap collisionMap;
+    private final SceneCollisionSnapshot snapshot;
 
-    public CollisionUtil(TIntIntHashMap collisionMap)
+    public CollisionUtil(SceneCollisionSnapshot snapshot)
     {
-        this.collisionMap = collisionMap;
+        this.snapshot = snapshot;
     }
 
     public boolean blockedNorth(int x, int y)
     {
-        return BLOCKED_NORTH.test(getFlags(x, y)) || BLOCKED_SOUTH.test(getFlags(x, y + 1));
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.NORTH) == 0;
     }
 
     public boolean blockedEast(int x, int y)
     {
-        return BLOCKED_EAST.test(getFlags(x, y)) || BLOCKED_WEST.test(getFlags(x + 1, y));
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.EAST) == 0;
     }
 
     public boolean blockedSouth(int x, int y)
     {
-        return BLOCKED_SOUTH.test(getFlags(x, y)) || BLOCKED_NORTH.test(getFlags(x, y - 1));
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.SOUTH) == 0;
     }
 
     public boolean blockedWest(int x, int y)
     {
-        return BLOCKED_WEST.test(getFlags(x, y)) || BLOCKED_EAST.test(getFlags(x - 1, y));
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.WEST) == 0;
     }
 
     public boolean blockedNorthEast(int x, int y)
     {
-        return blockedNorth(x, y) || blockedEast(x, y) || blockedSouth(x, y + 1) || blockedWest(x + 1, y) || blockedSouth(x + 1, y + 1) || blockedWest(x + 1, y + 1);
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.NORTHEAST) == 0;
     }
 
     public boolean blockedSouthEast(int x, int y)
     {
-        return blockedSouth(x, y) || blockedEast(x, y) || blockedNorth(x, y - 1) || blockedWest(x + 1, y) || blockedNorth(x + 1, y - 1) || blockedWest(x + 1, y - 1);
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.SOUTHEAST) == 0;
     }
 
     public boolean blockedSouthWest(int x, int y)
     {
-        return blockedSouth(x, y) || blockedWest(x, y) || blockedNorth(x, y - 1) || blockedEast(x - 1, y) || blockedNorth(x - 1, y - 1) || blockedEast(x - 1, y - 1);
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.SOUTHWEST) == 0;
     }
 
     public boolean blockedNorthWest(int x, int y)
     {
-        return blockedNorth(x, y) || blockedWest(x, y) || blockedSouth(x, y + 1) || blockedEast(x - 1, y) || blockedSouth(x - 1, y + 1) || blockedEast(x - 1, y + 1);
+        return (snapshot.all(x, y, snapshot.getPlane(), false) & Flags.NORTHWEST) == 0;
     }
-
-    private Set<MovementFlag> getFlags(int x, int y)
-    {
-        return MovementFlag.getSetFlags(collisionMap.get(x << 14 | y));
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package com.tonic.services.pathfinder.local;
+
+import com.tonic.Static;
+import com.tonic.services.GameManager;
+import com.tonic.util.WorldPointUtil;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import lombok.Getter;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Walking distance from one tile to every tile of the scene, flooded once over a
+ * {@link SceneCollisionSnapshot} and then answered with array reads.
+ *
+ * <p>The field of the local player is kept for the rest of the game tick and is rebuilt once the
+ * tick, the player's tile or the collision snapshot changes. Fields of other origins are built on
+ * demand and kept in a small LRU until the collision snapshot changes. Distances are in tiles and
+ * follow the game's movement rules, so diagonals cost one and closed doors block.</p>
+ */
+public final class DistanceField
+{
+    public static final int UNREACHABLE = -1;
+    private static final int MAX_CACHED = 8;
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+
+    private static volatile DistanceField player;
+    private static final LinkedHashMap<Integer, DistanceField> CACHE = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, DistanceField> eldest)
+        {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    @Getter
+    private final SceneCollisionSnapshot collision;
+    @Getter
+    private final int origin;
+    @Getter
+    private final int tick;
+    @Getter
+    private final int reachableCount;
+    private final short[] distances;
+
+    private DistanceField(SceneCollisionSnapshot collision, int origin, int tick)
+    {
+        this.collision = collision;
+        this.origin = origin;
+        this.tick = tick;
+
+        final int sizeX = collision.getSizeX();
+        final int sizeY = collision.getSizeY();
+        final int baseX = collision.getBaseX();
+        final int baseY = collision.getBaseY();
+        final int plane = collision.getPlane();
+        this.distances = new short[sizeX * sizeY];
+        Arrays.fill(distances, (short) UNREACHABLE);
+
+        final int ox = WorldPointUtil.getCompressedX(origin) - baseX;
+        final int oy = WorldPointUtil.getCompressedY(origin) - baseY;
+        if (WorldPointUtil.getCompressedPlane(origin) != plane || ox < 0 || oy < 0 || ox >= sizeX || oy >= sizeY)
+        {
+            this.reachableCount = 0;
+            return;
+        }
+
+        final int[] queue = new int[sizeX * sizeY];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ox + oy * sizeX;
+        distances[ox + oy * sizeX] = 0;
+        while (head < tail)
+        {
+            final int index = queue[head++];
+            final int x = index % sizeX;
+            final int y = index / sizeX;
+            final byte mask = collision.all(baseX + x, baseY + y, plane, false);
+            final short next = (short) (distances[index] + 1);
+            for (int d = 0; d < 8; d++)
+            {
+                if ((mask & (1 << d)) == 0)
+                {
+                    continue;
+                }
+                final int nx = x + DX[d];
+                final int ny = y + DY[d];
+                if (nx < 0 || ny < 0 || nx >= sizeX || ny >= sizeY)
+                {
+                    continue;
+                }
+                final int neighbor = nx + ny * sizeX;
+                if (distances[neighbor] == UNREACHABLE)
+                {
+                    distances[neighbor] = next;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        this.reachableCount = tail;
+    }
+
+    /**
+     * The field of the local player for the current tick.
+     * @return the field, built first if the tick, the player's tile or the collision changed
+     */
+    public static DistanceField ofPlayer()
+    {
+        final WorldPoint location = Static.getClient().getLocalPlayer().getWorldLocation();
+        final int origin = WorldPointUtil.compress(location);
+        final int tick = GameManager.getTickCount();
+        final SceneCollisionSnapshot collision = SceneCollisionSnapshot.current();
+        DistanceField field = player;
+        if (field == null || field.tick != tick || field.origin != origin || field.collision != collision)
+        {
+            field = new DistanceField(collision, origin, tick);
+            player = field;
+        }
+        return field;
+    }
+
+    /**
+     * The field of any tile, the player's own field if it stands there.
+     * @param origin the tile to measure from
+     * @return the field, built first if it is not cached for the current collision
+     */
+    public static DistanceField of(WorldPoint origin)
+    {
+        final int compressed = WorldPointUtil.compress(origin);
+        final DistanceField current = player;
+        final SceneCollisionSnapshot collision = SceneCollisionSnapshot.current();
+        if (current != null && current.origin == compressed && current.collision == collision
+                && current.tick == GameManager.getTickCount())
+        {
+            return current;
+        }
+        synchronized (CACHE)
+        {
+            final DistanceField cached = CACHE.get(compressed);
+            if (cached != null && cached.collision == collision)
+            {
+                return cached;
+            }
+        }
+        final DistanceField field = new DistanceField(collision, compressed, GameManager.getTickCount());
+        synchronized (CACHE)
+        {
+            CACHE.put(compressed, field);
+        }
+        return field;
+    }
+
+    /**
+     * @return the walking distance in tiles, or {@link #UNREACHABLE}
+     */
+    public int distance(int x, int y, int z)
+    {
+        if (z != collision.getPlane())
+        {
+            return UNREACHABLE;
+        }
+        final int lx = x - collision.getBaseX();
+        final int ly = y - collision.getBaseY();
+        if (lx < 0 || ly < 0 || lx >= collision.getSizeX() || ly >= collision.getSizeY())
+        {
+            return UNREACHABLE;
+        }
+        return distances[lx + ly * collision.getSizeX()];
+    }
+
+    /**
+     * @return the walking distance in tiles, or {@link #UNREACHABLE}
+     */
+    public int distance(WorldPoint point)
+    {
+        return distance(point.getX(), point.getY(), point.getPlane());
+    }
+
+    public boolean isReachable(int x, int y, int z)
+    {
+        return distance(x, y, z) != UNREACHABLE;
+    }
+
+    public boolean isReachable(WorldPoint point)
+    {
+        return distance(point) != UNREACHABLE;
+    }
+
+    /**
+     * @return every reachable tile, compressed, origin included
+     */
+    public IntList getReachable()
+    {
+        final IntArrayList out = new IntArrayList(reachableCount);
+        forEachReachable(out::add);
+        return out;
+    }
+
+    /**
+     * @return every reachable tile, origin included
+     */
+    public List<WorldPoint> getReachableWorldPoints()
+    {
+        final List<WorldPoint> out = new ArrayList<>(reachableCount);
+        forEachReachable(tile -> out.add(WorldPointUtil.fromCompressed(tile)));
+        return out;
+    }
+
+    private void forEachReachable(IntConsumer consumer)
+    {
+        final int sizeX = collision.getSizeX();
+        final int sizeY = collision.getSizeY();
+        for (int x = 0; x < sizeX; x++)
+        {
+            for (int y = 0; y < sizeY; y++)
+            {
+                if (distances[x + y * sizeX] != UNREACHABLE)
+                {
+                    consumer.accept(WorldPointUtil.compress(collision.getBaseX() + x, collision.getBaseY() + y, collision.getPlane()));
+                }
+            }
+        }
+    }
+}
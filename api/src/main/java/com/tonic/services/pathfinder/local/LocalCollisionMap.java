@@ -1,23 +1,12 @@
 package com.tonic.services.pathfinder.local;
 
-import com.tonic.Static;
-import com.tonic.services.GameManager;
 import com.tonic.services.pathfinder.Pathfinder;
 import com.tonic.services.pathfinder.collision.Flags;
-import com.tonic.util.WorldPointUtil;
-import gnu.trove.map.hash.TIntIntHashMap;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import net.runelite.api.Client;
-import net.runelite.api.WorldView;
-import net.runelite.api.coords.WorldPoint;
 
-import java.awt.*;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class LocalCollisionMap
 {
@@ -27,136 +16,78 @@ public class LocalCollisionMap
     public static final Predicate<Set<MovementFlag>> BLOCKED_SOUTH = flags -> FULL_BLOCKING.test(flags) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH_EAST) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH_WEST);
     public static final Predicate<Set<MovementFlag>> BLOCKED_WEST = flags -> FULL_BLOCKING.test(flags) || flags.contains(MovementFlag.BLOCK_MOVEMENT_WEST) || flags.contains(MovementFlag.BLOCK_MOVEMENT_NORTH_WEST) || flags.contains(MovementFlag.BLOCK_MOVEMENT_SOUTH_WEST);
 
-    private final TIntIntHashMap collisionMap;
+    // instanced tiles start at this x, tiles west of it are read from the world collision map
+    public static final int INSTANCE_X = 6000;
+
+    private final SceneCollisionSnapshot snapshot;
     @Getter
     private final List<Integer> ignoreTiles;
     public LocalCollisionMap()
     {
-        this.collisionMap = getCollision();
-        this.ignoreTiles = getDoored();
+        this(SceneCollisionSnapshot.current());
+    }
+
+    public LocalCollisionMap(SceneCollisionSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+        this.ignoreTiles = snapshot.getDoorTiles();
+    }
+
+    /**
+     * @param x The x of a tile.
+     * @return Whether the tile is in an instance and only the scene knows its collision.
+     */
+    public static boolean isInstanced(int x)
+    {
+        return x >= INSTANCE_X;
     }
 
     public byte all(short x, short y, byte z)
     {
-        if(x < 6000)
+        if(!isInstanced(x))
         {
             return Pathfinder.getCollisionMap().all(x, y, z);
         }
-
-        byte n = (byte) (n(x,y,z) ? 0 : 1);
-        byte e = (byte) (e(x,y,z) ? 0 : 1);
-        byte s = (byte) (s(x,y,z) ? 0 : 1);
-        byte w = (byte) (w(x,y,z) ? 0 : 1);
-        if((n | e | s | w) == 0)
-        {
-            return 0;
-        }
-
-        byte sw = (byte) (sw(x,y,z) ? 0 : 1);
-        byte se = (byte) (se(x,y,z) ? 0 : 1);
-        byte nw = (byte) (nw(x,y,z) ? 0 : 1);
-        byte ne = (byte) (ne(x,y,z) ? 0 : 1);
-
-        return (byte) (nw | (n << 1) | (ne << 2) | (w << 3) | (e << 4) | (sw << 5) | (s << 6) | (se << 7));
+        return snapshot.all(x, y, z);
     }
 
     public boolean n(int x, int y, int z)
     {
-        if(isDoored(x, y, z) || isDoored(x, y + 1, z))
-            return false;
-        return BLOCKED_NORTH.test(getFlags(x, y, z)) || BLOCKED_SOUTH.test(getFlags(x, y + 1, z));
+        return (snapshot.all(x, y, z) & Flags.NORTH) == 0;
     }
 
     public boolean e(int x, int y, int z)
     {
-        if (isDoored(x, y, z) || isDoored(x + 1, y, z))
-            return false;
-        return BLOCKED_EAST.test(getFlags(x, y, z)) || BLOCKED_WEST.test(getFlags(x + 1, y, z));
+        return (snapshot.all(x, y, z) & Flags.EAST) == 0;
     }
 
     public boolean s(int x, int y, int z)
     {
-        if (isDoored(x, y, z) || isDoored(x, y - 1, z))
-            return false;
-        return BLOCKED_SOUTH.test(getFlags(x, y, z)) || BLOCKED_NORTH.test(getFlags(x, y - 1, z));
+        return (snapshot.all(x, y, z) & Flags.SOUTH) == 0;
     }
 
     public boolean w(int x, int y, int z)
     {
-        if (isDoored(x, y, z) || isDoored(x - 1, y, z))
-            return false;
-        return BLOCKED_WEST.test(getFlags(x, y, z)) || BLOCKED_EAST.test(getFlags(x - 1, y, z));
+        return (snapshot.all(x, y, z) & Flags.WEST) == 0;
     }
 
     public boolean ne(int x, int y, int z)
     {
-        return n(x, y, z) || e(x, y, z) || s(x, y + 1, z) || w(x + 1, y, z) || s(x + 1, y + 1, z) || w(x + 1, y + 1, z);
+        return (snapshot.all(x, y, z) & Flags.NORTHEAST) == 0;
     }
 
     public boolean se(int x, int y, int z)
     {
-        return s(x, y, z) || e(x, y, z) || n(x, y - 1, z) || w(x + 1, y, z) || n(x + 1, y - 1, z) || w(x + 1, y - 1, z);
+        return (snapshot.all(x, y, z) & Flags.SOUTHEAST) == 0;
     }
 
     public boolean sw(int x, int y, int z)
     {
-        return s(x, y, z) || w(x, y, z) || n(x, y - 1, z) || e(x - 1, y, z) || n(x - 1, y - 1, z) || e(x - 1, y - 1, z);
+        return (snapshot.all(x, y, z) & Flags.SOUTHWEST) == 0;
     }
 
     public boolean nw(int x, int y, int z)
     {
-        return n(x, y, z) || w(x, y, z) || s(x, y + 1, z) || e(x - 1, y, z) || s(x - 1, y + 1, z) || e(x - 1, y + 1, z);
-    }
-
-    private Set<MovementFlag> getFlags(int x, int y, int z)
-    {
-        int compressed = WorldPointUtil.compress(x, y, z);
-        if(!collisionMap.contains(compressed))
-        {
-            Set<MovementFlag> flags = new HashSet<>();
-            flags.add(MovementFlag.BLOCK_MOVEMENT_FULL);
-            return flags;
-        }
-        return MovementFlag.getSetFlags(collisionMap.get(WorldPointUtil.compress(x, y, z)));
-    }
-
-    private boolean isDoored(int x, int y, int z)
-    {
-        int packed = WorldPointUtil.compress(x, y, z);
-        return ignoreTiles.contains(packed);
-    }
-
-    private List<Integer> getDoored()
-    {
-        return Static.invoke(() ->
-                GameManager.objectStream()
-                        .filter(o -> {
-                            String name = o.getName() == null ? "" :  o.getName().toLowerCase();
-                            return (name.contains("door") || name.contains("gate")) && !name.contains("trapdoor");
-                        })
-                        .map(door -> WorldPointUtil.compress(door.getWorldLocation().getX(), door.getWorldLocation().getY(), door.getWorldLocation().getPlane()))
-                        .collect(Collectors.toList())
-        );
-    }
-
-    private TIntIntHashMap getCollision()
-    {
-        TIntIntHashMap collisionMap = new TIntIntHashMap();
-        Client client = Static.getClient();
-        WorldView wv = client.getTopLevelWorldView();
-        if(wv.getCollisionMaps() == null || wv.getCollisionMaps()[wv.getPlane()] == null)
-            return collisionMap;
-
-        int[][] flags = wv.getCollisionMaps()[wv.getPlane()].getFlags();
-        WorldPoint point;
-        for(int x = 0; x < flags.length; x++)
-        {
-            for(int y = 0; y < flags[x].length; y++)
-            {
-                point = WorldPoint.fromScene(wv, x, y, wv.getPlane());
-                collisionMap.put(WorldPointUtil.compress(point.getX(), point.getY(), wv.getPlane()), flags[x][y]);
-            }
-        }
-        return collisionMap;
+        return (snapshot.all(x, y, z) & Flags.NORTHWEST) == 0;
     }
-}
\ No newline at end of file
+}
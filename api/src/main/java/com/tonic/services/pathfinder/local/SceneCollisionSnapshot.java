@@ -0,0 +1,319 @@
+package com.tonic.services.pathfinder.local;
+
+import com.tonic.Static;
+import com.tonic.services.GameManager;
+import com.tonic.services.pathfinder.collision.Flags;
+import com.tonic.util.WorldPointUtil;
+import lombok.Getter;
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Flat copy of one plane of the scene's collision flags.
+ *
+ * <p>Flags live in an {@code int[]} indexed by scene coordinates, door tiles in a bitmap over the
+ * same indices, and the 8 direction movement mask of every tile is worked out once when the
+ * snapshot is taken. Lookups afterwards are a bounds check and an array read and never allocate.
+ * Tiles outside the scene or on another plane are treated as fully blocked.</p>
+ *
+ * <p>{@link #current()} hands out one shared snapshot that is only rebuilt after the scene loads,
+ * the plane changes or an object that can block movement spawns or despawns. Snapshots are never
+ * modified once built, so any thread can read the shared one without locking.</p>
+ */
+public final class SceneCollisionSnapshot
+{
+    public static final int FULL_BLOCKING = CollisionDataFlag.BLOCK_MOVEMENT_FULL | CollisionDataFlag.BLOCK_MOVEMENT_OBJECT
+            | CollisionDataFlag.BLOCK_MOVEMENT_FLOOR | CollisionDataFlag.BLOCK_MOVEMENT_FLOOR_DECORATION;
+    public static final int BLOCKED_NORTH = FULL_BLOCKING | CollisionDataFlag.BLOCK_MOVEMENT_NORTH
+            | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_EAST | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_WEST;
+    public static final int BLOCKED_EAST = FULL_BLOCKING | CollisionDataFlag.BLOCK_MOVEMENT_EAST
+            | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_EAST | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_EAST;
+    public static final int BLOCKED_SOUTH = FULL_BLOCKING | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH
+            | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_EAST | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_WEST;
+    public static final int BLOCKED_WEST = FULL_BLOCKING | CollisionDataFlag.BLOCK_MOVEMENT_WEST
+            | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_WEST | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_WEST;
+
+    private static final AtomicInteger VERSION = new AtomicInteger();
+    private static final AtomicReference<SceneCollisionSnapshot> CURRENT = new AtomicReference<>();
+
+    @Getter
+    private final int baseX;
+    @Getter
+    private final int baseY;
+    @Getter
+    private final int plane;
+    @Getter
+    private final int sizeX;
+    @Getter
+    private final int sizeY;
+    @Getter
+    private final List<Integer> doorTiles;
+    private final int[] flags;
+    private final long[] doors;
+    private final byte[] masks;
+    private final byte[] closedMasks;
+    private final int version;
+
+    /**
+     * @param baseX world x of scene tile 0
+     * @param baseY world y of scene tile 0
+     * @param plane the plane the flags belong to
+     * @param sceneFlags collision flags indexed {@code [sceneX][sceneY]}, copied
+     * @param doorTiles compressed door and gate tiles that never block, other planes are ignored
+     */
+    public SceneCollisionSnapshot(int baseX, int baseY, int plane, int[][] sceneFlags, List<Integer> doorTiles)
+    {
+        this(baseX, baseY, plane, sceneFlags, doorTiles, -1);
+    }
+
+    private SceneCollisionSnapshot(int baseX, int baseY, int plane, int[][] sceneFlags, List<Integer> doorTiles, int version)
+    {
+        this.version = version;
+        this.baseX = baseX;
+        this.baseY = baseY;
+        this.plane = plane;
+        this.sizeX = sceneFlags.length;
+        this.sizeY = sizeX == 0 ? 0 : sceneFlags[0].length;
+        this.doorTiles = Collections.unmodifiableList(doorTiles);
+
+        final int size = sizeX * sizeY;
+        this.flags = new int[size];
+        for (int x = 0; x < sizeX; x++)
+        {
+            for (int y = 0; y < sizeY; y++)
+            {
+                flags[x + y * sizeX] = sceneFlags[x][y];
+            }
+        }
+
+        this.doors = new long[(size + 63) >>> 6];
+        for (int tile : doorTiles)
+        {
+            if (WorldPointUtil.getCompressedPlane(tile) != plane)
+            {
+                continue;
+            }
+            final int index = index(WorldPointUtil.getCompressedX(tile) - baseX, WorldPointUtil.getCompressedY(tile) - baseY);
+            if (index != -1)
+            {
+                doors[index >>> 6] |= 1L << index;
+            }
+        }
+
+        this.masks = new byte[size];
+        this.closedMasks = new byte[size];
+        for (int x = 0; x < sizeX; x++)
+        {
+            for (int y = 0; y < sizeY; y++)
+            {
+                masks[x + y * sizeX] = computeMask(x, y, true);
+                closedMasks[x + y * sizeX] = computeMask(x, y, false);
+            }
+        }
+    }
+
+    /**
+     * The shared snapshot of the current scene, rebuilt first if it was invalidated.
+     * @return the snapshot, doors and gates are passable
+     */
+    public static SceneCollisionSnapshot current()
+    {
+        final int version = VERSION.get();
+        final SceneCollisionSnapshot snapshot = CURRENT.get();
+        if (snapshot != null && snapshot.version == version)
+        {
+            return snapshot;
+        }
+        final SceneCollisionSnapshot fresh = capture(true, version);
+        // a slower rebuild of an older version must not replace a newer one
+        CURRENT.accumulateAndGet(fresh, (prev, next) -> prev == null || prev.version < next.version ? next : prev);
+        return fresh;
+    }
+
+    /**
+     * @return the shared snapshot as it is, without rebuilding it, or null if there is none
+     */
+    public static SceneCollisionSnapshot peek()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Marks the shared snapshot stale, the next {@link #current()} call rebuilds it.
+     */
+    public static void invalidate()
+    {
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * Copies the top level world view's current plane.
+     * @param withDoors whether door and gate tiles should be passable
+     * @return the snapshot, empty when the scene has no collision data
+     */
+    public static SceneCollisionSnapshot capture(boolean withDoors)
+    {
+        return capture(withDoors, -1);
+    }
+
+    private static SceneCollisionSnapshot capture(boolean withDoors, int version)
+    {
+        return Static.invoke(() -> {
+            final WorldView wv = Static.getClient().getTopLevelWorldView();
+            final int plane = wv.getPlane();
+            final List<Integer> doors = withDoors ? getDoored() : Collections.emptyList();
+            if (wv.getCollisionMaps() == null || wv.getCollisionMaps()[plane] == null)
+            {
+                return new SceneCollisionSnapshot(0, 0, plane, new int[0][0], doors, version);
+            }
+            final WorldPoint base = WorldPoint.fromScene(wv, 0, 0, plane);
+            return new SceneCollisionSnapshot(base.getX(), base.getY(), plane, wv.getCollisionMaps()[plane].getFlags(), doors, version);
+        });
+    }
+
+    /**
+     * @return whether the tile lies inside this snapshot
+     */
+    public boolean contains(int x, int y, int z)
+    {
+        return z == plane && index(x - baseX, y - baseY) != -1;
+    }
+
+    /**
+     * @return the raw collision flags of a tile, {@link CollisionDataFlag#BLOCK_MOVEMENT_FULL} outside the snapshot
+     */
+    public int getFlags(int x, int y, int z)
+    {
+        if (z != plane)
+        {
+            return CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+        }
+        return flagsAt(x - baseX, y - baseY);
+    }
+
+    /**
+     * @return the directions that can be walked from a tile, in the {@link Flags} layout
+     */
+    public byte all(int x, int y, int z)
+    {
+        return all(x, y, z, true);
+    }
+
+    /**
+     * @param doorsOpen whether door and gate tiles are passable
+     * @return the directions that can be walked from a tile, in the {@link Flags} layout
+     */
+    public byte all(int x, int y, int z, boolean doorsOpen)
+    {
+        if (z != plane)
+        {
+            return Flags.NONE;
+        }
+        final int lx = x - baseX;
+        final int ly = y - baseY;
+        final int index = index(lx, ly);
+        if (index == -1)
+        {
+            return computeMask(lx, ly, doorsOpen);
+        }
+        return doorsOpen ? masks[index] : closedMasks[index];
+    }
+
+    private byte computeMask(int x, int y, boolean doorsOpen)
+    {
+        final int n = blockedNorth(x, y, doorsOpen) ? 0 : 1;
+        final int e = blockedEast(x, y, doorsOpen) ? 0 : 1;
+        final int s = blockedSouth(x, y, doorsOpen) ? 0 : 1;
+        final int w = blockedWest(x, y, doorsOpen) ? 0 : 1;
+        if ((n | e | s | w) == 0)
+        {
+            return Flags.NONE;
+        }
+
+        final int ne = n == 0 || e == 0 || blockedSouth(x, y + 1, doorsOpen) || blockedWest(x + 1, y, doorsOpen)
+                || blockedSouth(x + 1, y + 1, doorsOpen) || blockedWest(x + 1, y + 1, doorsOpen) ? 0 : 1;
+        final int se = s == 0 || e == 0 || blockedNorth(x, y - 1, doorsOpen) || blockedWest(x + 1, y, doorsOpen)
+                || blockedNorth(x + 1, y - 1, doorsOpen) || blockedWest(x + 1, y - 1, doorsOpen) ? 0 : 1;
+        final int sw = s == 0 || w == 0 || blockedNorth(x, y - 1, doorsOpen) || blockedEast(x - 1, y, doorsOpen)
+                || blockedNorth(x - 1, y - 1, doorsOpen) || blockedEast(x - 1, y - 1, doorsOpen) ? 0 : 1;
+        final int nw = n == 0 || w == 0 || blockedSouth(x, y + 1, doorsOpen) || blockedEast(x - 1, y, doorsOpen)
+                || blockedSouth(x - 1, y + 1, doorsOpen) || blockedEast(x - 1, y + 1, doorsOpen) ? 0 : 1;
+
+        return (byte) (nw | (n << 1) | (ne << 2) | (w << 3) | (e << 4) | (sw << 5) | (s << 6) | (se << 7));
+    }
+
+    private boolean blockedNorth(int x, int y, boolean doorsOpen)
+    {
+        if (doorsOpen && (isDoor(x, y) || isDoor(x, y + 1)))
+        {
+            return false;
+        }
+        return (flagsAt(x, y) & BLOCKED_NORTH) != 0 || (flagsAt(x, y + 1) & BLOCKED_SOUTH) != 0;
+    }
+
+    private boolean blockedEast(int x, int y, boolean doorsOpen)
+    {
+        if (doorsOpen && (isDoor(x, y) || isDoor(x + 1, y)))
+        {
+            return false;
+        }
+        return (flagsAt(x, y) & BLOCKED_EAST) != 0 || (flagsAt(x + 1, y) & BLOCKED_WEST) != 0;
+    }
+
+    private boolean blockedSouth(int x, int y, boolean doorsOpen)
+    {
+        if (doorsOpen && (isDoor(x, y) || isDoor(x, y - 1)))
+        {
+            return false;
+        }
+        return (flagsAt(x, y) & BLOCKED_SOUTH) != 0 || (flagsAt(x, y - 1) & BLOCKED_NORTH) != 0;
+    }
+
+    private boolean blockedWest(int x, int y, boolean doorsOpen)
+    {
+        if (doorsOpen && (isDoor(x, y) || isDoor(x - 1, y)))
+        {
+            return false;
+        }
+        return (flagsAt(x, y) & BLOCKED_WEST) != 0 || (flagsAt(x - 1, y) & BLOCKED_EAST) != 0;
+    }
+
+    private int flagsAt(int x, int y)
+    {
+        final int index = index(x, y);
+        return index != -1 ? flags[index] : CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+    }
+
+    private boolean isDoor(int x, int y)
+    {
+        final int index = index(x, y);
+        return index != -1 && (doors[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private int index(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= sizeX || y >= sizeY)
+        {
+            return -1;
+        }
+        return x + y * sizeX;
+    }
+
+    private static List<Integer> getDoored()
+    {
+        return GameManager.objectStream()
+                .filter(o -> {
+                    String name = o.getName() == null ? "" : o.getName().toLowerCase();
+                    return (name.contains("door") || name.contains("gate")) && !name.contains("trapdoor");
+                })
+                .map(door -> WorldPointUtil.compress(door.getWorldLocation().getX(), door.getWorldLocation().getY(), door.getWorldLocation().getPlane()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,99 @@
+package com.tonic.services.pathfinder.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe histogram of non negative values in power of two buckets.
+ *
+ * <p>Recording is a handful of atomic adds and never allocates. Percentiles are answered with the
+ * upper bound of the bucket they fall in, capped at the largest value seen, so they are exact to
+ * within a factor of two. That is enough to tell a 5 ms search from a 50 ms one.</p>
+ */
+public final class Histogram
+{
+    private static final int BUCKETS = 64;
+
+    // bucket b holds the values of bit length b, 0 holds only 0
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value the value to record, negative values are recorded as 0
+     */
+    public void record(long value)
+    {
+        value = Math.max(value, 0);
+        buckets.incrementAndGet(Math.min(BUCKETS - Long.numberOfLeadingZeros(value), BUCKETS - 1));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    public long getSum()
+    {
+        return sum.sum();
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    public double getMean()
+    {
+        final long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return the upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long percentile(double percentile)
+    {
+        final long n = count.sum();
+        if (n == 0)
+        {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++)
+        {
+            seen += buckets.get(b);
+            if (seen >= rank)
+            {
+                final long upper = b == 0 ? 0 : b == BUCKETS - 1 ? Long.MAX_VALUE : (1L << b) - 1;
+                return Math.min(upper, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset()
+    {
+        for (int b = 0; b < BUCKETS; b++)
+        {
+            buckets.set(b, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("n=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+                getCount(), getMean(), percentile(0.5), percentile(0.9), percentile(0.99), getMax());
+    }
+}
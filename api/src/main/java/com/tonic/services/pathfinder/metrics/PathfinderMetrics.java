@@ -0,0 +1,235 @@
+package com.tonic.services.pathfinder.metrics;
+
+import com.tonic.Logger;
+import lombok.Getter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Registry of the {@link SearchMetrics} of every finished search: running counters, histograms,
+ * the most recent searches, and listeners for exporting them elsewhere.
+ *
+ * <p>Everything here is safe to use from any thread. When a trace directory is set, every search
+ * also records the order it expanded its tiles in and writes it there as a {@link SearchTrace}.</p>
+ */
+public final class PathfinderMetrics
+{
+    private static final int RECENT = 32;
+
+    @Getter
+    private static final LongAdder searches = new LongAdder();
+    @Getter
+    private static final LongAdder cacheHits = new LongAdder();
+    @Getter
+    private static final LongAdder cancellations = new LongAdder();
+    @Getter
+    private static final LongAdder noPath = new LongAdder();
+    @Getter
+    private static final LongAdder transportsConsidered = new LongAdder();
+    @Getter
+    private static final LongAdder transportsUsed = new LongAdder();
+    @Getter
+    private static final LongAdder teleportsSeeded = new LongAdder();
+
+    @Getter
+    private static final Histogram searchMicros = new Histogram();
+    @Getter
+    private static final Histogram clientWaitMicros = new Histogram();
+    @Getter
+    private static final Histogram clientThreadMicros = new Histogram();
+    @Getter
+    private static final Histogram expanded = new Histogram();
+    @Getter
+    private static final Histogram queuePeak = new Histogram();
+    @Getter
+    private static final Histogram pathLength = new Histogram();
+
+    private static final ArrayDeque<SearchMetrics> RECENT_SEARCHES = new ArrayDeque<>(RECENT);
+    private static final List<Consumer<SearchMetrics>> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final AtomicLong TRACE_SEQUENCE = new AtomicLong();
+    private static volatile Path traceDirectory;
+
+    private PathfinderMetrics()
+    {
+    }
+
+    /**
+     * Adds a finished search to the counters and histograms, notifies the listeners and writes
+     * its trace if it has one.
+     * @param metrics the search, not changed afterwards
+     */
+    public static void record(SearchMetrics metrics)
+    {
+        searches.increment();
+        if (metrics.isCacheHit())
+        {
+            cacheHits.increment();
+        }
+        if (metrics.isCancelled())
+        {
+            cancellations.increment();
+        }
+        else if (metrics.getPathLength() == 0)
+        {
+            noPath.increment();
+        }
+        transportsConsidered.add(metrics.getTransportsConsidered());
+        transportsUsed.add(metrics.getTransportsUsed());
+        teleportsSeeded.add(metrics.getTeleportsSeeded());
+
+        searchMicros.record(TimeUnit.NANOSECONDS.toMicros(metrics.getSearchNanos()));
+        clientWaitMicros.record(TimeUnit.NANOSECONDS.toMicros(metrics.getClientWaitNanos()));
+        clientThreadMicros.record(TimeUnit.NANOSECONDS.toMicros(metrics.getClientThreadNanos()));
+        if (!metrics.isCacheHit())
+        {
+            expanded.record(metrics.getExpanded());
+            queuePeak.record(metrics.getQueuePeak());
+        }
+        pathLength.record(metrics.getPathLength());
+
+        synchronized (RECENT_SEARCHES)
+        {
+            if (RECENT_SEARCHES.size() == RECENT)
+            {
+                RECENT_SEARCHES.removeFirst();
+            }
+            RECENT_SEARCHES.addLast(metrics);
+        }
+
+        final Path directory = traceDirectory;
+        if (directory != null && metrics.getTrace() != null)
+        {
+            writeTrace(directory, metrics);
+        }
+
+        for (Consumer<SearchMetrics> listener : LISTENERS)
+        {
+            try
+            {
+                listener.accept(metrics);
+            }
+            catch (Exception e)
+            {
+                Logger.error(e, "[Pathfinder] Metrics listener failed: %e");
+            }
+        }
+    }
+
+    /**
+     * @return the last searches, oldest first
+     */
+    public static List<SearchMetrics> getRecent()
+    {
+        synchronized (RECENT_SEARCHES)
+        {
+            return new ArrayList<>(RECENT_SEARCHES);
+        }
+    }
+
+    /**
+     * @return every counter and histogram by name, histograms as their summary
+     */
+    public static Map<String, Object> snapshot()
+    {
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("searches", searches.sum());
+        snapshot.put("cacheHits", cacheHits.sum());
+        snapshot.put("cancellations", cancellations.sum());
+        snapshot.put("noPath", noPath.sum());
+        snapshot.put("transportsConsidered", transportsConsidered.sum());
+        snapshot.put("transportsUsed", transportsUsed.sum());
+        snapshot.put("teleportsSeeded", teleportsSeeded.sum());
+        snapshot.put("searchMicros", searchMicros.toString());
+        snapshot.put("clientWaitMicros", clientWaitMicros.toString());
+        snapshot.put("clientThreadMicros", clientThreadMicros.toString());
+        snapshot.put("expanded", expanded.toString());
+        snapshot.put("queuePeak", queuePeak.toString());
+        snapshot.put("pathLength", pathLength.toString());
+        return snapshot;
+    }
+
+    /**
+     * @param listener called on the searching thread after every finished search
+     */
+    public static void addListener(Consumer<SearchMetrics> listener)
+    {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(Consumer<SearchMetrics> listener)
+    {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Starts or stops tracing. Tracing costs a few bytes per expanded tile, leave it off unless
+     * the traces are wanted.
+     * @param directory where to write the traces, null to stop tracing
+     */
+    public static void setTraceDirectory(Path directory)
+    {
+        traceDirectory = directory;
+    }
+
+    public static Path getTraceDirectory()
+    {
+        return traceDirectory;
+    }
+
+    public static boolean isTracing()
+    {
+        return traceDirectory != null;
+    }
+
+    public static void reset()
+    {
+        searches.reset();
+        cacheHits.reset();
+        cancellations.reset();
+        noPath.reset();
+        transportsConsidered.reset();
+        transportsUsed.reset();
+        teleportsSeeded.reset();
+        searchMicros.reset();
+        clientWaitMicros.reset();
+        clientThreadMicros.reset();
+        expanded.reset();
+        queuePeak.reset();
+        pathLength.reset();
+        synchronized (RECENT_SEARCHES)
+        {
+            RECENT_SEARCHES.clear();
+        }
+    }
+
+    private static void writeTrace(Path directory, SearchMetrics metrics)
+    {
+        final Path file = directory.resolve(metrics.getTimestamp() + "-" + TRACE_SEQUENCE.incrementAndGet() + ".vtrace");
+        try
+        {
+            Files.createDirectories(directory);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file)))
+            {
+                metrics.getTrace().write(out);
+            }
+        }
+        catch (IOException e)
+        {
+            Logger.error(e, "[Pathfinder] Failed to write search trace: %e");
+        }
+    }
+}
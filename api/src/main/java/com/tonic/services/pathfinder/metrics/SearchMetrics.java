@@ -0,0 +1,75 @@
+package com.tonic.services.pathfinder.metrics;
+
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import com.tonic.services.pathfinder.search.SearchContext;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What one {@link com.tonic.services.pathfinder.Pathfinder} search did and where its time went.
+ *
+ * <p>Filled in by the Pathfinder while it runs and handed to {@link PathfinderMetrics#record} once
+ * it is done, after which it is not changed again. Time on the client thread is split into waiting
+ * for the thread, evaluating transport requirements and collecting teleport starts, so a slow walk
+ * can be blamed on contention, requirements or the search itself.</p>
+ */
+@Getter
+@Setter
+public final class SearchMetrics
+{
+    private final SearchAlgorithm algorithm;
+    private final long timestamp = System.currentTimeMillis();
+
+    private long clientWaitNanos;
+    private long transportRefreshNanos;
+    private long startsNanos;
+    private long searchNanos;
+
+    private int starts;
+    private int teleportsSeeded;
+    private int expanded;
+    private int queuePeak;
+    private int transportsConsidered;
+    private int transportsUsed;
+    private int pathLength;
+    private boolean cacheHit;
+    private boolean cancelled;
+    private SearchTrace trace;
+
+    public SearchMetrics(SearchAlgorithm algorithm)
+    {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Adds the statistics a search context gathered. Called before the context is released, a
+     * search may run in several.
+     */
+    public void add(SearchContext context)
+    {
+        expanded += context.getExpanded();
+        transportsConsidered += context.getTransportsConsidered();
+        queuePeak = Math.max(queuePeak, context.getQueuePeak());
+    }
+
+    /**
+     * @return the time spent on the client thread, requirements and teleports together
+     */
+    public long getClientThreadNanos()
+    {
+        return transportRefreshNanos + startsNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[Pathfinder] %s%s took %d ms (client wait %d ms, transports %d ms, starts %d ms), "
+                        + "%d starts, %d teleports, expanded %d, queue peak %d, transports %d considered %d used, path %d",
+                algorithm, cacheHit ? " (cached)" : cancelled ? " (cancelled)" : "",
+                TimeUnit.NANOSECONDS.toMillis(searchNanos), TimeUnit.NANOSECONDS.toMillis(clientWaitNanos),
+                TimeUnit.NANOSECONDS.toMillis(transportRefreshNanos), TimeUnit.NANOSECONDS.toMillis(startsNanos),
+                starts, teleportsSeeded, expanded, queuePeak, transportsConsidered, transportsUsed, pathLength);
+    }
+}
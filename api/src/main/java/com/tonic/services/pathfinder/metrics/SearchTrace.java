@@ -0,0 +1,230 @@
+package com.tonic.services.pathfinder.metrics;
+
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import com.tonic.util.WorldPointUtil;
+import lombok.Getter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The order a search expanded its tiles in, for replaying and drawing the search offline.
+ *
+ * <p>The binary form is the magic VTRC, a version byte, the {@link SearchAlgorithm} ordinal, the
+ * starts and the targets as counted lists of compressed tiles, then the count of expansions and
+ * each expansion relative to the one before it. An expansion is a varint of the zigzagged x delta
+ * shifted left by one, the low bit set if the plane changed and a byte with the new plane follows,
+ * then a varint of the zigzagged y delta. Consecutive expansions are usually close, so most take
+ * two bytes.</p>
+ */
+public final class SearchTrace
+{
+    public static final int MAGIC = 0x56545243; // VTRC
+    private static final int VERSION = 1;
+    // a runaway search stops being traced here instead of growing without bound
+    private static final int MAX_EXPANSIONS = 10_000_000;
+
+    @Getter
+    private final SearchAlgorithm algorithm;
+    private final int[] starts;
+    private final int[] targets;
+    private int[] expansions = new int[1024];
+    @Getter
+    private int size;
+
+    /**
+     * @param algorithm the engine being traced
+     * @param starts compressed start tiles
+     * @param targets compressed target tiles
+     */
+    public SearchTrace(SearchAlgorithm algorithm, int[] starts, int[] targets)
+    {
+        this.algorithm = algorithm;
+        this.starts = starts.clone();
+        this.targets = targets.clone();
+    }
+
+    /**
+     * Appends an expanded tile. Not thread safe, searches call it from the thread they run on.
+     * @param tile compressed tile
+     */
+    public void add(final int tile)
+    {
+        if (size == expansions.length)
+        {
+            if (size == MAX_EXPANSIONS)
+            {
+                return;
+            }
+            expansions = Arrays.copyOf(expansions, Math.min(size << 1, MAX_EXPANSIONS));
+        }
+        expansions[size++] = tile;
+    }
+
+    public int[] getStarts()
+    {
+        return starts.clone();
+    }
+
+    public int[] getTargets()
+    {
+        return targets.clone();
+    }
+
+    /**
+     * @return the compressed tiles in the order they were expanded
+     */
+    public int[] getExpansions()
+    {
+        return Arrays.copyOf(expansions, size);
+    }
+
+    /**
+     * @param stream where to write the binary form, left open
+     */
+    public void write(OutputStream stream) throws IOException
+    {
+        final DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(algorithm.ordinal());
+        writeTiles(out, starts);
+        writeTiles(out, targets);
+        writeVarInt(out, size);
+        int x = 0;
+        int y = 0;
+        int plane = 0;
+        for (int i = 0; i < size; i++)
+        {
+            final int tile = expansions[i];
+            final int tx = WorldPointUtil.getCompressedX(tile);
+            final int ty = WorldPointUtil.getCompressedY(tile);
+            final int tz = WorldPointUtil.getCompressedPlane(tile);
+            final boolean planeChanged = tz != plane;
+            writeVarInt(out, zigzag(tx - x) << 1 | (planeChanged ? 1 : 0));
+            if (planeChanged)
+            {
+                out.writeByte(tz);
+            }
+            writeVarInt(out, zigzag(ty - y));
+            x = tx;
+            y = ty;
+            plane = tz;
+        }
+        out.flush();
+    }
+
+    /**
+     * @param stream the binary form, left open
+     * @return the trace
+     */
+    public static SearchTrace read(InputStream stream) throws IOException
+    {
+        final DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("Not a search trace");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported search trace version " + version);
+        }
+        final int ordinal = in.readUnsignedByte();
+        if (ordinal >= SearchAlgorithm.values().length)
+        {
+            throw new IOException("Unknown search algorithm " + ordinal);
+        }
+        final SearchAlgorithm algorithm = SearchAlgorithm.values()[ordinal];
+        final SearchTrace trace = new SearchTrace(algorithm, readTiles(in), readTiles(in));
+        final int count = readLength(in);
+        int x = 0;
+        int y = 0;
+        int plane = 0;
+        for (int i = 0; i < count; i++)
+        {
+            final int head = readVarInt(in);
+            x += unzigzag(head >>> 1);
+            if ((head & 1) != 0)
+            {
+                plane = in.readUnsignedByte();
+            }
+            y += unzigzag(readVarInt(in));
+            trace.add(WorldPointUtil.compress(x, y, plane));
+        }
+        return trace;
+    }
+
+    private static void writeTiles(DataOutputStream out, int[] tiles) throws IOException
+    {
+        writeVarInt(out, tiles.length);
+        for (int tile : tiles)
+        {
+            out.writeInt(tile);
+        }
+    }
+
+    private static int[] readTiles(DataInputStream in) throws IOException
+    {
+        final int[] tiles = new int[readLength(in)];
+        for (int i = 0; i < tiles.length; i++)
+        {
+            tiles[i] = in.readInt();
+        }
+        return tiles;
+    }
+
+    private static int readLength(DataInputStream in) throws IOException
+    {
+        final int length = readVarInt(in);
+        if (length < 0)
+        {
+            throw new IOException("Corrupt search trace, length " + length);
+        }
+        return length;
+    }
+
+    private static int zigzag(int value)
+    {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            final int b = in.read();
+            if (b == -1)
+            {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
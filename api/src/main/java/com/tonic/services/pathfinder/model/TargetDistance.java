@@ -0,0 +1,54 @@
+package com.tonic.services.pathfinder.model;
+
+import com.tonic.services.pathfinder.teleports.Teleport;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * The result for one target of a batch distance query.
+ */
+@Getter
+public class TargetDistance
+{
+    /**
+     * Position of the target in the query.
+     */
+    private final int index;
+    /**
+     * The compressed tile the target was reached on, or -1 if it is unreachable.
+     */
+    private final int tile;
+    /**
+     * Path cost in cost model units, or -1 if the target is unreachable.
+     */
+    private final int cost;
+    private final List<Step> path;
+    /**
+     * The teleport the path starts with, or null if it starts at the player.
+     */
+    @Setter
+    private Teleport teleport;
+
+    public TargetDistance(int index, int tile, int cost, List<Step> path)
+    {
+        this.index = index;
+        this.tile = tile;
+        this.cost = cost;
+        this.path = path;
+    }
+
+    public boolean isReachable()
+    {
+        return cost >= 0;
+    }
+
+    /**
+     * @return the first step taken from the path origin, or null if the path has no moves
+     */
+    public Step getFirstStep()
+    {
+        return path.size() > 1 ? path.get(1) : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.tonic.services.pathfinder.requirements;
+
+/**
+ * What a {@link Requirement} reads from the client, as bit flags. A requirement only has to be
+ * checked again after something it depends on has changed.
+ */
+public final class Dependency
+{
+    public static final int VARS = 1;
+    public static final int SKILLS = 1 << 1;
+    public static final int ITEMS = 1 << 2;
+    public static final int QUESTS = 1 << 3;
+    public static final int WORLD = 1 << 4;
+    public static final int ALL = VARS | SKILLS | ITEMS | QUESTS | WORLD;
+
+    private Dependency()
+    {
+    }
+}
@@ -16,7 +16,11 @@ public class ItemRequirement implements Requirement
     int amount;
 
     public ItemRequirement(Boolean equipped, int amount, int... ids) {
-        reduction = Reduction.OR;
+        this(Reduction.OR, equipped, amount, ids);
+    }
+
+    public ItemRequirement(Reduction reduction, Boolean equipped, int amount, int... ids) {
+        this.reduction = reduction;
         this.equipped = equipped;
         this.amount = amount;
         this.ids = new ArrayList<>();
@@ -29,6 +33,11 @@ public class ItemRequirement implements Requirement
         return equipped;
     }
 
+    @Override
+    public int getDependencies() {
+        return Dependency.ITEMS;
+    }
+
     @Override
     public Boolean get()
     {
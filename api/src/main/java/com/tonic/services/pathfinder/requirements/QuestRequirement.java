@@ -32,4 +32,10 @@ public class QuestRequirement implements Requirement
     {
         return states.contains(QuestAPI.getState(quest));
     }
+
+    @Override
+    public int getDependencies()
+    {
+        return Dependency.QUESTS;
+    }
 }
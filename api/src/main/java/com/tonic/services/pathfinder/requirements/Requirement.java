@@ -4,5 +4,11 @@ import java.util.function.Supplier;
 
 public interface Requirement extends Supplier<Boolean>
 {
-
+    /**
+     * @return the {@link Dependency} flags of what this requirement reads, everything if unknown
+     */
+    default int getDependencies()
+    {
+        return Dependency.ALL;
+    }
 }
\ No newline at end of file
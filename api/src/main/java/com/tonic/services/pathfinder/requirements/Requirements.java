@@ -30,9 +30,32 @@ public class Requirements
 
     public boolean fulfilled()
     {
+        return fulfilled(itemRequirements)
+                && fulfilled(skillRequirements)
+                && fulfilled(varRequirements)
+                && fulfilled(questRequirements)
+                && fulfilled(worldRequirements)
+                && fulfilled(otherRequirements);
+    }
+
+    /**
+     * @return the {@link Dependency} flags of every requirement combined
+     */
+    public int getDependencies()
+    {
+        int dependencies = 0;
         for(Requirement req : getAll())
         {
-            if(!req.get())
+            dependencies |= req.getDependencies();
+        }
+        return dependencies;
+    }
+
+    private static boolean fulfilled(List<? extends Requirement> reqs)
+    {
+        for(int i = 0; i < reqs.size(); i++)
+        {
+            if(!reqs.get(i).get())
             {
                 return false;
             }
@@ -17,5 +17,11 @@ public class SkillRequirement implements Requirement
         Client client = Static.getClient();
         return client.getRealSkillLevel(skill) >= level;
     }
+
+    @Override
+    public int getDependencies()
+    {
+        return Dependency.SKILLS;
+    }
 }
 
@@ -15,4 +15,10 @@ public class VarRequirement implements Requirement
     {
         return comparison.apply(type.apply(var), value);
     }
+
+    @Override
+    public int getDependencies()
+    {
+        return Dependency.VARS;
+    }
 }
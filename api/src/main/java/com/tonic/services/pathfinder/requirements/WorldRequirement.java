@@ -13,4 +13,10 @@ public class WorldRequirement implements Requirement
     {
         return !memberWorld || WorldsAPI.inMembersWorld();
     }
+
+    @Override
+    public int getDependencies()
+    {
+        return Dependency.WORLD;
+    }
 }
\ No newline at end of file
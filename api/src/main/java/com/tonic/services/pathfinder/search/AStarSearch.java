@@ -0,0 +1,486 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.collections.IntMinHeap;
+import com.tonic.services.pathfinder.collections.StampedIntMap;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.collision.Flags;
+import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TIntHashSet;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A* search over the global collision map with optional jump point pruning.
+ *
+ * <p>The heuristic is the Chebyshev distance to the bounding box of the targets, capped by the
+ * cheapest way any transport could land the player near a target. The cap keeps the heuristic
+ * admissible and consistent even though transports jump across the map.</p>
+ *
+ * <p>With jump points enabled, nodes are only pushed to the open list where something can change:
+ * tiles with a forced neighbour, where a wall opens up or ends, transport sources, targets and the
+ * ends of long runs. Tiles in between are skipped and re-created when the path is rebuilt.</p>
+ */
+public class AStarSearch
+{
+    private static final int MAX_VISITED = 10_000_000;
+    private static final int MAX_JUMP = 256;
+    private static final int MAP_WIDTH = 8192;
+    private static final int MAP_HEIGHT = 32768;
+    static final int INF = 1 << 29;
+    static final int NO_PARENT = -1;
+
+    static final byte START = -1;
+    // arrivals from TRANSPORT on are transports, the edge number in the TransportIndex added on top
+    private static final int TRANSPORT = 8;
+
+    // direction index i has the movement bit (1 << i) in CollisionMap#all()
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+    private static final int[] HORIZONTAL = {3, -1, 4, -1, -1, 3, -1, 4};
+    private static final int[] VERTICAL = {1, -1, 1, -1, -1, 6, -1, 6};
+
+    private final CollisionMap collisionMap;
+    private final LocalCollisionMap localMap;
+    private final TransportIndex transports;
+    private final CostModel costModel;
+    private final boolean jumpPoints;
+    private final int stepCost;
+
+    private final TIntHashSet blacklist = new TIntHashSet();
+    private final TIntHashSet nearBlacklist = new TIntHashSet();
+    private final StampedIntMap costs;
+    private final StampedIntMap parents;
+    private final StampedIntMap arrivals;
+    private final IntMinHeap open;
+    private final SearchContext context;
+
+    private TIntHashSet targets;
+    private int minX, minY, maxX, maxY, targetPlanes;
+    private int viaTransport;
+    @Getter
+    private int expanded;
+
+    /**
+     * @param collisionMap the global collision map
+     * @param localMap the scene collision map for instanced tiles, or null when not in an instance
+     * @param transports the usable transports indexed by their source tile
+     * @param costModel prices steps, transports and teleports
+     * @param jumpPoints true to enable jump point pruning
+     */
+    public AStarSearch(CollisionMap collisionMap, LocalCollisionMap localMap, TransportIndex transports, CostModel costModel, boolean jumpPoints)
+    {
+        this(collisionMap, localMap, transports, costModel, jumpPoints, new SearchContext());
+    }
+
+    /**
+     * @param collisionMap the global collision map
+     * @param localMap the scene collision map for instanced tiles, or null when not in an instance
+     * @param transports the usable transports indexed by their source tile
+     * @param costModel prices steps, transports and teleports
+     * @param jumpPoints true to enable jump point pruning
+     * @param context the buffers to search with, usually borrowed from {@link SearchContext#acquire()}
+     */
+    public AStarSearch(CollisionMap collisionMap, LocalCollisionMap localMap, TransportIndex transports, CostModel costModel, boolean jumpPoints, SearchContext context)
+    {
+        this.costs = context.getCosts();
+        this.parents = context.getParents();
+        this.arrivals = context.getArrivals();
+        this.open = context.getOpen();
+        this.context = context;
+        this.collisionMap = collisionMap;
+        this.localMap = localMap;
+        this.transports = transports;
+        this.costModel = costModel;
+        this.jumpPoints = jumpPoints;
+        this.stepCost = costModel.stepCost();
+    }
+
+    /**
+     * Tiles that may never be entered.
+     * @param tiles compressed tiles
+     */
+    public void setBlacklist(Collection<Integer> tiles)
+    {
+        blacklist.clear();
+        nearBlacklist.clear();
+        for (int tile : tiles)
+        {
+            blacklist.add(tile);
+            for (int dx = -1; dx <= 1; dx++)
+            {
+                for (int dy = -1; dy <= 1; dy++)
+                {
+                    nearBlacklist.add(WorldPointUtil.dxy(tile, dx, dy));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the cheapest path from any of the starts to any of the targets.
+     * @param starts compressed start tiles
+     * @param startCosts the cost already paid to stand on each start tile
+     * @param goals compressed target tiles
+     * @return the path, or an empty list if no target can be reached
+     */
+    public List<Step> search(final int[] starts, final int[] startCosts, final int[] goals)
+    {
+        if (goals.length == 0)
+        {
+            return new ArrayList<>();
+        }
+        costs.clear();
+        parents.clear();
+        arrivals.clear();
+        open.clear();
+        expanded = 0;
+        targets = new TIntHashSet(goals);
+        computeTargetBounds(goals);
+        viaTransport = transportBound();
+
+        for (int i = 0; i < starts.length; i++)
+        {
+            if (!blacklist.contains(starts[i]))
+            {
+                push(NO_PARENT, starts[i], startCosts[i], START);
+            }
+        }
+
+        while (!open.isEmpty())
+        {
+            final int node = open.poll();
+            final int g = INF - (int) (open.lastKey() & 0xFFFFFFFFL);
+            if (g != costs.get(node))
+            {
+                continue;
+            }
+            if (targets.contains(node))
+            {
+                Logger.info("Nodes visited: " + costs.size() + ", expanded: " + expanded);
+                return path(node);
+            }
+            if (costs.size() > MAX_VISITED || context.isCancelled())
+            {
+                return new ArrayList<>();
+            }
+            expanded++;
+            context.expanded(node);
+            expand(node, g);
+        }
+        return new ArrayList<>();
+    }
+
+    private void expand(final int node, final int g)
+    {
+        final short x = WorldPointUtil.getCompressedX(node);
+        final short y = WorldPointUtil.getCompressedY(node);
+        final byte z = WorldPointUtil.getCompressedPlane(node);
+        final int arrival = arrivals.get(node);
+        final byte flags = mask(x, y, z);
+
+        if (jumpPoints && arrival >= 0 && arrival < TRANSPORT
+                && !hasForcedNeighbour(x, y, z, arrival, mask(x - DX[arrival], y - DY[arrival], z), flags))
+        {
+            // only the natural successors of the direction we arrived from
+            jump(node, x, y, z, g, arrival);
+            if (HORIZONTAL[arrival] != -1)
+            {
+                jump(node, x, y, z, g, HORIZONTAL[arrival]);
+                jump(node, x, y, z, g, VERTICAL[arrival]);
+            }
+        }
+        else
+        {
+            for (int d = 0; d < 8; d++)
+            {
+                if ((flags & (1 << d)) == 0)
+                {
+                    continue;
+                }
+                if (jumpPoints)
+                {
+                    jump(node, x, y, z, g, d);
+                }
+                else
+                {
+                    push(node, WorldPointUtil.compress(x + DX[d], y + DY[d], z), g + stepCost, (byte) d);
+                }
+            }
+        }
+
+        final int row = transports.row(node);
+        if (row != TransportIndex.NO_ROW)
+        {
+            context.consideredTransports(transports.end(row) - transports.start(row));
+            for (int edge = transports.start(row), end = transports.end(row); edge < end; edge++)
+            {
+                push(node, transports.destination(edge), g + costModel.transportCost(transports.transport(edge)), TRANSPORT + edge);
+            }
+        }
+    }
+
+    private void jump(final int node, final int x, final int y, final int z, final int g, final int d)
+    {
+        final int jumpPoint = scan(x, y, z, d, MAX_JUMP);
+        if (jumpPoint == NO_PARENT)
+        {
+            return;
+        }
+        final int distance = Math.max(Math.abs(WorldPointUtil.getCompressedX(jumpPoint) - x), Math.abs(WorldPointUtil.getCompressedY(jumpPoint) - y));
+        push(node, jumpPoint, g + distance * stepCost, (byte) d);
+    }
+
+    /**
+     * Walks from (x, y) in direction d until reaching a tile that has to be expanded: a target, a
+     * transport, a tile with a forced neighbour or, on a diagonal, a tile whose straight runs reach
+     * one of those. Runs along walls do not stop, only where a wall opens up or ends.
+     * @param limit the most tiles to walk, the tile reached then is returned as a jump point
+     * @return the compressed jump point, or -1 if the run hits a wall or the edge of the map first
+     */
+    private int scan(int x, int y, final int z, final int d, final int limit)
+    {
+        final int dx = DX[d];
+        final int dy = DY[d];
+        final boolean diagonal = HORIZONTAL[d] != -1;
+        byte flags = mask(x, y, z);
+        int steps = 0;
+        while ((flags & (1 << d)) != 0)
+        {
+            x += dx;
+            y += dy;
+            if (x < 0 || x >= MAP_WIDTH || y < 0 || y >= MAP_HEIGHT)
+            {
+                return NO_PARENT;
+            }
+            final int next = WorldPointUtil.compress(x, y, z);
+            if (blacklist.contains(next))
+            {
+                return NO_PARENT;
+            }
+            if (targets.contains(next) || transports.contains(next) || ++steps >= limit)
+            {
+                return next;
+            }
+            final byte previous = flags;
+            flags = mask(x, y, z);
+            if (hasForcedNeighbour(x, y, z, d, previous, flags))
+            {
+                return next;
+            }
+            // the straight runs of a diagonal only stop it for what they would stop at themselves,
+            // a run that ends at a wall found nothing the next diagonal tile does not reach as cheaply
+            if (diagonal && (scan(x, y, z, HORIZONTAL[d], Integer.MAX_VALUE) != NO_PARENT
+                    || scan(x, y, z, VERTICAL[d], Integer.MAX_VALUE) != NO_PARENT))
+            {
+                return next;
+            }
+        }
+        return NO_PARENT;
+    }
+
+    /**
+     * A neighbour of (x, y), entered in direction d, is forced when it is not a natural successor
+     * of d and (x, y) is the only way to reach it from the previous tile in two steps. Those are
+     * the neighbours pruning would lose, a tile that has one is expanded in full.
+     * @param previous the movement mask of the previous tile
+     * @param flags the movement mask of (x, y)
+     */
+    private boolean hasForcedNeighbour(final int x, final int y, final int z, final int d, final byte previous, final byte flags)
+    {
+        // stepping between two tiles that can move everywhere forces nothing, the collision
+        // maps only allow a diagonal when both tiles it passes can be crossed. The scene map
+        // of instances is not held to that, so neither is any tile next to one.
+        if (previous == Flags.ALL && flags == Flags.ALL && !LocalCollisionMap.isInstanced(x + 1) && !nearBlacklist.contains(WorldPointUtil.compress(x, y, z)))
+        {
+            return false;
+        }
+        final int px = x - DX[d];
+        final int py = y - DY[d];
+        for (int e = 0; e < 8; e++)
+        {
+            if (e == d || e == HORIZONTAL[d] || e == VERTICAL[d] || (flags & (1 << e)) == 0)
+            {
+                continue;
+            }
+            final int sx = x + DX[e];
+            final int sy = y + DY[e];
+            if (!blacklist.contains(WorldPointUtil.compress(sx, sy, z)) && !reachableAround(px, py, previous, sx, sy, x, y, z))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether (sx, sy) is at most two steps from (px, py) without passing (x, y)
+     */
+    private boolean reachableAround(final int px, final int py, final byte previous, final int sx, final int sy, final int x, final int y, final int z)
+    {
+        if (sx == px && sy == py)
+        {
+            return true;
+        }
+        for (int e = 0; e < 8; e++)
+        {
+            if ((previous & (1 << e)) == 0)
+            {
+                continue;
+            }
+            final int wx = px + DX[e];
+            final int wy = py + DY[e];
+            if (wx == sx && wy == sy)
+            {
+                return true;
+            }
+            if ((wx == x && wy == y) || Math.abs(sx - wx) > 1 || Math.abs(sy - wy) > 1
+                    || blacklist.contains(WorldPointUtil.compress(wx, wy, z)))
+            {
+                continue;
+            }
+            if ((mask(wx, wy, z) & (1 << direction(sx - wx, sy - wy))) != 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int direction(final int dx, final int dy)
+    {
+        for (int d = 0; d < 8; d++)
+        {
+            if (DX[d] == dx && DY[d] == dy)
+            {
+                return d;
+            }
+        }
+        throw new IllegalArgumentException(dx + ", " + dy);
+    }
+
+    private byte mask(final int x, final int y, final int z)
+    {
+        if (LocalCollisionMap.isInstanced(x))
+        {
+            return localMap != null ? localMap.all((short) x, (short) y, (byte) z) : Flags.NONE;
+        }
+        return collisionMap.all((short) x, (short) y, (byte) z);
+    }
+
+    private void push(final int parent, final int node, final int g, final int arrival)
+    {
+        if (g >= costs.get(node) || blacklist.contains(node))
+        {
+            return;
+        }
+        final int h = heuristic(node);
+        if (h >= INF)
+        {
+            return;
+        }
+        costs.put(node, g);
+        parents.put(node, parent);
+        arrivals.put(node, arrival);
+        open.push(((long) (g + h) << 32) | (INF - g), node);
+    }
+
+    private int heuristic(final int node)
+    {
+        int best = viaTransport;
+        if ((targetPlanes & (1 << WorldPointUtil.getCompressedPlane(node))) != 0)
+        {
+            final int walk = distanceToTargets(WorldPointUtil.getCompressedX(node), WorldPointUtil.getCompressedY(node)) * stepCost;
+            if (walk < best)
+            {
+                best = walk;
+            }
+        }
+        return best;
+    }
+
+    private int distanceToTargets(final int x, final int y)
+    {
+        final int dx = Math.max(0, Math.max(minX - x, x - maxX));
+        final int dy = Math.max(0, Math.max(minY - y, y - maxY));
+        return Math.max(dx, dy);
+    }
+
+    private void computeTargetBounds(final int[] goals)
+    {
+        minX = minY = Integer.MAX_VALUE;
+        maxX = maxY = Integer.MIN_VALUE;
+        targetPlanes = 0;
+        for (int goal : goals)
+        {
+            final int x = WorldPointUtil.getCompressedX(goal);
+            final int y = WorldPointUtil.getCompressedY(goal);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            targetPlanes |= 1 << WorldPointUtil.getCompressedPlane(goal);
+        }
+    }
+
+    /**
+     * Lower bound for every path whose last leg starts at a transport destination.
+     */
+    private int transportBound()
+    {
+        int best = INF;
+        for (int edge = 0; edge < transports.edgeCount(); edge++)
+        {
+            final int destination = transports.destination(edge);
+            if ((targetPlanes & (1 << WorldPointUtil.getCompressedPlane(destination))) == 0)
+            {
+                continue;
+            }
+            final int cost = costModel.transportCost(transports.transport(edge)) + distanceToTargets(WorldPointUtil.getCompressedX(destination), WorldPointUtil.getCompressedY(destination)) * stepCost;
+            if (cost < best)
+            {
+                best = cost;
+            }
+        }
+        return best;
+    }
+
+    private List<Step> path(int node)
+    {
+        final TIntArrayList chain = new TIntArrayList();
+        while (node != NO_PARENT)
+        {
+            chain.add(node);
+            node = parents.get(node);
+        }
+
+        final List<Step> path = new ArrayList<>();
+        for (int i = chain.size() - 1; i > 0; i--)
+        {
+            final int from = chain.get(i);
+            final int to = chain.get(i - 1);
+            final int arrival = arrivals.get(to);
+            if (arrival >= TRANSPORT)
+            {
+                path.add(new Step(from, transports.transport(arrival - TRANSPORT)));
+                continue;
+            }
+            final int length = Math.max(Math.abs(WorldPointUtil.getCompressedX(to) - WorldPointUtil.getCompressedX(from)), Math.abs(WorldPointUtil.getCompressedY(to) - WorldPointUtil.getCompressedY(from)));
+            int position = from;
+            for (int s = 0; s < length; s++)
+            {
+                path.add(new Step(position, null));
+                position = WorldPointUtil.dxy(position, DX[arrival], DY[arrival]);
+            }
+        }
+        path.add(new Step(chain.get(0), null));
+        return path;
+    }
+}
@@ -0,0 +1,222 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.collections.BFSCache;
+import com.tonic.services.pathfinder.collections.IntMinHeap;
+import com.tonic.services.pathfinder.collections.StampedIntMap;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.collision.Flags;
+import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.set.hash.TIntHashSet;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bidirectional Dijkstra between the starts and the targets.
+ *
+ * <p>One frontier grows forward from the player and teleport destinations, the other backward
+ * from the targets, and the search ends once no path through the two frontiers can beat the best
+ * meeting point found so far. Walking moves are symmetric, so the backward side expands the same
+ * neighbours. Transports are followed backward through the index keyed by destination.</p>
+ */
+public class BidirectionalSearch
+{
+    private static final int MAX_VISITED = 10_000_000;
+    private static final int INF = AStarSearch.INF;
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+
+    private final CollisionMap collisionMap;
+    private final LocalCollisionMap localMap;
+    private final TransportIndex transports;
+    private final TransportIndex reverseTransports;
+    private final CostModel costModel;
+    private final int stepCost;
+    private final TIntHashSet blacklist = new TIntHashSet();
+
+    private final Side forward;
+    private final Side backward;
+    private int best;
+    private int meet;
+    @Getter
+    private int expanded;
+
+    /**
+     * @param collisionMap the global collision map
+     * @param localMap the scene collision map for instanced tiles, or null when not in an instance
+     * @param transports the usable transports indexed by source
+     * @param reverseTransports the same transports indexed by destination
+     * @param costModel prices steps and transports
+     * @param forwardContext buffers for the forward half
+     * @param backwardContext buffers for the backward half
+     */
+    public BidirectionalSearch(CollisionMap collisionMap, LocalCollisionMap localMap, TransportIndex transports,
+                               TransportIndex reverseTransports, CostModel costModel,
+                               SearchContext forwardContext, SearchContext backwardContext)
+    {
+        this.collisionMap = collisionMap;
+        this.localMap = localMap;
+        this.transports = transports;
+        this.reverseTransports = reverseTransports;
+        this.costModel = costModel;
+        this.stepCost = costModel.stepCost();
+        this.forward = new Side(forwardContext);
+        this.backward = new Side(backwardContext);
+    }
+
+    /**
+     * Tiles that may never be entered.
+     * @param tiles compressed tiles
+     */
+    public void setBlacklist(Collection<Integer> tiles)
+    {
+        blacklist.clear();
+        for (int tile : tiles)
+        {
+            blacklist.add(tile);
+        }
+    }
+
+    /**
+     * Finds the cheapest path from any of the starts to any of the targets.
+     * @param starts compressed start tiles
+     * @param startCosts the cost already paid to stand on each start tile
+     * @param goals compressed target tiles
+     * @return the path, or an empty list if no target can be reached
+     */
+    public List<Step> search(final int[] starts, final int[] startCosts, final int[] goals)
+    {
+        best = INF;
+        meet = -1;
+        expanded = 0;
+        for (int i = 0; i < starts.length; i++)
+        {
+            forward.relax(-1, starts[i], startCosts[i], BFSCache.NO_EDGE, backward);
+        }
+        for (int goal : goals)
+        {
+            backward.relax(-1, goal, 0, BFSCache.NO_EDGE, forward);
+        }
+
+        while (!forward.open.isEmpty() && !backward.open.isEmpty())
+        {
+            if (forward.topKey() + backward.topKey() >= best)
+            {
+                break;
+            }
+            if (forward.costs.size() + backward.costs.size() > MAX_VISITED || forward.context.isCancelled() || backward.context.isCancelled())
+            {
+                return new ArrayList<>();
+            }
+            if (forward.open.size() <= backward.open.size())
+            {
+                expand(forward, backward, transports);
+            }
+            else
+            {
+                expand(backward, forward, reverseTransports);
+            }
+        }
+
+        if (meet == -1)
+        {
+            return new ArrayList<>();
+        }
+        Logger.info("Nodes visited: " + (forward.costs.size() + backward.costs.size()) + ", expanded: " + expanded);
+        return forward.parents.path(meet, transports, backward.parents, reverseTransports);
+    }
+
+    private void expand(final Side side, final Side other, final TransportIndex edges)
+    {
+        final int node = side.open.poll();
+        final int g = (int) side.open.lastKey();
+        if (g != side.costs.get(node))
+        {
+            return;
+        }
+        expanded++;
+        side.context.expanded(node);
+
+        final short x = WorldPointUtil.getCompressedX(node);
+        final short y = WorldPointUtil.getCompressedY(node);
+        final byte z = WorldPointUtil.getCompressedPlane(node);
+        final byte flags = mask(x, y, z);
+        if (flags != Flags.NONE)
+        {
+            for (int d = 0; d < 8; d++)
+            {
+                if ((flags & (1 << d)) != 0)
+                {
+                    side.relax(node, WorldPointUtil.compress(x + DX[d], y + DY[d], z), g + stepCost, BFSCache.NO_EDGE, other);
+                }
+            }
+        }
+
+        final int row = edges.row(node);
+        if (row != TransportIndex.NO_ROW)
+        {
+            side.context.consideredTransports(edges.end(row) - edges.start(row));
+            for (int edge = edges.start(row), end = edges.end(row); edge < end; edge++)
+            {
+                side.relax(node, edges.destination(edge), g + costModel.transportCost(edges.transport(edge)), edge, other);
+            }
+        }
+    }
+
+    private byte mask(final int x, final int y, final int z)
+    {
+        if (LocalCollisionMap.isInstanced(x))
+        {
+            return localMap != null ? localMap.all((short) x, (short) y, (byte) z) : Flags.NONE;
+        }
+        return collisionMap.all((short) x, (short) y, (byte) z);
+    }
+
+    /**
+     * One half of the search. Parents point towards the side's own seeds.
+     */
+    private final class Side
+    {
+        private final SearchContext context;
+        private final StampedIntMap costs;
+        private final BFSCache parents;
+        private final IntMinHeap open;
+
+        Side(SearchContext context)
+        {
+            this.context = context;
+            this.costs = context.getCosts();
+            this.parents = context.getVisited();
+            this.open = context.getOpen();
+        }
+
+        long topKey()
+        {
+            return open.peekKey();
+        }
+
+        void relax(final int parent, final int node, final int g, final int edge, final Side other)
+        {
+            if (g >= costs.get(node) || blacklist.contains(node))
+            {
+                return;
+            }
+            costs.put(node, g);
+            parents.set(node, parent, edge);
+            open.push(g, node);
+
+            final int across = other.costs.get(node);
+            if (across != INF && g + across < best)
+            {
+                best = g + across;
+                meet = node;
+            }
+        }
+    }
+}
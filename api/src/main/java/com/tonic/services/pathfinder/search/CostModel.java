@@ -0,0 +1,33 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.services.pathfinder.teleports.Teleport;
+import com.tonic.services.pathfinder.transports.Transport;
+
+/**
+ * Prices the edges of the cost based search engines. All costs share one unit and must
+ * never be negative. The A* heuristic assumes no tile step is cheaper than {@link #stepCost()}.
+ */
+public interface CostModel
+{
+    /**
+     * The default model, see {@link TickCostModel}.
+     */
+    CostModel DEFAULT = new TickCostModel();
+
+    /**
+     * @return The cost of walking a single tile in any of the 8 directions.
+     */
+    int stepCost();
+
+    /**
+     * @param transport The transport being taken.
+     * @return The cost of taking the transport from its source to its destination.
+     */
+    int transportCost(Transport transport);
+
+    /**
+     * @param teleport The teleport being used.
+     * @return The cost of arriving at the teleport destination from the player's position.
+     */
+    int teleportCost(Teleport teleport);
+}
@@ -0,0 +1,227 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.collections.BFSCache;
+import com.tonic.services.pathfinder.collections.IntMinHeap;
+import com.tonic.services.pathfinder.collections.StampedIntMap;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.collision.Flags;
+import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.model.TargetDistance;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One to many Dijkstra that prices every target of a batch in a single expansion.
+ *
+ * <p>Each target is a group of tiles, a single point or every tile of an area, and is settled
+ * the first time any of its tiles leaves the open list. The search keeps going until every group
+ * is settled or the reachable graph is exhausted, so answering "which of these is closest" costs
+ * one search instead of one per candidate.</p>
+ */
+public class DistanceSearch
+{
+    private static final int MAX_VISITED = 10_000_000;
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+
+    private final CollisionMap collisionMap;
+    private final LocalCollisionMap localMap;
+    private final TransportIndex transports;
+    private final CostModel costModel;
+    private final int stepCost;
+    private final TIntHashSet blacklist = new TIntHashSet();
+
+    private final StampedIntMap costs;
+    private final BFSCache parents;
+    private final IntMinHeap open;
+    private final SearchContext context;
+
+    // tile -> first (tile, group) pair, chained through pairNext
+    private final TIntIntHashMap pairHead = new TIntIntHashMap(64, 0.5f, -1, -1);
+    private int[] pairGroup;
+    private int[] pairNext;
+    @Getter
+    private int expanded;
+
+    /**
+     * @param collisionMap the global collision map
+     * @param localMap the scene collision map for instanced tiles, or null when not in an instance
+     * @param transports the usable transports indexed by their source tile
+     * @param costModel prices steps and transports
+     * @param context the buffers to search with, usually borrowed from {@link SearchContext#acquire()}
+     */
+    public DistanceSearch(CollisionMap collisionMap, LocalCollisionMap localMap, TransportIndex transports,
+                          CostModel costModel, SearchContext context)
+    {
+        this.collisionMap = collisionMap;
+        this.localMap = localMap;
+        this.transports = transports;
+        this.costModel = costModel;
+        this.stepCost = costModel.stepCost();
+        this.costs = context.getCosts();
+        this.parents = context.getVisited();
+        this.open = context.getOpen();
+        this.context = context;
+    }
+
+    /**
+     * Tiles that may never be entered.
+     * @param tiles compressed tiles
+     */
+    public void setBlacklist(Collection<Integer> tiles)
+    {
+        blacklist.clear();
+        for (int tile : tiles)
+        {
+            blacklist.add(tile);
+        }
+    }
+
+    /**
+     * Prices every target group from the cheapest of the starts.
+     * @param starts compressed start tiles
+     * @param startCosts the cost already paid to stand on each start tile
+     * @param groups one array of compressed tiles per target
+     * @return one result per group, in the order of {@code groups}
+     */
+    public TargetDistance[] search(final int[] starts, final int[] startCosts, final int[][] groups)
+    {
+        costs.clear();
+        parents.clear();
+        open.clear();
+        expanded = 0;
+
+        final TargetDistance[] results = new TargetDistance[groups.length];
+        int remaining = index(groups);
+
+        for (int i = 0; i < starts.length; i++)
+        {
+            relax(-1, starts[i], startCosts[i], BFSCache.NO_EDGE);
+        }
+
+        while (remaining > 0 && !open.isEmpty())
+        {
+            final int node = open.poll();
+            final int g = (int) open.lastKey();
+            if (g != costs.get(node))
+            {
+                continue;
+            }
+            for (int pair = pairHead.get(node); pair != -1; pair = pairNext[pair])
+            {
+                final int group = pairGroup[pair];
+                if (results[group] == null)
+                {
+                    results[group] = new TargetDistance(group, node, g, parents.path(node, transports));
+                    remaining--;
+                }
+            }
+            if (costs.size() > MAX_VISITED || context.isCancelled())
+            {
+                break;
+            }
+            expanded++;
+            context.expanded(node);
+            expand(node, g);
+        }
+
+        Logger.info("Nodes visited: " + costs.size() + ", expanded: " + expanded + ", unreached targets: " + remaining);
+        for (int i = 0; i < results.length; i++)
+        {
+            if (results[i] == null)
+            {
+                results[i] = new TargetDistance(i, -1, -1, Collections.emptyList());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Builds the tile to group chains.
+     * @return the number of groups that have at least one tile
+     */
+    private int index(final int[][] groups)
+    {
+        pairHead.clear();
+        int pairs = 0;
+        for (int[] group : groups)
+        {
+            pairs += group.length;
+        }
+        pairGroup = new int[pairs];
+        pairNext = new int[pairs];
+
+        int pair = 0;
+        int count = 0;
+        for (int g = 0; g < groups.length; g++)
+        {
+            if (groups[g].length > 0)
+            {
+                count++;
+            }
+            for (int tile : groups[g])
+            {
+                pairGroup[pair] = g;
+                pairNext[pair] = pairHead.put(tile, pair);
+                pair++;
+            }
+        }
+        return count;
+    }
+
+    private void expand(final int node, final int g)
+    {
+        final short x = WorldPointUtil.getCompressedX(node);
+        final short y = WorldPointUtil.getCompressedY(node);
+        final byte z = WorldPointUtil.getCompressedPlane(node);
+        final byte flags = mask(x, y, z);
+        if (flags != Flags.NONE)
+        {
+            for (int d = 0; d < 8; d++)
+            {
+                if ((flags & (1 << d)) != 0)
+                {
+                    relax(node, WorldPointUtil.compress(x + DX[d], y + DY[d], z), g + stepCost, BFSCache.NO_EDGE);
+                }
+            }
+        }
+
+        final int row = transports.row(node);
+        if (row != TransportIndex.NO_ROW)
+        {
+            context.consideredTransports(transports.end(row) - transports.start(row));
+            for (int edge = transports.start(row), end = transports.end(row); edge < end; edge++)
+            {
+                relax(node, transports.destination(edge), g + costModel.transportCost(transports.transport(edge)), edge);
+            }
+        }
+    }
+
+    private byte mask(final int x, final int y, final int z)
+    {
+        if (LocalCollisionMap.isInstanced(x))
+        {
+            return localMap != null ? localMap.all((short) x, (short) y, (byte) z) : Flags.NONE;
+        }
+        return collisionMap.all((short) x, (short) y, (byte) z);
+    }
+
+    private void relax(final int parent, final int node, final int g, final int edge)
+    {
+        if (g >= costs.get(node) || blacklist.contains(node))
+        {
+            return;
+        }
+        costs.put(node, g);
+        parents.set(node, parent, edge);
+        open.push(g, node);
+    }
+}
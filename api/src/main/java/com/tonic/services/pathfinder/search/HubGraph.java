@@ -0,0 +1,739 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.collections.IntMinHeap;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.collision.Properties;
+import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.transports.Transport;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import com.tonic.services.pathfinder.transports.TransportLoader;
+import com.tonic.util.ThreadPool;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Region level abstract graph for long range routing.
+ *
+ * <p>The map is cut into 64x64 regions. Nodes are transport endpoints plus one portal tile on each
+ * side of every open stretch of a region border, edges are the walking distance between nodes of
+ * the same region, portal crossings and transports. A query searches this graph and then expands
+ * each abstract edge back into tiles with short searches that never leave the neighbourhood.</p>
+ *
+ * <p>The graph is built from every transport regardless of requirements. Which transport edges are
+ * usable is decided per query from the already filtered {@link TransportLoader#getTransports()}, so
+ * one account's unlocks are never baked in.</p>
+ */
+public class HubGraph
+{
+    private static final int REGION_SHIFT = 6;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int REGION_MASK = REGION_SIZE - 1;
+    private static final int MAX_REGIONS = 40_000;
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int WALK = -1;
+
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+
+    private static volatile HubGraph instance;
+    private static final AtomicBoolean building = new AtomicBoolean();
+
+    private final CollisionMap collisionMap;
+    private final TIntHashSet blacklist = new TIntHashSet();
+    private final TIntHashSet regions = new TIntHashSet();
+    private final TIntIntHashMap tileToNode = new TIntIntHashMap(50_000, 0.5f, -1, -1);
+    private final TIntArrayList nodeTiles = new TIntArrayList();
+    private final TIntObjectHashMap<TIntArrayList> regionNodes = new TIntObjectHashMap<>();
+    private final int[] transportSources;
+    private final int[] transportDestinations;
+
+    private int[] edgeStart;
+    private int[] edgeTarget;
+    private int[] edgeLength;
+    private int[] edgeTransport;
+
+    /**
+     * Returns the shared graph, or null while it is still being built. The first call starts the
+     * build on a background thread. Portals and walking edges avoid the blacklisted tiles, so a
+     * graph built for another blacklist is dropped and built again.
+     * @param collisionMap the global collision map
+     * @return the graph or null
+     */
+    public static HubGraph get(final CollisionMap collisionMap)
+    {
+        HubGraph graph = instance;
+        if (graph != null && !graph.blacklist.equals(new TIntHashSet(Properties.getBlacklist())))
+        {
+            Logger.info("[HubGraph] Blacklist changed, rebuilding");
+            instance = null;
+            graph = null;
+        }
+        if (graph == null && collisionMap != null && building.compareAndSet(false, true))
+        {
+            ThreadPool.submit(() -> {
+                try
+                {
+                    final long start = System.currentTimeMillis();
+                    final HubGraph built = new HubGraph(collisionMap, TransportLoader.buildUnfilteredTransports(), Properties.getBlacklist());
+                    instance = built;
+                    Logger.info("[HubGraph] Built " + built.nodeTiles.size() + " nodes, " + built.edgeTarget.length + " edges over "
+                            + built.regions.size() + " regions in " + (System.currentTimeMillis() - start) + "ms");
+                }
+                catch (Exception e)
+                {
+                    Logger.error(e, "[HubGraph] Failed to build: %e");
+                }
+                finally
+                {
+                    building.set(false);
+                }
+            });
+        }
+        return graph;
+    }
+
+    /**
+     * Builds the shared graph on the calling thread from the given transports instead of the
+     * client's, for offline tooling such as the benchmarks.
+     * @param collisionMap the global collision map
+     * @param transports every transport, requirements ignored
+     */
+    public static void build(final CollisionMap collisionMap, final TIntObjectHashMap<ArrayList<Transport>> transports)
+    {
+        instance = new HubGraph(collisionMap, transports, Properties.getBlacklist());
+    }
+
+    /**
+     * Drops the shared graph, the next {@link #get(CollisionMap)} rebuilds it.
+     */
+    public static void invalidate()
+    {
+        instance = null;
+    }
+
+    private HubGraph(CollisionMap collisionMap, TIntObjectHashMap<ArrayList<Transport>> transports, Collection<Integer> blacklist)
+    {
+        this.collisionMap = collisionMap;
+        this.blacklist.addAll(blacklist);
+
+        final TIntArrayList from = new TIntArrayList();
+        final TIntArrayList to = new TIntArrayList();
+        final TIntArrayList length = new TIntArrayList();
+        final TIntArrayList transport = new TIntArrayList();
+
+        // transport edges, one per distinct source and destination pair
+        final TLongHashSet pairs = new TLongHashSet();
+        final TIntArrayList sources = new TIntArrayList();
+        final TIntArrayList destinations = new TIntArrayList();
+        transports.forEachValue(list -> {
+            for (Transport t : list)
+            {
+                if (isInstance(t.getSource()) || isInstance(t.getDestination()))
+                {
+                    continue;
+                }
+                if (pairs.add(((long) t.getSource() << 32) | (t.getDestination() & 0xFFFFFFFFL)))
+                {
+                    from.add(node(t.getSource()));
+                    to.add(node(t.getDestination()));
+                    length.add(0);
+                    transport.add(sources.size());
+                    sources.add(t.getSource());
+                    destinations.add(t.getDestination());
+                }
+            }
+            return true;
+        });
+        transportSources = sources.toArray();
+        transportDestinations = destinations.toArray();
+
+        // flood regions outwards from the transport endpoints through their open borders
+        final TIntArrayList queue = new TIntArrayList();
+        final TIntHashSet queued = new TIntHashSet();
+        for (int i = 0; i < nodeTiles.size(); i++)
+        {
+            final int region = regionOf(nodeTiles.get(i));
+            if (queued.add(region))
+            {
+                queue.add(region);
+            }
+        }
+        final TLongHashSet portals = new TLongHashSet();
+        for (int head = 0; head < queue.size() && regions.size() < MAX_REGIONS; head++)
+        {
+            final int region = queue.get(head);
+            if (isVoid(region))
+            {
+                continue;
+            }
+            regions.add(region);
+            for (int side = 0; side < 4; side++)
+            {
+                scanBorder(region, side, portals, queue, queued, from, to, length, transport);
+            }
+        }
+
+        // walking distances between the nodes of each region
+        final Flood flood = new Flood();
+        final int[] single = new int[1];
+        regions.forEach(region -> {
+            final TIntArrayList nodes = regionNodes.get(region);
+            if (nodes == null)
+            {
+                return true;
+            }
+            for (int i = 0; i < nodes.size(); i++)
+            {
+                final int node = nodes.get(i);
+                single[0] = nodeTiles.get(node);
+                flood.run(collisionMap, this.blacklist, region, single);
+                for (int j = 0; j < nodes.size(); j++)
+                {
+                    final int distance = flood.distance(nodeTiles.get(nodes.get(j)));
+                    if (i != j && distance > 0)
+                    {
+                        from.add(node);
+                        to.add(nodes.get(j));
+                        length.add(distance);
+                        transport.add(WALK);
+                    }
+                }
+            }
+            return true;
+        });
+
+        compile(from, to, length, transport);
+    }
+
+    /**
+     * Finds a path through the abstract graph and expands it back into tiles.
+     * @param transports the usable transports for this query, keyed by source
+     * @param costModel prices steps and transports
+     * @param context the buffers the tile searches that expand the result run in, told about every hub node expanded
+     * @param starts compressed start tiles
+     * @param startCosts the cost already paid to stand on each start tile
+     * @param goals compressed target tiles
+     * @return the path, or null if the graph cannot answer the query and a tile search should be
+     *         used instead. Empty if the search was cancelled.
+     */
+    public List<Step> search(final TIntObjectHashMap<ArrayList<Transport>> transports, final CostModel costModel, final SearchContext context,
+                             final int[] starts, final int[] startCosts, final int[] goals)
+    {
+        final int nodes = nodeTiles.size();
+        final int step = costModel.stepCost();
+        final Transport[] usable = usableTransports(transports, costModel);
+        final Flood flood = new Flood();
+
+        // distance from every node to the closest target of its region
+        final int[] goalCost = new int[nodes];
+        final int[] goalTile = new int[nodes];
+        Arrays.fill(goalCost, INF);
+        final TIntObjectHashMap<TIntArrayList> goalsByRegion = groupByRegion(goals);
+        final boolean[] covered = {false};
+        goalsByRegion.forEachEntry((region, tiles) -> {
+            final TIntArrayList regionList = regionNodes.get(region);
+            if (!regions.contains(region) || regionList == null)
+            {
+                return true;
+            }
+            covered[0] = true;
+            final int[] sources = tiles.toArray();
+            flood.run(collisionMap, blacklist, region, sources);
+            for (int i = 0; i < regionList.size(); i++)
+            {
+                final int node = regionList.get(i);
+                final int distance = flood.distance(nodeTiles.get(node));
+                if (distance >= 0)
+                {
+                    goalCost[node] = distance * step;
+                    goalTile[node] = sources[flood.origin(nodeTiles.get(node))];
+                }
+            }
+            return true;
+        });
+        if (!covered[0])
+        {
+            return null;
+        }
+
+        // seed from the starts, also catching targets within walking distance of a start
+        final int[] cost = new int[nodes];
+        final int[] parent = new int[nodes];
+        final int[] parentEdge = new int[nodes];
+        final int[] seed = new int[nodes];
+        Arrays.fill(cost, INF);
+        Arrays.fill(parent, -1);
+        final IntMinHeap open = new IntMinHeap(1024);
+        int best = INF;
+        int bestNode = -1;
+        int directStart = -1;
+        int directGoal = -1;
+        boolean seeded = false;
+        for (int i = 0; i < starts.length; i++)
+        {
+            final int region = regionOf(starts[i]);
+            if (!regions.contains(region))
+            {
+                continue;
+            }
+            seeded = true;
+            flood.run(collisionMap, blacklist, region, new int[]{starts[i]});
+            final TIntArrayList regionList = regionNodes.get(region);
+            for (int j = 0; regionList != null && j < regionList.size(); j++)
+            {
+                final int node = regionList.get(j);
+                final int distance = flood.distance(nodeTiles.get(node));
+                if (distance >= 0 && startCosts[i] + distance * step < cost[node])
+                {
+                    cost[node] = startCosts[i] + distance * step;
+                    seed[node] = i;
+                    open.push(cost[node], node);
+                }
+            }
+            final TIntArrayList local = goalsByRegion.get(region);
+            for (int j = 0; local != null && j < local.size(); j++)
+            {
+                final int distance = flood.distance(local.get(j));
+                if (distance >= 0 && startCosts[i] + distance * step < best)
+                {
+                    best = startCosts[i] + distance * step;
+                    directStart = starts[i];
+                    directGoal = local.get(j);
+                }
+            }
+        }
+        if (!seeded)
+        {
+            return null;
+        }
+
+        while (!open.isEmpty())
+        {
+            if (context.isCancelled())
+            {
+                return new ArrayList<>();
+            }
+            final int node = open.poll();
+            final int g = (int) open.lastKey();
+            if (g != cost[node])
+            {
+                continue;
+            }
+            if (g >= best)
+            {
+                break;
+            }
+            context.expanded(nodeTiles.get(node));
+            if (goalCost[node] != INF && g + goalCost[node] < best)
+            {
+                best = g + goalCost[node];
+                bestNode = node;
+            }
+            for (int e = edgeStart[node]; e < edgeStart[node + 1]; e++)
+            {
+                final int edgeCost;
+                if (edgeTransport[e] == WALK)
+                {
+                    edgeCost = edgeLength[e] * step;
+                }
+                else if (usable[edgeTransport[e]] != null)
+                {
+                    edgeCost = costModel.transportCost(usable[edgeTransport[e]]);
+                }
+                else
+                {
+                    continue;
+                }
+                final int next = edgeTarget[e];
+                if (g + edgeCost < cost[next])
+                {
+                    cost[next] = g + edgeCost;
+                    parent[next] = node;
+                    parentEdge[next] = e;
+                    open.push(cost[next], next);
+                }
+            }
+        }
+
+        if (best == INF)
+        {
+            // borders are only crossed straight, leave the final word to the tile search
+            return null;
+        }
+        final AStarSearch refine = new AStarSearch(collisionMap, null, TransportIndex.EMPTY, costModel, true, context);
+        refine.setBlacklist(toList(blacklist));
+        final List<Step> path = new ArrayList<>();
+        if (bestNode == -1)
+        {
+            return leg(refine, path, directStart, directGoal) ? finish(path, directGoal) : null;
+        }
+
+        final TIntArrayList chain = new TIntArrayList();
+        for (int node = bestNode; node != -1; node = parent[node])
+        {
+            chain.add(node);
+        }
+        final int first = chain.get(chain.size() - 1);
+        if (!leg(refine, path, starts[seed[first]], nodeTiles.get(first)))
+        {
+            return null;
+        }
+        for (int i = chain.size() - 1; i > 0; i--)
+        {
+            final int from = chain.get(i);
+            final int to = chain.get(i - 1);
+            final int e = parentEdge[to];
+            if (edgeTransport[e] != WALK)
+            {
+                path.add(new Step(nodeTiles.get(from), usable[edgeTransport[e]]));
+            }
+            else if (!leg(refine, path, nodeTiles.get(from), nodeTiles.get(to)))
+            {
+                return null;
+            }
+        }
+        return leg(refine, path, nodeTiles.get(bestNode), goalTile[bestNode]) ? finish(path, goalTile[bestNode]) : null;
+    }
+
+    private boolean leg(final AStarSearch refine, final List<Step> path, final int from, final int to)
+    {
+        if (from == to)
+        {
+            return true;
+        }
+        final List<Step> leg = refine.search(new int[]{from}, new int[]{0}, new int[]{to});
+        if (leg.isEmpty())
+        {
+            return false;
+        }
+        path.addAll(leg.subList(0, leg.size() - 1));
+        return true;
+    }
+
+    private static List<Step> finish(final List<Step> path, final int goal)
+    {
+        path.add(new Step(goal, null));
+        return path;
+    }
+
+    private Transport[] usableTransports(final TIntObjectHashMap<ArrayList<Transport>> transports, final CostModel costModel)
+    {
+        final Transport[] usable = new Transport[transportSources.length];
+        for (int i = 0; i < usable.length; i++)
+        {
+            final ArrayList<Transport> list = transports.get(transportSources[i]);
+            if (list == null)
+            {
+                continue;
+            }
+            for (Transport t : list)
+            {
+                if (t.getDestination() == transportDestinations[i] && (usable[i] == null || costModel.transportCost(t) < costModel.transportCost(usable[i])))
+                {
+                    usable[i] = t;
+                }
+            }
+        }
+        return usable;
+    }
+
+    private void scanBorder(final int region, final int side, final TLongHashSet portals, final TIntArrayList queue, final TIntHashSet queued,
+                            final TIntArrayList from, final TIntArrayList to, final TIntArrayList length, final TIntArrayList transport)
+    {
+        final int baseX = regionX(region);
+        final int baseY = regionY(region);
+        final int z = regionPlane(region);
+        final int ox = side == 0 ? 1 : side == 1 ? -1 : 0;
+        final int oy = side == 2 ? 1 : side == 3 ? -1 : 0;
+
+        int runStart = -1;
+        for (int i = 0; i <= REGION_SIZE; i++)
+        {
+            boolean open = false;
+            int x = 0;
+            int y = 0;
+            if (i < REGION_SIZE)
+            {
+                x = ox == 0 ? baseX + i : ox > 0 ? baseX + REGION_MASK : baseX;
+                y = oy == 0 ? baseY + i : oy > 0 ? baseY + REGION_MASK : baseY;
+                open = crossable(x, y, z, side)
+                        && !blacklist.contains(WorldPointUtil.compress(x, y, z))
+                        && !blacklist.contains(WorldPointUtil.compress(x + ox, y + oy, z));
+            }
+            if (open && runStart == -1)
+            {
+                runStart = i;
+            }
+            else if (!open && runStart != -1)
+            {
+                final int mid = (runStart + i - 1) >> 1;
+                final int px = ox == 0 ? baseX + mid : ox > 0 ? baseX + REGION_MASK : baseX;
+                final int py = oy == 0 ? baseY + mid : oy > 0 ? baseY + REGION_MASK : baseY;
+                final int inside = node(WorldPointUtil.compress(px, py, z));
+                final int outside = node(WorldPointUtil.compress(px + ox, py + oy, z));
+                if (portals.add(((long) inside << 32) | outside))
+                {
+                    portals.add(((long) outside << 32) | inside);
+                    from.add(inside);
+                    to.add(outside);
+                    length.add(1);
+                    transport.add(WALK);
+                    from.add(outside);
+                    to.add(inside);
+                    length.add(1);
+                    transport.add(WALK);
+                }
+                final int neighbour = regionOf(WorldPointUtil.compress(px + ox, py + oy, z));
+                if (queued.add(neighbour))
+                {
+                    queue.add(neighbour);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private boolean crossable(final int x, final int y, final int z, final int side)
+    {
+        final short sx = (short) x;
+        final short sy = (short) y;
+        final byte sz = (byte) z;
+        switch (side)
+        {
+            case 0:
+                return collisionMap.e(sx, sy, sz) == 1;
+            case 1:
+                return collisionMap.w(sx, sy, sz) == 1;
+            case 2:
+                return collisionMap.n(sx, sy, sz) == 1;
+            default:
+                return collisionMap.s(sx, sy, sz) == 1;
+        }
+    }
+
+    /**
+     * A region without a single blocked edge is unmapped space.
+     */
+    private boolean isVoid(final int region)
+    {
+        final int baseX = regionX(region);
+        final int baseY = regionY(region);
+        final byte z = (byte) regionPlane(region);
+        for (int x = baseX; x < baseX + REGION_SIZE; x++)
+        {
+            for (int y = baseY; y < baseY + REGION_SIZE; y++)
+            {
+                if (collisionMap.n((short) x, (short) y, z) == 0 || collisionMap.e((short) x, (short) y, z) == 0)
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void compile(final TIntArrayList from, final TIntArrayList to, final TIntArrayList length, final TIntArrayList transport)
+    {
+        final int nodes = nodeTiles.size();
+        final int edges = from.size();
+        edgeStart = new int[nodes + 1];
+        edgeTarget = new int[edges];
+        edgeLength = new int[edges];
+        edgeTransport = new int[edges];
+        for (int i = 0; i < edges; i++)
+        {
+            edgeStart[from.get(i) + 1]++;
+        }
+        for (int i = 0; i < nodes; i++)
+        {
+            edgeStart[i + 1] += edgeStart[i];
+        }
+        final int[] fill = Arrays.copyOf(edgeStart, nodes);
+        for (int i = 0; i < edges; i++)
+        {
+            final int slot = fill[from.get(i)]++;
+            edgeTarget[slot] = to.get(i);
+            edgeLength[slot] = length.get(i);
+            edgeTransport[slot] = transport.get(i);
+        }
+    }
+
+    private int node(final int tile)
+    {
+        int node = tileToNode.get(tile);
+        if (node == -1)
+        {
+            node = nodeTiles.size();
+            nodeTiles.add(tile);
+            tileToNode.put(tile, node);
+            final int region = regionOf(tile);
+            TIntArrayList list = regionNodes.get(region);
+            if (list == null)
+            {
+                list = new TIntArrayList();
+                regionNodes.put(region, list);
+            }
+            list.add(node);
+        }
+        return node;
+    }
+
+    private static TIntObjectHashMap<TIntArrayList> groupByRegion(final int[] tiles)
+    {
+        final TIntObjectHashMap<TIntArrayList> grouped = new TIntObjectHashMap<>();
+        for (int tile : tiles)
+        {
+            final int region = regionOf(tile);
+            TIntArrayList list = grouped.get(region);
+            if (list == null)
+            {
+                list = new TIntArrayList();
+                grouped.put(region, list);
+            }
+            list.add(tile);
+        }
+        return grouped;
+    }
+
+    private static List<Integer> toList(final TIntHashSet set)
+    {
+        final List<Integer> list = new ArrayList<>(set.size());
+        set.forEach(list::add);
+        return list;
+    }
+
+    private static boolean isInstance(final int tile)
+    {
+        return LocalCollisionMap.isInstanced(WorldPointUtil.getCompressedX(tile));
+    }
+
+    private static int regionOf(final int tile)
+    {
+        return (WorldPointUtil.getCompressedX(tile) >> REGION_SHIFT)
+                | ((WorldPointUtil.getCompressedY(tile) >> REGION_SHIFT) << 8)
+                | (WorldPointUtil.getCompressedPlane(tile) << 17);
+    }
+
+    private static int regionX(final int region)
+    {
+        return (region & 0xFF) << REGION_SHIFT;
+    }
+
+    private static int regionY(final int region)
+    {
+        return ((region >>> 8) & 0x1FF) << REGION_SHIFT;
+    }
+
+    private static int regionPlane(final int region)
+    {
+        return region >>> 17;
+    }
+
+    /**
+     * Breadth first flood confined to a single region, reusing its buffers between runs.
+     */
+    private static final class Flood
+    {
+        private final int[] distance = new int[REGION_SIZE * REGION_SIZE];
+        private final int[] origin = new int[REGION_SIZE * REGION_SIZE];
+        private final int[] stamp = new int[REGION_SIZE * REGION_SIZE];
+        private final int[] queue = new int[REGION_SIZE * REGION_SIZE];
+        private int generation;
+        private int region;
+
+        void run(final CollisionMap map, final TIntHashSet blacklist, final int region, final int[] sources)
+        {
+            this.region = region;
+            generation++;
+            final int baseX = regionX(region);
+            final int baseY = regionY(region);
+            final int z = regionPlane(region);
+            int head = 0;
+            int tail = 0;
+            for (int i = 0; i < sources.length; i++)
+            {
+                final int tile = sources[i];
+                if (regionOf(tile) != region || blacklist.contains(tile))
+                {
+                    continue;
+                }
+                final int local = local(tile);
+                if (stamp[local] == generation)
+                {
+                    continue;
+                }
+                stamp[local] = generation;
+                distance[local] = 0;
+                origin[local] = i;
+                queue[tail++] = local;
+            }
+            while (head < tail)
+            {
+                final int local = queue[head++];
+                final int x = baseX + (local & REGION_MASK);
+                final int y = baseY + (local >> REGION_SHIFT);
+                final byte mask = map.all((short) x, (short) y, (byte) z);
+                for (int d = 0; d < 8; d++)
+                {
+                    if ((mask & (1 << d)) == 0)
+                    {
+                        continue;
+                    }
+                    final int lx = (local & REGION_MASK) + DX[d];
+                    final int ly = (local >> REGION_SHIFT) + DY[d];
+                    if (lx < 0 || ly < 0 || lx >= REGION_SIZE || ly >= REGION_SIZE)
+                    {
+                        continue;
+                    }
+                    final int next = lx | (ly << REGION_SHIFT);
+                    if (stamp[next] == generation || blacklist.contains(WorldPointUtil.compress(baseX + lx, baseY + ly, z)))
+                    {
+                        continue;
+                    }
+                    stamp[next] = generation;
+                    distance[next] = distance[local] + 1;
+                    origin[next] = origin[local];
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        /**
+         * @return the distance in tiles from the closest source, or -1 if unreached
+         */
+        int distance(final int tile)
+        {
+            if (regionOf(tile) != region)
+            {
+                return -1;
+            }
+            final int local = local(tile);
+            return stamp[local] == generation ? distance[local] : -1;
+        }
+
+        /**
+         * @return the index of the source that reached the tile first
+         */
+        int origin(final int tile)
+        {
+            return origin[local(tile)];
+        }
+
+        private static int local(final int tile)
+        {
+            return (WorldPointUtil.getCompressedX(tile) & REGION_MASK) | ((WorldPointUtil.getCompressedY(tile) & REGION_MASK) << REGION_SHIFT);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.collections.AtomicPageTable;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.collision.Flags;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.transports.Transport;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.set.hash.TIntHashSet;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi source Dijkstra that expands the frontier on a fork join pool, for queries seeded with many
+ * starts spread over planes and regions.
+ *
+ * <p>The frontier is kept in buckets of equal cost. A bucket is final once every cheaper one has
+ * been expanded because no edge is free, so all of its tiles can be expanded at the same time. Each
+ * bucket is split by 64x64 region and the regions are handed to the pool's workers. Every tile has
+ * one 64 bit word holding its cost and parent, kept in lazily allocated region pages and only ever
+ * replaced by compare and set with a cheaper one, so workers never lock and never see a cost paired
+ * with another path's parent. The cheapest target reached so far is shared, workers drop every
+ * relaxation that costs more and the search stops at the first bucket that costs as much.</p>
+ *
+ * <p>Results match {@link AStarSearch} without a heuristic. Instanced tiles are not supported.</p>
+ */
+public class ParallelSearch
+{
+    private static final int MAX_VISITED = 10_000_000;
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+
+    private static final int REGION_SHIFT = 6;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int REGIONS_X = 8192 >> REGION_SHIFT;
+    private static final int REGIONS_Y = 32768 >> REGION_SHIFT;
+    private static final int PLANES = 4;
+    // sizes of the page table kept in the SearchContext
+    static final int REGIONS = REGIONS_X * REGIONS_Y * PLANES;
+    static final int PAGE_SIZE = 1 << (REGION_SHIFT * 2);
+
+    // buckets smaller than this are expanded on the calling thread, -Dvitalite.parallelThreshold to tune it
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger("vitalite.parallelThreshold", 512);
+    private static final int MIN_TASK_SIZE = 128;
+
+    // low half of a tile word: the parent tile, or the transport edge it arrived through
+    private static final int ROOT = Integer.MAX_VALUE;
+    private static final int VIA_EDGE = Integer.MIN_VALUE;
+    private static final long UNSEEN = 0;
+    private static final long NO_TARGET = Long.MAX_VALUE;
+
+    private final CollisionMap collisionMap;
+    private final TransportIndex transports;
+    private final CostModel costModel;
+    private final int stepCost;
+    private final SearchContext context;
+    private final ForkJoinPool pool;
+    private final TIntHashSet blacklist = new TIntHashSet();
+
+    private final AtomicPageTable pages;
+    private TIntHashSet targets;
+    // cost << 32 | tile of the cheapest target reached
+    private final AtomicLong best = new AtomicLong(NO_TARGET);
+    private final LongAdder visited = new LongAdder();
+    private final LongAdder expanded = new LongAdder();
+    private final LongAdder considered = new LongAdder();
+    private int bucketCount;
+    private int parallelBucketCount;
+
+    /**
+     * @param collisionMap the global collision map
+     * @param transports the usable transports indexed by their source tile
+     * @param costModel prices steps and transports, steps must cost at least one
+     * @param context polled for cancellation and told what was expanded, holds the tile pages
+     */
+    public ParallelSearch(CollisionMap collisionMap, TransportIndex transports, CostModel costModel, SearchContext context)
+    {
+        this(collisionMap, transports, costModel, context, Workers.POOL);
+    }
+
+    /**
+     * @param pool the pool the buckets are expanded on
+     */
+    public ParallelSearch(CollisionMap collisionMap, TransportIndex transports, CostModel costModel, SearchContext context,
+                          ForkJoinPool pool)
+    {
+        if (costModel.stepCost() < 1)
+        {
+            throw new IllegalArgumentException("The parallel search needs a step cost of at least 1");
+        }
+        this.collisionMap = collisionMap;
+        this.transports = transports;
+        this.costModel = costModel;
+        this.stepCost = costModel.stepCost();
+        this.context = context;
+        this.pool = pool;
+        this.pages = context.getPages();
+    }
+
+    /**
+     * Tiles that may never be entered.
+     * @param tiles compressed tiles
+     */
+    public void setBlacklist(Collection<Integer> tiles)
+    {
+        blacklist.clear();
+        for (int tile : tiles)
+        {
+            blacklist.add(tile);
+        }
+    }
+
+    public int getExpanded()
+    {
+        return expanded.intValue();
+    }
+
+    /**
+     * @return how many cost buckets the last search expanded
+     */
+    public int getBuckets()
+    {
+        return bucketCount;
+    }
+
+    /**
+     * @return how many of those were large enough to be expanded on the pool
+     */
+    public int getParallelBuckets()
+    {
+        return parallelBucketCount;
+    }
+
+    /**
+     * Finds the cheapest path from any start to any target.
+     * @param starts compressed start tiles
+     * @param startCosts the cost already paid to stand on each start tile
+     * @param targets compressed target tiles
+     * @return the path, or an empty list if no target is reachable or the search was cancelled
+     */
+    public List<Step> search(final int[] starts, final int[] startCosts, final int[] targets)
+    {
+        pages.clear();
+        pages.prepare();
+        this.targets = new TIntHashSet(targets);
+        best.set(NO_TARGET);
+        visited.reset();
+        expanded.reset();
+        considered.reset();
+        bucketCount = 0;
+        parallelBucketCount = 0;
+
+        final TreeMap<Integer, IntArrayList> buckets = new TreeMap<>();
+        final Int2ObjectOpenHashMap<IntArrayList> seeds = new Int2ObjectOpenHashMap<>();
+        for (int i = 0; i < starts.length; i++)
+        {
+            relax(starts[i], startCosts[i], ROOT, seeds);
+        }
+        merge(buckets, seeds);
+
+        while (!buckets.isEmpty())
+        {
+            final Map.Entry<Integer, IntArrayList> bucket = buckets.pollFirstEntry();
+            final int cost = bucket.getKey();
+            if (cost >= bestCost())
+            {
+                break;
+            }
+            if (visited.sum() > MAX_VISITED || context.isCancelled())
+            {
+                return Collections.emptyList();
+            }
+            final IntArrayList frontier = bucket.getValue();
+            trace(frontier, cost);
+            bucketCount++;
+            if (frontier.size() < PARALLEL_THRESHOLD)
+            {
+                final Int2ObjectOpenHashMap<IntArrayList> out = new Int2ObjectOpenHashMap<>();
+                for (int i = 0; i < frontier.size(); i++)
+                {
+                    expand(frontier.getInt(i), cost, out);
+                }
+                merge(buckets, out);
+            }
+            else
+            {
+                parallelBucketCount++;
+                final List<Expansion> tasks = partition(frontier, cost);
+                pool.invoke(new Phase(tasks));
+                for (Expansion task : tasks)
+                {
+                    merge(buckets, task.out);
+                }
+            }
+        }
+
+        Logger.info("Nodes visited: " + visited.sum() + ", expanded: " + expanded.sum());
+        context.consideredTransports(considered.intValue());
+        final long target = best.get();
+        if (target == NO_TARGET || context.isCancelled())
+        {
+            return Collections.emptyList();
+        }
+        return path((int) target);
+    }
+
+    /**
+     * Reports the live tiles of a bucket to the context before it is expanded. Runs on the calling
+     * thread so the context is never touched by the workers, the order within a bucket is the order
+     * the tiles were queued in.
+     */
+    private void trace(final IntArrayList frontier, final int cost)
+    {
+        for (int i = 0; i < frontier.size(); i++)
+        {
+            final int tile = frontier.getInt(i);
+            // no tile of this bucket can get cheaper while it is expanded
+            if (cost(tile) == cost)
+            {
+                context.expanded(tile);
+            }
+        }
+    }
+
+    /**
+     * Groups a bucket by region and packs the regions into tasks of roughly equal size.
+     */
+    private List<Expansion> partition(final IntArrayList frontier, final int cost)
+    {
+        final Int2ObjectOpenHashMap<IntArrayList> regions = new Int2ObjectOpenHashMap<>();
+        for (int i = 0; i < frontier.size(); i++)
+        {
+            final int tile = frontier.getInt(i);
+            regions.computeIfAbsent(region(tile), k -> new IntArrayList()).add(tile);
+        }
+
+        final int taskSize = Math.max(MIN_TASK_SIZE, frontier.size() / (pool.getParallelism() * 4));
+        final List<Expansion> tasks = new ArrayList<>();
+        IntArrayList tiles = new IntArrayList(taskSize);
+        for (IntArrayList region : regions.values())
+        {
+            tiles.addAll(region);
+            if (tiles.size() >= taskSize)
+            {
+                tasks.add(new Expansion(tiles, cost));
+                tiles = new IntArrayList(taskSize);
+            }
+        }
+        if (!tiles.isEmpty())
+        {
+            tasks.add(new Expansion(tiles, cost));
+        }
+        return tasks;
+    }
+
+    private void expand(final int node, final int g, final Int2ObjectOpenHashMap<IntArrayList> out)
+    {
+        // a cheaper path replaced the node after it was queued
+        if (cost(node) != g)
+        {
+            return;
+        }
+        expanded.increment();
+        if (g + stepCost <= bestCost())
+        {
+            final short x = WorldPointUtil.getCompressedX(node);
+            final short y = WorldPointUtil.getCompressedY(node);
+            final byte z = WorldPointUtil.getCompressedPlane(node);
+            final byte flags = collisionMap.all(x, y, z);
+            if (flags != Flags.NONE)
+            {
+                for (int d = 0; d < 8; d++)
+                {
+                    if ((flags & (1 << d)) != 0)
+                    {
+                        relax(WorldPointUtil.compress(x + DX[d], y + DY[d], z), g + stepCost, node, out);
+                    }
+                }
+            }
+        }
+
+        final int row = transports.row(node);
+        if (row != TransportIndex.NO_ROW)
+        {
+            considered.add(transports.end(row) - transports.start(row));
+            for (int edge = transports.start(row), end = transports.end(row); edge < end; edge++)
+            {
+                final int cost = Math.max(costModel.transportCost(transports.transport(edge)), 1);
+                relax(transports.destination(edge), g + cost, VIA_EDGE | edge, out);
+            }
+        }
+    }
+
+    /**
+     * Offers a cost to a tile. Equal costs keep the smaller parent so results do not depend on
+     * which worker got there first, but only a cheaper cost queues the tile again.
+     */
+    private void relax(final int node, final int g, final int parent, final Int2ObjectOpenHashMap<IntArrayList> out)
+    {
+        // ties with the best target are still offered, dropping them would depend on timing
+        if (g > bestCost() || blacklist.contains(node))
+        {
+            return;
+        }
+        final AtomicLongArray page = page(node);
+        if (page == null)
+        {
+            return;
+        }
+        final int slot = slot(node);
+        final long word = (long) (g + 1) << 32 | (parent & 0xFFFFFFFFL);
+        while (true)
+        {
+            final long current = page.get(slot);
+            final int known = (int) (current >>> 32) - 1;
+            final boolean cheaper = current == UNSEEN || g < known;
+            if (!cheaper && (g > known || parent >= (int) current))
+            {
+                return;
+            }
+            if (page.compareAndSet(slot, current, word))
+            {
+                if (current == UNSEEN)
+                {
+                    visited.increment();
+                }
+                if (cheaper)
+                {
+                    out.computeIfAbsent(g, k -> new IntArrayList()).add(node);
+                    if (targets.contains(node))
+                    {
+                        best.accumulateAndGet((long) g << 32 | node, Math::min);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private List<Step> path(int node)
+    {
+        final List<Step> path = new ArrayList<>();
+        Transport transport = null;
+        while (true)
+        {
+            path.add(new Step(node, transport));
+            final int parent = (int) word(node);
+            if (parent == ROOT)
+            {
+                break;
+            }
+            if ((parent & VIA_EDGE) != 0)
+            {
+                transport = transports.transport(parent & ~VIA_EDGE);
+                node = transport.getSource();
+            }
+            else
+            {
+                transport = null;
+                node = parent;
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private int bestCost()
+    {
+        return (int) (best.get() >>> 32);
+    }
+
+    private int cost(final int node)
+    {
+        return (int) (word(node) >>> 32) - 1;
+    }
+
+    private long word(final int node)
+    {
+        final int region = region(node);
+        final AtomicLongArray page = region == -1 ? null : pages.get(region);
+        return page == null ? UNSEEN : page.get(slot(node));
+    }
+
+    private AtomicLongArray page(final int node)
+    {
+        final int region = region(node);
+        if (region == -1)
+        {
+            return null;
+        }
+        return pages.getOrCreate(region);
+    }
+
+    private static int region(final int node)
+    {
+        final int x = WorldPointUtil.getCompressedX(node);
+        final int y = WorldPointUtil.getCompressedY(node);
+        final int z = WorldPointUtil.getCompressedPlane(node);
+        if (x < 0 || y < 0 || x >= 8192 || y >= 32768 || z < 0 || z >= PLANES)
+        {
+            return -1;
+        }
+        return ((z * REGIONS_Y) + (y >> REGION_SHIFT)) * REGIONS_X + (x >> REGION_SHIFT);
+    }
+
+    private static int slot(final int node)
+    {
+        return (WorldPointUtil.getCompressedX(node) & REGION_MASK)
+                | (WorldPointUtil.getCompressedY(node) & REGION_MASK) << REGION_SHIFT;
+    }
+
+    private static void merge(final TreeMap<Integer, IntArrayList> buckets, final Int2ObjectOpenHashMap<IntArrayList> out)
+    {
+        for (Int2ObjectMap.Entry<IntArrayList> entry : out.int2ObjectEntrySet())
+        {
+            final IntArrayList bucket = buckets.get(entry.getIntKey());
+            if (bucket == null)
+            {
+                buckets.put(entry.getIntKey(), entry.getValue());
+            }
+            else
+            {
+                bucket.addAll(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Expands one bucket, a task per group of regions.
+     */
+    private static final class Phase extends RecursiveAction
+    {
+        private final List<Expansion> tasks;
+
+        private Phase(List<Expansion> tasks)
+        {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute()
+        {
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Expands a share of a bucket and collects what it queues in its own buckets, merged by the
+     * calling thread once the phase is done.
+     */
+    private final class Expansion extends RecursiveAction
+    {
+        private final IntArrayList tiles;
+        private final int cost;
+        private final Int2ObjectOpenHashMap<IntArrayList> out = new Int2ObjectOpenHashMap<>();
+
+        private Expansion(IntArrayList tiles, int cost)
+        {
+            this.tiles = tiles;
+            this.cost = cost;
+        }
+
+        @Override
+        protected void compute()
+        {
+            for (int i = 0; i < tiles.size(); i++)
+            {
+                if (context.isCancelled())
+                {
+                    return;
+                }
+                expand(tiles.getInt(i), cost, out);
+            }
+        }
+    }
+
+    /**
+     * The shared pool, created on first use with one daemon worker per core.
+     */
+    private static final class Workers
+    {
+        private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("pathfinder-worker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,173 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.collections.BFSCache;
+import com.tonic.services.pathfinder.collections.IntMinHeap;
+import com.tonic.services.pathfinder.collections.StampedIntMap;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.collision.Flags;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reconnects the player to a path they drifted off, instead of searching the whole route again.
+ *
+ * <p>Runs a Dijkstra from the player's tile that never leaves a square window around it and stops
+ * at the first tile of the remaining path it settles. The repaired path is the short detour
+ * followed by the untouched rest of the old path, so the cost only depends on the window size and
+ * not on how long the route is.</p>
+ */
+public class RepairSearch
+{
+    private static final int[] DX = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DY = {1, 1, 1, 0, 0, -1, -1, -1};
+
+    private final CollisionMap collisionMap;
+    private final TransportIndex transports;
+    private final CostModel costModel;
+    private final int stepCost;
+    private final TIntHashSet blacklist = new TIntHashSet();
+
+    private final StampedIntMap costs;
+    private final BFSCache parents;
+    private final IntMinHeap open;
+    private final SearchContext context;
+
+    private int originX;
+    private int originY;
+    private int radius;
+
+    /**
+     * @param collisionMap the global collision map
+     * @param transports the usable transports indexed by their source tile
+     * @param costModel prices steps and transports
+     * @param context the buffers to search with, usually borrowed from {@link SearchContext#acquire()}
+     */
+    public RepairSearch(CollisionMap collisionMap, TransportIndex transports, CostModel costModel, SearchContext context)
+    {
+        this.collisionMap = collisionMap;
+        this.transports = transports;
+        this.costModel = costModel;
+        this.stepCost = costModel.stepCost();
+        this.costs = context.getCosts();
+        this.parents = context.getVisited();
+        this.open = context.getOpen();
+        this.context = context;
+    }
+
+    /**
+     * Tiles that may never be entered.
+     * @param tiles compressed tiles
+     */
+    public void setBlacklist(Collection<Integer> tiles)
+    {
+        blacklist.clear();
+        for (int tile : tiles)
+        {
+            blacklist.add(tile);
+        }
+    }
+
+    /**
+     * @param origin the compressed tile the player stands on
+     * @param remaining the steps of the old path that have not been walked yet
+     * @param radius how far from the origin the detour may go, in tiles
+     * @return the detour joined with the rest of the old path, or null if no remaining step can
+     * be reached inside the window
+     */
+    public List<Step> search(final int origin, final List<Step> remaining, final int radius)
+    {
+        if (remaining.isEmpty())
+        {
+            return null;
+        }
+        costs.clear();
+        parents.clear();
+        open.clear();
+        this.originX = WorldPointUtil.getCompressedX(origin);
+        this.originY = WorldPointUtil.getCompressedY(origin);
+        this.radius = radius;
+
+        // later steps overwrite earlier ones, so a path that crosses itself rejoins at the end
+        final TIntIntHashMap stepIndex = new TIntIntHashMap(remaining.size() * 2, 0.5f, -1, -1);
+        for (int i = 0; i < remaining.size(); i++)
+        {
+            stepIndex.put(remaining.get(i).position, i);
+        }
+
+        relax(-1, origin, 0, BFSCache.NO_EDGE);
+        while (!open.isEmpty())
+        {
+            final int node = open.poll();
+            final int g = (int) open.lastKey();
+            if (g != costs.get(node))
+            {
+                continue;
+            }
+            final int index = stepIndex.get(node);
+            if (index != -1)
+            {
+                Logger.info("[Pathfinder] Repaired path, nodes visited: " + costs.size());
+                final List<Step> path = parents.path(node, transports);
+                path.remove(path.size() - 1);
+                path.addAll(remaining.subList(index, remaining.size()));
+                return path;
+            }
+            if (context.isCancelled())
+            {
+                return null;
+            }
+            expand(node, g);
+        }
+        return null;
+    }
+
+    private void expand(final int node, final int g)
+    {
+        final short x = WorldPointUtil.getCompressedX(node);
+        final short y = WorldPointUtil.getCompressedY(node);
+        final byte z = WorldPointUtil.getCompressedPlane(node);
+        final byte flags = collisionMap.all(x, y, z);
+        if (flags != Flags.NONE)
+        {
+            for (int d = 0; d < 8; d++)
+            {
+                if ((flags & (1 << d)) != 0)
+                {
+                    relax(node, WorldPointUtil.compress(x + DX[d], y + DY[d], z), g + stepCost, BFSCache.NO_EDGE);
+                }
+            }
+        }
+
+        final int row = transports.row(node);
+        if (row != TransportIndex.NO_ROW)
+        {
+            for (int edge = transports.start(row), end = transports.end(row); edge < end; edge++)
+            {
+                relax(node, transports.destination(edge), g + costModel.transportCost(transports.transport(edge)), edge);
+            }
+        }
+    }
+
+    private void relax(final int parent, final int node, final int g, final int edge)
+    {
+        if (Math.abs(WorldPointUtil.getCompressedX(node) - originX) > radius
+                || Math.abs(WorldPointUtil.getCompressedY(node) - originY) > radius)
+        {
+            return;
+        }
+        if (g >= costs.get(node) || blacklist.contains(node))
+        {
+            return;
+        }
+        costs.put(node, g);
+        parents.set(node, parent, edge);
+        open.push(g, node);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tonic.services.pathfinder.search;
+
+/**
+ * The search engines a {@link com.tonic.services.pathfinder.Pathfinder} can run.
+ */
+public enum SearchAlgorithm
+{
+    /**
+     * Breadth first flood over the tile grid. Transports are released from a delay queue.
+     */
+    BFS,
+
+    /**
+     * A* over the 8-neighbour grid with a Chebyshev heuristic. Transports and teleports are
+     * weighted edges priced by the {@link CostModel}.
+     */
+    ASTAR,
+
+    /**
+     * {@link #ASTAR} with jump point pruning, straight and diagonal runs through open terrain
+     * are skipped instead of pushed through the open list.
+     */
+    JPS,
+
+    /**
+     * Dijkstra growing from the starts and backward from the targets at the same time, meeting in
+     * the middle. Explores far fewer tiles than a one sided search for a single distant target.
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Searches the precomputed {@link HubGraph} of regions and transports first, then expands the
+     * result into tiles. Falls back to {@link #JPS} while the graph is building or when the query
+     * leaves the area it covers.
+     */
+    HUB,
+
+    /**
+     * Dijkstra expanding each cost level of the frontier on every core, split by region. Meant for
+     * queries with many starts or targets spread over planes and regions, such as the nearest of
+     * many areas. Falls back to {@link #JPS} inside instances.
+     */
+    PARALLEL
+}
@@ -0,0 +1,134 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.services.pathfinder.collections.AtomicPageTable;
+import com.tonic.services.pathfinder.collections.BFSCache;
+import com.tonic.services.pathfinder.collections.HybridIntQueue;
+import com.tonic.services.pathfinder.collections.IntMinHeap;
+import com.tonic.services.pathfinder.collections.StampedIntMap;
+import com.tonic.services.pathfinder.metrics.SearchTrace;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The buffers a single search works in, pooled so repeated finds reuse them instead of
+ * allocating fresh tables and queues every call.
+ *
+ * <p>Every table is generation stamped, so returning a context to the pool costs the same no matter
+ * how many tiles the search touched, only the pages of {@link ParallelSearch} are zeroed and kept.
+ * A context whose tables grew past {@link #MAX_RETAINED_CAPACITY}, about what a long walk touches,
+ * is dropped instead of pooled and spare pages past it are freed, so one huge search does not pin
+ * its memory for the lifetime of the client.</p>
+ */
+@Getter
+public final class SearchContext
+{
+    private static final int MAX_POOLED = 4;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 18;
+    private static final ConcurrentLinkedQueue<SearchContext> POOL = new ConcurrentLinkedQueue<>();
+
+    private final BFSCache visited = new BFSCache();
+    private final HybridIntQueue queue = new HybridIntQueue(1 << 16);
+    private final StampedIntMap costs = new StampedIntMap(20000, AStarSearch.INF);
+    private final StampedIntMap parents = new StampedIntMap(20000, AStarSearch.NO_PARENT);
+    private final StampedIntMap arrivals = new StampedIntMap(20000, AStarSearch.START);
+    private final IntMinHeap open = new IntMinHeap(4096);
+    // only used by ParallelSearch, its region directory is allocated on first use
+    private final AtomicPageTable pages = new AtomicPageTable(ParallelSearch.REGIONS, ParallelSearch.PAGE_SIZE);
+    private volatile boolean cancelled;
+    private int expanded;
+    private int transportsConsidered;
+    @Setter
+    private SearchTrace trace;
+
+    /**
+     * Borrows a context from the pool, creating one if the pool is empty.
+     * @return a cleared context
+     */
+    public static SearchContext acquire()
+    {
+        final SearchContext context = POOL.poll();
+        return context != null ? context : new SearchContext();
+    }
+
+    /**
+     * Clears a context and returns it to the pool, unless its buffers grew too large to keep.
+     * @param context the context, must not be used by the caller afterwards
+     */
+    public static void release(final SearchContext context)
+    {
+        context.clear();
+        context.pages.trim(MAX_RETAINED_CAPACITY);
+        if (context.fits() && POOL.size() < MAX_POOLED)
+        {
+            POOL.offer(context);
+        }
+    }
+
+    /**
+     * Asks the search running in this context to stop. Searches poll the flag and return an empty
+     * result once they see it.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    /**
+     * Counts a tile the search expanded, and traces it if a trace is attached.
+     * @param tile compressed tile
+     */
+    public void expanded(final int tile)
+    {
+        expanded++;
+        if (trace != null)
+        {
+            trace.add(tile);
+        }
+    }
+
+    /**
+     * @param transports how many transports leave the tile being expanded
+     */
+    public void consideredTransports(final int transports)
+    {
+        transportsConsidered += transports;
+    }
+
+    /**
+     * @return the most tiles the search had waiting at once, in either of its queues
+     */
+    public int getQueuePeak()
+    {
+        return Math.max(open.peak(), queue.peak());
+    }
+
+    /**
+     * Empties every buffer, keeping the allocations.
+     */
+    public void clear()
+    {
+        cancelled = false;
+        expanded = 0;
+        transportsConsidered = 0;
+        trace = null;
+        visited.clear();
+        queue.clear();
+        costs.clear();
+        parents.clear();
+        arrivals.clear();
+        open.clear();
+        pages.clear();
+    }
+
+    private boolean fits()
+    {
+        return visited.capacity() <= MAX_RETAINED_CAPACITY
+                && queue.capacity() <= MAX_RETAINED_CAPACITY
+                && costs.capacity() <= MAX_RETAINED_CAPACITY
+                && parents.capacity() <= MAX_RETAINED_CAPACITY
+                && arrivals.capacity() <= MAX_RETAINED_CAPACITY
+                && open.capacity() <= MAX_RETAINED_CAPACITY;
+    }
+}
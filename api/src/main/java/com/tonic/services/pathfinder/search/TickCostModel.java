@@ -0,0 +1,36 @@
+package com.tonic.services.pathfinder.search;
+
+import com.tonic.services.pathfinder.teleports.Teleport;
+import com.tonic.services.pathfinder.transports.Transport;
+
+/**
+ * Prices edges in game ticks, assuming the player is running. One tick covers two tiles, so a
+ * tile costs one unit and a tick costs {@link #TICK} units.
+ */
+public class TickCostModel implements CostModel
+{
+    public static final int TICK = 2;
+
+    /**
+     * Ticks spent on the cast/rub animation of a teleport before the player lands.
+     */
+    private static final int TELEPORT_ANIMATION_TICKS = 3;
+
+    @Override
+    public int stepCost()
+    {
+        return 1;
+    }
+
+    @Override
+    public int transportCost(Transport transport)
+    {
+        return Math.max(transport.getDuration(), 1) * TICK;
+    }
+
+    @Override
+    public int teleportCost(Teleport teleport)
+    {
+        return (teleport.getHandlers().size() + TELEPORT_ANIMATION_TICKS) * TICK;
+    }
+}
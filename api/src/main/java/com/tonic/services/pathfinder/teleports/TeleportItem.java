@@ -111,10 +111,23 @@ public enum TeleportItem
 
     public boolean canUse()
     {
-        return hasRequirements() && InventoryAPI.getItem(i -> ArrayUtils.contains(itemIds, i.getId())) != null;
+        return hasRequirements() && hasItem();
+    }
+
+    public boolean hasItem()
+    {
+        return InventoryAPI.getItem(i -> ArrayUtils.contains(itemIds, i.getId())) != null;
     }
 
     public boolean hasRequirements()
+    {
+        return isUnlocked() && isUsableAt(PlayerAPI.getLocal().getWorldLocation());
+    }
+
+    /**
+     * The requirements that do not depend on where the player stands, only on quests and vars.
+     */
+    public boolean isUnlocked()
     {
         boolean hasQuestReqs = true; //(requirement == null || Quests.getState(requirement) == QuestState.FINISHED);
         switch (this)
@@ -130,12 +143,19 @@ public enum TeleportItem
                 return hasQuestReqs && VarAPI.getVarp(165) >= 30;
             case SALVE_GRAVEYARD_TELEPORT_TAB:
                 return hasQuestReqs && VarAPI.getVarp(302) >= 61;
-            case QUETZAL_WHISTLE:
-                //cannot be used from within the hunter guild
-                int regionID = PlayerAPI.getLocal().getWorldLocation().getRegionID();
-                return hasQuestReqs && regionID != 6191 && regionID != 6291;
             default:
                 return hasQuestReqs;
         }
     }
-}
\ No newline at end of file
+
+    public boolean isUsableAt(WorldPoint location)
+    {
+        if (this == QUETZAL_WHISTLE)
+        {
+            //cannot be used from within the hunter guild
+            int regionID = location.getRegionID();
+            return regionID != 6191 && regionID != 6291;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,364 @@
+package com.tonic.services.pathfinder.transports;
+
+import com.google.gson.Gson;
+import com.tonic.services.pathfinder.model.TransportDto;
+import com.tonic.services.pathfinder.requirements.*;
+import com.tonic.util.WorldPointUtil;
+import net.runelite.api.Quest;
+import net.runelite.api.QuestState;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Binary form of transports.json, compiled at build time so startup does not have to parse and
+ * reflect over the JSON.
+ *
+ * <p>transports.json stays the file that is edited, {@link #main(String[])} turns it into
+ * transports.bin when the jar is built. The binary holds a table of interned strings (actions and
+ * enum names), a table of distinct requirement sets encoded as short opcode programs, and one
+ * fixed size record per transport with packed source and destination tiles. Transports with the
+ * same requirements share one {@link Requirements} instance after loading.</p>
+ */
+public final class TransportDatabase
+{
+    public static final String RESOURCE = "transports.bin";
+
+    private static final int MAGIC = 0x5654524E; // VTRN
+    private static final int VERSION = 1;
+
+    private static final int OP_END = 0;
+    private static final int OP_VAR = 1;
+    private static final int OP_SKILL = 2;
+    private static final int OP_ITEM = 3;
+    private static final int OP_QUEST = 4;
+    private static final int OP_WORLD = 5;
+
+    private static final int NULL_BOOLEAN = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+
+    private TransportDatabase()
+    {
+    }
+
+    /**
+     * Compiles transports.json into transports.bin.
+     * @param args the json file to read and the binary file to write
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            System.err.println("Usage: TransportDatabase <transports.json> <transports.bin>");
+            System.exit(1);
+        }
+        final TransportDto[] transports;
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8))
+        {
+            transports = new Gson().fromJson(reader, TransportDto[].class);
+        }
+        final Path out = Paths.get(args[1]);
+        if (out.getParent() != null)
+        {
+            Files.createDirectories(out.getParent());
+        }
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(out)))
+        {
+            write(transports, stream);
+        }
+        System.out.println("Compiled " + transports.length + " transports into " + out);
+    }
+
+    /**
+     * @param transports the transports as read from transports.json
+     * @param stream where to write the binary form, left open
+     */
+    public static void write(TransportDto[] transports, OutputStream stream) throws IOException
+    {
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        final Map<ByteBuffer, Integer> programs = new LinkedHashMap<>();
+        final int[] actions = new int[transports.length];
+        final int[] requirements = new int[transports.length];
+        for (int i = 0; i < transports.length; i++)
+        {
+            final TransportDto transport = transports[i];
+            actions[i] = intern(strings, transport.getAction());
+            final ByteBuffer program = ByteBuffer.wrap(compile(transport.getRequirements(), strings));
+            requirements[i] = programs.computeIfAbsent(program, k -> programs.size());
+        }
+
+        final DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        for (String string : strings.keySet())
+        {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(programs.size());
+        for (ByteBuffer program : programs.keySet())
+        {
+            out.writeInt(program.remaining());
+            out.write(program.array(), program.position(), program.remaining());
+        }
+        out.writeInt(transports.length);
+        for (int i = 0; i < transports.length; i++)
+        {
+            final TransportDto transport = transports[i];
+            out.writeInt(WorldPointUtil.compress(transport.getSource()));
+            out.writeInt(WorldPointUtil.compress(transport.getDestination()));
+            out.writeInt(transport.getObjectId());
+            out.writeShort(actions[i]);
+            out.writeShort(requirements[i]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the whole binary form in one go.
+     * @param stream the binary form, left open
+     * @return the transports in the order they were written
+     * @throws IOException if the stream can not be read or is not a well formed database
+     */
+    public static List<Transport> read(InputStream stream) throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.wrap(stream.readAllBytes());
+        try
+        {
+            return read(buffer);
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e)
+        {
+            throw new IOException("Truncated or corrupt transport database", e);
+        }
+    }
+
+    private static List<Transport> read(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC)
+        {
+            throw new IOException("Not a transport database");
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported transport database version " + version);
+        }
+
+        final String[] strings = new String[count(buffer, 2)];
+        for (int i = 0; i < strings.length; i++)
+        {
+            strings[i] = readUTF(buffer);
+        }
+
+        final Requirements[] requirements = new Requirements[count(buffer, 5)];
+        for (int i = 0; i < requirements.length; i++)
+        {
+            final int length = buffer.getInt();
+            if (length < 1 || length > buffer.remaining())
+            {
+                throw new IOException("Corrupt transport database, requirement program of " + length + " bytes");
+            }
+            final int end = buffer.position() + length;
+            requirements[i] = decode(buffer, strings);
+            if (buffer.position() != end)
+            {
+                throw new IOException("Corrupt transport database, requirement program " + i + " overruns its length");
+            }
+        }
+
+        final int count = count(buffer, 16);
+        final List<Transport> transports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            final WorldPoint source = WorldPointUtil.fromCompressed(buffer.getInt());
+            final WorldPoint destination = WorldPointUtil.fromCompressed(buffer.getInt());
+            final int objectId = buffer.getInt();
+            final String action = string(buffer, strings);
+            final Requirements requirement = requirements[index(buffer, requirements.length)];
+            transports.add(TransportLoader.objectTransport(source, destination, objectId, action, requirement));
+        }
+        return transports;
+    }
+
+    private static byte[] compile(Requirements requirements, Map<String, Integer> strings) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        if (requirements != null)
+        {
+            if (!requirements.getOtherRequirements().isEmpty())
+            {
+                throw new IOException("Other requirements can not be stored in the transport database");
+            }
+            for (VarRequirement req : requirements.getVarRequirements())
+            {
+                out.writeByte(OP_VAR);
+                out.writeShort(intern(strings, req.getComparison().name()));
+                out.writeShort(intern(strings, req.getType().name()));
+                out.writeInt(req.getVar());
+                out.writeInt(req.getValue());
+            }
+            for (SkillRequirement req : requirements.getSkillRequirements())
+            {
+                out.writeByte(OP_SKILL);
+                out.writeShort(intern(strings, req.getSkill().name()));
+                out.writeShort(req.getLevel());
+            }
+            for (ItemRequirement req : requirements.getItemRequirements())
+            {
+                out.writeByte(OP_ITEM);
+                out.writeShort(intern(strings, req.getReduction().name()));
+                out.writeByte(req.isEquipped() == null ? NULL_BOOLEAN : req.isEquipped() ? TRUE : FALSE);
+                out.writeInt(req.getAmount());
+                out.writeShort(req.getIds().size());
+                for (int id : req.getIds())
+                {
+                    out.writeInt(id);
+                }
+            }
+            for (QuestRequirement req : requirements.getQuestRequirements())
+            {
+                out.writeByte(OP_QUEST);
+                out.writeShort(intern(strings, req.getQuest().name()));
+                out.writeByte(req.getStates().size());
+                for (QuestState state : req.getStates())
+                {
+                    out.writeShort(intern(strings, state.name()));
+                }
+            }
+            for (WorldRequirement req : requirements.getWorldRequirements())
+            {
+                out.writeByte(OP_WORLD);
+                out.writeBoolean(req.isMemberWorld());
+            }
+        }
+        out.writeByte(OP_END);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Requirements decode(ByteBuffer buffer, String[] strings) throws IOException
+    {
+        final Requirements requirements = new Requirements();
+        while (true)
+        {
+            final int op = buffer.get();
+            switch (op)
+            {
+                case OP_END:
+                    return requirements;
+                case OP_VAR:
+                {
+                    final Comparison comparison = Comparison.valueOf(string(buffer, strings));
+                    final VarType type = VarType.valueOf(string(buffer, strings));
+                    requirements.addRequirement(new VarRequirement(comparison, type, buffer.getInt(), buffer.getInt()));
+                    break;
+                }
+                case OP_SKILL:
+                {
+                    final Skill skill = Skill.valueOf(string(buffer, strings));
+                    requirements.addRequirement(new SkillRequirement(skill, buffer.getShort()));
+                    break;
+                }
+                case OP_ITEM:
+                {
+                    final Reduction reduction = Reduction.valueOf(string(buffer, strings));
+                    final int equipped = buffer.get();
+                    final int amount = buffer.getInt();
+                    final int[] ids = new int[buffer.getShort() & 0xFFFF];
+                    for (int i = 0; i < ids.length; i++)
+                    {
+                        ids[i] = buffer.getInt();
+                    }
+                    requirements.addRequirement(new ItemRequirement(reduction,
+                            equipped == NULL_BOOLEAN ? null : equipped == TRUE, amount, ids));
+                    break;
+                }
+                case OP_QUEST:
+                {
+                    final Quest quest = Quest.valueOf(string(buffer, strings));
+                    final int count = buffer.get();
+                    final Set<QuestState> states = EnumSet.noneOf(QuestState.class);
+                    for (int i = 0; i < count; i++)
+                    {
+                        states.add(QuestState.valueOf(string(buffer, strings)));
+                    }
+                    requirements.addRequirement(new QuestRequirement(quest, states));
+                    break;
+                }
+                case OP_WORLD:
+                    requirements.addRequirement(new WorldRequirement(buffer.get() != 0));
+                    break;
+                default:
+                    throw new IOException("Unknown requirement opcode " + op);
+            }
+        }
+    }
+
+    /**
+     * Reads a table size, which can not be larger than the rest of the buffer allows.
+     * @param recordSize the smallest size of one record of the table
+     */
+    private static int count(ByteBuffer buffer, int recordSize) throws IOException
+    {
+        final int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / recordSize)
+        {
+            throw new IOException("Corrupt transport database, table of " + count + " records");
+        }
+        return count;
+    }
+
+    private static int index(ByteBuffer buffer, int size) throws IOException
+    {
+        final int index = buffer.getShort() & 0xFFFF;
+        if (index >= size)
+        {
+            throw new IOException("Corrupt transport database, index " + index + " of " + size);
+        }
+        return index;
+    }
+
+    private static String string(ByteBuffer buffer, String[] strings) throws IOException
+    {
+        return strings[index(buffer, strings.length)];
+    }
+
+    private static int intern(Map<String, Integer> strings, String string) throws IOException
+    {
+        if (string == null)
+        {
+            throw new IOException("Transport database strings can not be null");
+        }
+        final Integer index = strings.computeIfAbsent(string, k -> strings.size());
+        if (index > 0xFFFF)
+        {
+            throw new IOException("Too many strings for the transport database");
+        }
+        return index;
+    }
+
+    private static String readUTF(ByteBuffer buffer) throws IOException
+    {
+        final int length = buffer.getShort() & 0xFFFF;
+        if (length > buffer.remaining())
+        {
+            throw new IOException("Corrupt transport database, string of " + length + " bytes");
+        }
+        final String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+}
@@ -0,0 +1,218 @@
+package com.tonic.services.pathfinder.transports;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Read only adjacency index of a published transport map, laid out for the search hot path.
+ *
+ * <p>Which tiles have transports is kept in a bitmap split into 64x64 tile pages, only the pages of
+ * regions that have a transport are allocated. Most tiles the search expands have none, and for
+ * those {@link #row(int)} answers from one page table read and one bit test instead of a hash
+ * probe. The rank of a set bit is the tile's row in a compressed sparse row layout: the edges of
+ * row r are {@code offsets[r]} up to {@code offsets[r + 1]}, and each edge has its other end, its
+ * duration and its {@link Transport} in parallel arrays. Searches store the edge number they
+ * arrived through, so rebuilding the path never has to search a tile's transports again.</p>
+ */
+public final class TransportIndex
+{
+    public static final int NO_ROW = -1;
+
+    private static final int PAGE_BITS = 6;
+    private static final int PAGE_WORDS = 1 << (PAGE_BITS * 2 - 6);
+    private static final int REGIONS = 1 << 19;
+
+    public static final TransportIndex EMPTY = new TransportIndex(new TIntObjectHashMap<>(), false);
+
+    // 1 + the page of every 64x64 region, 0 if it has no transports
+    private final short[] pages;
+    private final long[] bits;
+    // rows before the first bit of each word
+    private final int[] ranks;
+    private final int[] offsets;
+    private final int[] destinations;
+    private final int[] durations;
+    private final Transport[] transports;
+
+    /**
+     * @param transports the transports keyed by tile, as published by {@link TransportLoader}
+     * @param reverse true if the map is keyed by destination, edges then lead back to the source
+     */
+    public TransportIndex(TIntObjectHashMap<ArrayList<Transport>> transports, boolean reverse)
+    {
+        final int[] tiles = transports.keys();
+        int pageCount = 0;
+        final short[] pages = new short[REGIONS];
+        Arrays.sort(tiles);
+        for (int tile : tiles)
+        {
+            final int region = region(tile);
+            if (region == -1)
+            {
+                throw new IllegalArgumentException("Transport on unsupported plane: " + tile);
+            }
+            if (pages[region] == 0)
+            {
+                if (pageCount == Short.MAX_VALUE)
+                {
+                    throw new IllegalArgumentException("Too many transport regions");
+                }
+                pages[region] = (short) ++pageCount;
+            }
+        }
+
+        this.pages = pages;
+        this.bits = new long[pageCount * PAGE_WORDS];
+        for (int tile : tiles)
+        {
+            final int bit = bit(tile);
+            bits[word(pages[region(tile)], bit)] |= 1L << bit;
+        }
+        this.ranks = new int[bits.length];
+        int rank = 0;
+        for (int i = 0; i < bits.length; i++)
+        {
+            ranks[i] = rank;
+            rank += Long.bitCount(bits[i]);
+        }
+
+        final Transport[][] rows = new Transport[rank][];
+        int edgeCount = 0;
+        for (int tile : tiles)
+        {
+            final ArrayList<Transport> list = transports.get(tile);
+            rows[row(tile)] = list.toArray(new Transport[0]);
+            edgeCount += list.size();
+        }
+
+        this.offsets = new int[rank + 1];
+        this.destinations = new int[edgeCount];
+        this.durations = new int[edgeCount];
+        this.transports = new Transport[edgeCount];
+        int edge = 0;
+        for (int r = 0; r < rank; r++)
+        {
+            offsets[r] = edge;
+            for (Transport transport : rows[r])
+            {
+                destinations[edge] = reverse ? transport.getSource() : transport.getDestination();
+                durations[edge] = transport.getDuration();
+                this.transports[edge] = transport;
+                edge++;
+            }
+        }
+        offsets[rank] = edge;
+    }
+
+    /**
+     * @param tile a compressed tile
+     * @return the tile's row, or {@link #NO_ROW} if it has no transports
+     */
+    public int row(final int tile)
+    {
+        final int region = region(tile);
+        if (region == -1)
+        {
+            return NO_ROW;
+        }
+        final int page = pages[region];
+        if (page == 0)
+        {
+            return NO_ROW;
+        }
+        // long shifts only use the low 6 bits of the distance, the bit's place in its word
+        final int bit = bit(tile);
+        final int word = word(page, bit);
+        final long mask = bits[word];
+        if ((mask & (1L << bit)) == 0)
+        {
+            return NO_ROW;
+        }
+        return ranks[word] + Long.bitCount(mask & ((1L << bit) - 1));
+    }
+
+    /**
+     * @param tile a compressed tile
+     * @return true if at least one transport leaves the tile
+     */
+    public boolean contains(final int tile)
+    {
+        return row(tile) != NO_ROW;
+    }
+
+    /**
+     * @return the first edge of the row
+     */
+    public int start(final int row)
+    {
+        return offsets[row];
+    }
+
+    /**
+     * @return one past the last edge of the row
+     */
+    public int end(final int row)
+    {
+        return offsets[row + 1];
+    }
+
+    /**
+     * @return the compressed tile the edge leads to
+     */
+    public int destination(final int edge)
+    {
+        return destinations[edge];
+    }
+
+    /**
+     * @return the duration of the edge's transport
+     */
+    public int duration(final int edge)
+    {
+        return durations[edge];
+    }
+
+    public Transport transport(final int edge)
+    {
+        return transports[edge];
+    }
+
+    /**
+     * @return the number of edges, edges are numbered from 0
+     */
+    public int edgeCount()
+    {
+        return transports.length;
+    }
+
+    public int tileCount()
+    {
+        return offsets.length - 1;
+    }
+
+    private static int region(final int tile)
+    {
+        final int z = tile >>> 29;
+        if (z > 3)
+        {
+            return -1;
+        }
+        final int x = tile & 0x3FFF;
+        final int y = (tile >>> 14) & 0x7FFF;
+        return (x >>> PAGE_BITS) | (y >>> PAGE_BITS) << 8 | z << 17;
+    }
+
+    private static int bit(final int tile)
+    {
+        final int x = tile & 0x3F;
+        final int y = (tile >>> 14) & 0x3F;
+        return x | y << PAGE_BITS;
+    }
+
+    private static int word(final int page, final int bit)
+    {
+        return (page - 1) * PAGE_WORDS + (bit >>> 6);
+    }
+}
@@ -26,6 +26,7 @@ import com.tonic.services.pathfinder.teleports.MovementConstants;
 import com.tonic.services.pathfinder.transports.data.*;
 import com.tonic.util.WorldPointUtil;
 import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
 import net.runelite.api.*;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.gameval.InterfaceID;
@@ -37,6 +38,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.tonic.services.pathfinder.teleports.MovementConstants.SLASH_ITEMS;
@@ -47,36 +50,114 @@ public class TransportLoader
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
 
     private static final TIntObjectHashMap<ArrayList<Transport>> ALL_STATIC_TRANSPORTS = new TIntObjectHashMap<>();
-    private static final TIntObjectHashMap<ArrayList<Transport>> LAST_TRANSPORT_LIST = new TIntObjectHashMap<>();
+    // replaced, never mutated, once published so searches can keep using the map they started with
+    private static volatile TIntObjectHashMap<ArrayList<Transport>> LAST_TRANSPORT_LIST = new TIntObjectHashMap<>();
+    private static volatile TIntObjectHashMap<ArrayList<Transport>> LAST_TRANSPORT_BY_DESTINATION = new TIntObjectHashMap<>();
+    private static volatile TransportIndex LAST_TRANSPORT_INDEX = TransportIndex.EMPTY;
+    private static volatile TransportIndex LAST_TRANSPORT_INDEX_BY_DESTINATION = TransportIndex.EMPTY;
     private static List<Transport> TEMP_TRANSPORTS;
 
+    // ALL_STATIC_TRANSPORTS flattened, with what each one's requirements read and whether they held
+    // at the last refresh, so a refresh only re-checks the ones that depend on what changed
+    private static Transport[] STATIC_TRANSPORTS = new Transport[0];
+    private static int[] STATIC_DEPENDENCIES = new int[0];
+    private static boolean[] STATIC_FULFILLED = new boolean[0];
+    // false until a filtered refresh has checked every static transport once, requirements that read
+    // nothing never match a change and would otherwise never be marked fulfilled
+    private static boolean staticChecked = false;
+    private static final AtomicInteger CHANGES = new AtomicInteger(Dependency.ALL);
+    // whether LAST_TRANSPORT_LIST is a filtered list, only then can a refresh be skipped
+    private static volatile boolean filteredPublished = false;
+
+    // the generated transports that do not depend on the client, built once on the client thread
+    private static TransportGroup HARDCODED_GROUP;
+    private static TransportGroup MEMBERS_GROUP;
+    private static TransportGroup LUMBY_CAVE_GROUP;
+    private static TransportGroup SHANTAY_PASS_GROUP;
+
+    // the last real level of each skill, and the boosted agility level refreshTransports reads
+    private static final EnumMap<Skill, Integer> REAL_LEVELS = new EnumMap<>(Skill.class);
+    private static int boostedAgility = -1;
+
+    // vars and quests that can change the filtered list, only touched on the client thread
+    private static final TIntHashSet WATCHED_VARBITS = new TIntHashSet();
+    private static final TIntHashSet WATCHED_VARPS = new TIntHashSet();
+    private static final EnumMap<Quest, QuestState> QUEST_STATES = new EnumMap<>(Quest.class);
+    // read directly by refreshTransports instead of through a Requirement
+    private static final int[] HARDCODED_VARBITS = {
+            VarbitID.ZEAH_PLAYERHASVISITED, VarbitID.CLUEQUEST, VarbitID.VM_KUDOS, VarbitID.CORSCURS_PROGRESS, 279
+    };
+    private static final int[] HARDCODED_VARPS = {VarPlayerID.TREEQUEST, 934};
+    private static final Quest[] HARDCODED_QUESTS = {
+            Quest.PIRATES_TREASURE, Quest.A_KINGDOM_DIVIDED, Quest.LUNAR_DIPLOMACY, Quest.THE_LOST_TRIBE,
+            Quest.TREE_GNOME_VILLAGE, Quest.THE_FREMENNIK_TRIALS, Quest.RECIPE_FOR_DISASTER, Quest.THE_CORSAIR_CURSE
+    };
+
     public static void init()
     {
+        List<Transport> list = loadStaticTransports();
+        if (list == null)
+        {
+            return;
+        }
+
+        for(Transport transport : list)
+        {
+            computeIfAbsent(ALL_STATIC_TRANSPORTS, transport);
+        }
+
+        STATIC_TRANSPORTS = list.toArray(new Transport[0]);
+        STATIC_DEPENDENCIES = new int[STATIC_TRANSPORTS.length];
+        STATIC_FULFILLED = new boolean[STATIC_TRANSPORTS.length];
+        for (int i = 0; i < STATIC_TRANSPORTS.length; i++)
+        {
+            STATIC_DEPENDENCIES[i] = STATIC_TRANSPORTS[i].getRequirements().getDependencies();
+        }
+        staticChecked = false;
+
+        System.out.println("Loaded " + ALL_STATIC_TRANSPORTS.size() + " transports");
+    }
+
+    /**
+     * Reads the transports compiled into {@link TransportDatabase#RESOURCE} at build time, or
+     * transports.json when running from a tree that was not built with it.
+     * @return the transports, or null if neither could be read
+     */
+    private static List<Transport> loadStaticTransports()
+    {
+        try (InputStream stream = Walker.class.getResourceAsStream(TransportDatabase.RESOURCE))
+        {
+            if (stream != null)
+            {
+                return TransportDatabase.read(stream);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            System.err.println("Failed to load " + TransportDatabase.RESOURCE + ", falling back to transports.json");
+            e.printStackTrace();
+        }
+
         try (InputStream stream = Walker.class.getResourceAsStream("transports.json"))
         {
             if (stream == null)
             {
                 System.err.println("transports.json not found!");
-                return;
+                return null;
             }
 
             TransportDto[] json = GSON.fromJson(new String(stream.readAllBytes()), TransportDto[].class);
 
-            List<Transport> list = Arrays.stream(json)
+            return Arrays.stream(json)
                     .map(TransportDto::toTransport)
                     .collect(Collectors.toList());
-            for(Transport transport : list)
-            {
-                computeIfAbsent(ALL_STATIC_TRANSPORTS, transport);
-            }
         }
         catch (IOException e)
         {
             System.err.println("Failed to load transports");
             e.printStackTrace();
+            return null;
         }
-
-        System.out.println("Loaded " + ALL_STATIC_TRANSPORTS.size() + " transports");
     }
 
     public static TIntObjectHashMap<ArrayList<Transport>> getTransports()
@@ -84,6 +165,35 @@ public class TransportLoader
         return LAST_TRANSPORT_LIST;
     }
 
+    /**
+     * The same transports as {@link #getTransports()}, keyed by destination instead of source.
+     * Used to walk transports backwards.
+     * @return transports keyed by their destination tile
+     */
+    public static TIntObjectHashMap<ArrayList<Transport>> getTransportsByDestination()
+    {
+        return LAST_TRANSPORT_BY_DESTINATION;
+    }
+
+    /**
+     * The search index of {@link #getTransports()}, published together with it.
+     * @return the live transports indexed by source tile
+     */
+    public static TransportIndex getTransportIndex()
+    {
+        return LAST_TRANSPORT_INDEX;
+    }
+
+    /**
+     * The search index of {@link #getTransportsByDestination()}, its edges lead from the
+     * destination back to the source.
+     * @return the live transports indexed by destination tile
+     */
+    public static TransportIndex getTransportIndexByDestination()
+    {
+        return LAST_TRANSPORT_INDEX_BY_DESTINATION;
+    }
+
     private static void computeIfAbsent(final TIntObjectHashMap<ArrayList<Transport>> transports, Transport transport)
     {
         computeIfAbsent(transports, transport.getSource(), transport);
@@ -104,19 +214,155 @@ public class TransportLoader
         refreshTransports(true);
     }
 
+    /**
+     * Rebuilds the live transport list. A filtered refresh is skipped, and the list already
+     * published is kept, when nothing the requirements depend on has changed since the last one.
+     * @param filter whether to drop transports whose requirements are not met
+     */
     public static void refreshTransports(boolean filter)
     {
-        boolean lock = Static.invoke(() ->
+        final TIntObjectHashMap<ArrayList<Transport>> transports = new TIntObjectHashMap<>();
+        final TIntObjectHashMap<ArrayList<Transport>> byDestination = new TIntObjectHashMap<>();
+        if (!refreshTransports(transports, filter))
+        {
+            return;
+        }
+        transports.forEachValue(list -> {
+            for (Transport transport : list)
+            {
+                computeIfAbsent(byDestination, transport.getDestination(), transport);
+            }
+            return true;
+        });
+        LAST_TRANSPORT_INDEX_BY_DESTINATION = new TransportIndex(byDestination, true);
+        LAST_TRANSPORT_INDEX = new TransportIndex(transports, false);
+        LAST_TRANSPORT_BY_DESTINATION = byDestination;
+        LAST_TRANSPORT_LIST = transports;
+        filteredPublished = filter;
+    }
+
+    /**
+     * Notes that something transport requirements can depend on has changed, so the next filtered
+     * refresh re-checks the transports that depend on it.
+     * @param dependencies {@link Dependency} flags
+     */
+    public static void invalidate(int dependencies)
+    {
+        CHANGES.accumulateAndGet(dependencies, (a, b) -> a | b);
+    }
+
+    /**
+     * Called on the client thread for every var change. Vars a requirement reads invalidate
+     * {@link Dependency#VARS}, any other var may still move a quest along and only invalidates
+     * {@link Dependency#QUESTS}, which is re-checked against the last known quest states.
+     * @param varbitId the varbit that changed, or -1 if a varp changed
+     * @param varpId the varp that changed
+     */
+    public static void onVarChanged(int varbitId, int varpId)
+    {
+        if (WATCHED_VARPS.contains(varpId) || (varbitId != -1 && WATCHED_VARBITS.contains(varbitId)))
+        {
+            invalidate(Dependency.VARS);
+        }
+        else
         {
+            invalidate(Dependency.QUESTS);
+        }
+    }
+
+    /**
+     * Called on the client thread for every stat change. Only a change of a real level, or of the
+     * boosted agility level a hardcoded transport checks, invalidates {@link Dependency#SKILLS};
+     * experience drops alone change neither.
+     * @param skill the skill that changed
+     * @param realLevel its real level
+     * @param boostedLevel its boosted level
+     */
+    public static void onStatChanged(Skill skill, int realLevel, int boostedLevel)
+    {
+        final Integer last = REAL_LEVELS.put(skill, realLevel);
+        boolean changed = last == null || last != realLevel;
+        if (skill == Skill.AGILITY && boostedLevel != boostedAgility)
+        {
+            boostedAgility = boostedLevel;
+            changed = true;
+        }
+        if (changed)
+        {
+            invalidate(Dependency.SKILLS);
+        }
+    }
+
+    /**
+     * Builds every known transport into a new map, ignoring requirements. Unlike
+     * {@link #refreshTransports(boolean)} this leaves the live transport list untouched.
+     * @return all transports keyed by their source tile
+     */
+    public static TIntObjectHashMap<ArrayList<Transport>> buildUnfilteredTransports()
+    {
+        final TIntObjectHashMap<ArrayList<Transport>> all = new TIntObjectHashMap<>();
+        refreshTransports(all, false);
+        return all;
+    }
+
+    /**
+     * Builds the transports that do not need a client into a new map, ignoring requirements: the
+     * ones read by {@link #init()} and the fairy ring network. Used by offline tooling such as the
+     * benchmarks, {@link #init()} must have been called first.
+     * @return the transports keyed by their source tile
+     */
+    public static TIntObjectHashMap<ArrayList<Transport>> buildOfflineTransports()
+    {
+        final TIntObjectHashMap<ArrayList<Transport>> all = new TIntObjectHashMap<>();
+        for (Transport transport : STATIC_TRANSPORTS)
+        {
+            computeIfAbsent(all, transport);
+        }
+        fairyRings(all);
+        return all;
+    }
+
+    /**
+     * @return false if the refresh was skipped because nothing changed since the last filtered one
+     */
+    private static boolean refreshTransports(final TIntObjectHashMap<ArrayList<Transport>> target, boolean filter)
+    {
+        return Static.invoke(() ->
+        {
+            buildGroups();
+            int changes = Dependency.ALL;
+            if (filter)
+            {
+                changes = CHANGES.getAndSet(0);
+                if ((changes & Dependency.QUESTS) != 0 && !questsChanged())
+                {
+                    changes &= ~Dependency.QUESTS;
+                }
+                if (changes == 0 && filteredPublished)
+                {
+                    return false;
+                }
+                if (!filteredPublished)
+                {
+                    changes = Dependency.ALL;
+                }
+            }
+
             List<Transport> filteredStatic = new ArrayList<>();
-            for (ArrayList<Transport> list : ALL_STATIC_TRANSPORTS.valueCollection()) {
-                for(var transport : list)
+            for (int i = 0; i < STATIC_TRANSPORTS.length; i++)
+            {
+                if (filter && (!staticChecked || (STATIC_DEPENDENCIES[i] & changes) != 0))
                 {
-                    if(transport.getRequirements().fulfilled() || !filter)
-                    {
-                        filteredStatic.add(transport);
-                    }
+                    STATIC_FULFILLED[i] = STATIC_TRANSPORTS[i].getRequirements().fulfilled();
                 }
+                if (STATIC_FULFILLED[i] || !filter)
+                {
+                    filteredStatic.add(STATIC_TRANSPORTS[i]);
+                }
+            }
+            if (filter)
+            {
+                staticChecked = true;
             }
 
             List<Transport> transports = new ArrayList<>();
@@ -408,52 +654,144 @@ public class TransportLoader
 //            }
             }
 
-            LAST_TRANSPORT_LIST.clear();
-            hardcodedBullshit(LAST_TRANSPORT_LIST);
+            target.clear();
+            for (Transport transport : transports)
+            {
+                computeIfAbsent(target, transport);
+            }
 
-            addManholes(LAST_TRANSPORT_LIST);
-            if(WorldsAPI.inMembersWorld() || !filter)
+            if(filter)
             {
-                zannerisDoor(LAST_TRANSPORT_LIST);
-                veos(LAST_TRANSPORT_LIST);
-                barnaby(LAST_TRANSPORT_LIST);
-                charterShip(LAST_TRANSPORT_LIST);
-                spiritTrees(LAST_TRANSPORT_LIST);
-                kourendMinecartNetwork(LAST_TRANSPORT_LIST);
-                gnomeGliders(LAST_TRANSPORT_LIST);
-                fairyRings(LAST_TRANSPORT_LIST);
-                dwarvenCarts(LAST_TRANSPORT_LIST);
-                canoes(LAST_TRANSPORT_LIST);
+                watch(target);
+                // the groups and static transports are checked on their own
+                target.forEachValue(list -> {
+                    list.removeIf(t -> !t.getRequirements().fulfilled());
+                    return true;
+                });
+                target.retainEntries((key, value) ->  !value.isEmpty());
             }
-            if(VarAPI.getVar(279) == 1 || InventoryAPI.contains(ItemID.ROPE) || !filter)
+
+            HARDCODED_GROUP.addTo(target, changes, filter, true);
+            MEMBERS_GROUP.addTo(target, changes, filter, WorldsAPI.inMembersWorld());
+            LUMBY_CAVE_GROUP.addTo(target, changes, filter, VarAPI.getVar(279) == 1 || InventoryAPI.contains(ItemID.ROPE));
+            SHANTAY_PASS_GROUP.addTo(target, changes, filter, InventoryAPI.count(ItemID.COINS_995) > 10 || InventoryAPI.contains(ItemID.SHANTAY_PASS));
+
+            for (Transport transport : filteredStatic) {
+                computeIfAbsent(target, transport);
+            }
+
+            return true;
+        });
+    }
+
+    /**
+     * Collects the vars and quests the requirements of every known transport read. Runs on the
+     * client thread.
+     * @param generated the transports built by this refresh outside of a group, before filtering
+     */
+    private static void watch(final TIntObjectHashMap<ArrayList<Transport>> generated)
+    {
+        WATCHED_VARBITS.clear();
+        WATCHED_VARPS.clear();
+        QUEST_STATES.clear();
+        WATCHED_VARBITS.addAll(HARDCODED_VARBITS);
+        WATCHED_VARPS.addAll(HARDCODED_VARPS);
+        for (int varbit : MovementConstants.DRAYNOR_MANOR_BASEMENT_DOORS.keySet())
+        {
+            WATCHED_VARBITS.add(varbit);
+        }
+        for (Quest quest : HARDCODED_QUESTS)
+        {
+            QUEST_STATES.put(quest, QuestAPI.getState(quest));
+        }
+        for (Transport transport : STATIC_TRANSPORTS)
+        {
+            watch(transport.getRequirements());
+        }
+        for (TransportGroup group : new TransportGroup[]{HARDCODED_GROUP, MEMBERS_GROUP, LUMBY_CAVE_GROUP, SHANTAY_PASS_GROUP})
+        {
+            for (Transport transport : group.transports)
             {
-                computeIfAbsent(LAST_TRANSPORT_LIST, lumbyCave());
+                watch(transport.getRequirements());
             }
-            if(InventoryAPI.count(ItemID.COINS_995) > 10 || InventoryAPI.contains(ItemID.SHANTAY_PASS) || !filter)
+        }
+        generated.forEachValue(list -> {
+            for (Transport transport : list)
             {
-                computeIfAbsent(LAST_TRANSPORT_LIST, shantyPass());
+                watch(transport.getRequirements());
             }
+            return true;
+        });
+    }
 
-            for (Transport transport : transports)
+    private static void watch(Requirements requirements)
+    {
+        for (VarRequirement requirement : requirements.getVarRequirements())
+        {
+            if (requirement.getType() == VarType.VARBIT)
             {
-                computeIfAbsent(LAST_TRANSPORT_LIST, transport);
+                WATCHED_VARBITS.add(requirement.getVar());
             }
-            for (Transport transport : filteredStatic) {
-                computeIfAbsent(LAST_TRANSPORT_LIST, transport);
+            else
+            {
+                WATCHED_VARPS.add(requirement.getVar());
+            }
+        }
+        for (QuestRequirement requirement : requirements.getQuestRequirements())
+        {
+            if (!QUEST_STATES.containsKey(requirement.getQuest()))
+            {
+                QUEST_STATES.put(requirement.getQuest(), QuestAPI.getState(requirement.getQuest()));
             }
+        }
+    }
 
-            if(filter)
+    /**
+     * Re-reads the state of every watched quest. Runs on the client thread.
+     * @return whether any of them moved since the last check
+     */
+    private static boolean questsChanged()
+    {
+        boolean changed = false;
+        for (Map.Entry<Quest, QuestState> entry : QUEST_STATES.entrySet())
+        {
+            final QuestState state = QuestAPI.getState(entry.getKey());
+            if (state != entry.getValue())
             {
-                LAST_TRANSPORT_LIST.forEachValue(list -> list.removeIf(t -> !t.getRequirements().fulfilled()));
-                        LAST_TRANSPORT_LIST.forEachValue(list -> {
-                    list.removeIf(t -> !t.getRequirements().fulfilled());
-                    return true;
-                });
-                LAST_TRANSPORT_LIST.retainEntries((key, value) ->  !value.isEmpty());
+                entry.setValue(state);
+                changed = true;
             }
+        }
+        return changed;
+    }
 
-            return true;
+    /**
+     * Builds the generated transports that do not read the client once, on the first refresh.
+     */
+    private static void buildGroups()
+    {
+        if (HARDCODED_GROUP != null)
+        {
+            return;
+        }
+        HARDCODED_GROUP = new TransportGroup(transports -> {
+            hardcodedBullshit(transports);
+            addManholes(transports);
+        });
+        MEMBERS_GROUP = new TransportGroup(transports -> {
+            zannerisDoor(transports);
+            veos(transports);
+            barnaby(transports);
+            charterShip(transports);
+            spiritTrees(transports);
+            kourendMinecartNetwork(transports);
+            gnomeGliders(transports);
+            fairyRings(transports);
+            dwarvenCarts(transports);
+            canoes(transports);
         });
+        LUMBY_CAVE_GROUP = new TransportGroup(transports -> computeIfAbsent(transports, lumbyCave()));
+        SHANTAY_PASS_GROUP = new TransportGroup(transports -> computeIfAbsent(transports, shantyPass()));
     }
 
     private static void canoes(final TIntObjectHashMap<ArrayList<Transport>> transports)
@@ -1221,4 +1559,69 @@ public class TransportLoader
         Transport transport = LongTransport.addObjectTransport(delay, requirements, source, destination, objectID, action, options);
         computeIfAbsent(transports, WorldPointUtil.compress(source), transport);
     }
+
+    /**
+     * Generated transports built once and kept like the static ones, with what each one's
+     * requirements read and whether they held at the last filtered refresh. Their gate, such as
+     * being on a members world, is read by every refresh instead.
+     */
+    private static final class TransportGroup
+    {
+        private final Transport[] transports;
+        private final int[] dependencies;
+        private final boolean[] fulfilled;
+        private boolean checked = false;
+
+        TransportGroup(Consumer<TIntObjectHashMap<ArrayList<Transport>>> builder)
+        {
+            final TIntObjectHashMap<ArrayList<Transport>> built = new TIntObjectHashMap<>();
+            builder.accept(built);
+            final List<Transport> list = new ArrayList<>();
+            built.forEachValue(values -> {
+                list.addAll(values);
+                return true;
+            });
+            transports = list.toArray(new Transport[0]);
+            dependencies = new int[transports.length];
+            fulfilled = new boolean[transports.length];
+            for (int i = 0; i < transports.length; i++)
+            {
+                dependencies[i] = transports[i].getRequirements().getDependencies();
+            }
+        }
+
+        /**
+         * Re-checks the transports whose requirements depend on what changed, even while the gate
+         * is closed, and adds the usable ones.
+         * @param target the map being built
+         * @param changes the {@link Dependency} flags that changed since the last filtered refresh
+         * @param filter whether to drop transports whose requirements are not met
+         * @param open whether the group applies at all
+         */
+        void addTo(final TIntObjectHashMap<ArrayList<Transport>> target, int changes, boolean filter, boolean open)
+        {
+            if (filter)
+            {
+                for (int i = 0; i < transports.length; i++)
+                {
+                    if (!checked || (dependencies[i] & changes) != 0)
+                    {
+                        fulfilled[i] = transports[i].getRequirements().fulfilled();
+                    }
+                }
+                checked = true;
+            }
+            if (filter && !open)
+            {
+                return;
+            }
+            for (int i = 0; i < transports.length; i++)
+            {
+                if (fulfilled[i] || !filter)
+                {
+                    computeIfAbsent(target, transports[i]);
+                }
+            }
+        }
+    }
 }
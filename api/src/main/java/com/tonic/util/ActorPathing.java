@@ -6,6 +6,7 @@ import com.tonic.services.pathfinder.Pathfinder;
 import com.tonic.services.pathfinder.collision.CollisionMap;
 import com.tonic.services.pathfinder.collision.Flags;
 import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.local.SceneCollisionSnapshot;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.runelite.api.Actor;
 import net.runelite.api.Client;
@@ -119,7 +120,7 @@ public class ActorPathing
         Client client = Static.getClient();
         if(client.getTopLevelWorldView().isInstance())
         {
-            localCollisionMap = localMap;
+            localCollisionMap = localMap != null ? localMap : new LocalCollisionMap(SceneCollisionSnapshot.current());
         }
 
         List<WorldPoint> path = new ArrayList<>();
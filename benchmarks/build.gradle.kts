@@ -0,0 +1,91 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+group = "com.tonic"
+version = rootProject.version
+
+repositories {
+    mavenLocal()
+    maven {
+        url = uri("https://repo.runelite.net")
+        content {
+            includeGroupByRegex("net\\.runelite.*")
+        }
+    }
+    mavenCentral()
+}
+
+val runeLiteVersion = "latest.release"
+
+dependencies {
+    // the api only declares these compileOnly, the benchmarks run without a client so they need them at runtime
+    jmh(project(":api"))
+    jmh(project(":base-api"))
+    jmh("net.runelite:client:$runeLiteVersion")
+    jmh("net.sf.trove4j:trove4j:3.0.3")
+    jmh("it.unimi.dsi:fastutil:8.5.11")
+    jmhCompileOnly("org.projectlombok:lombok:1.18.24")
+    jmhAnnotationProcessor("org.projectlombok:lombok:1.18.24")
+}
+
+// -PvitaliteMap=<path to map.dat> when map.dat is not in the api's resources
+val mapArgs = listOfNotNull(project.findProperty("vitaliteMap")?.let { "-Dvitalite.map=$it" })
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    jvmArgsAppend.addAll(listOf("-Xmx4g", "-Djava.awt.headless=true") + mapArgs)
+    // -PjmhIncludes=PathfinderBenchmark to run a subset
+    if (project.hasProperty("jmhIncludes")) {
+        includes.add(project.property("jmhIncludes").toString())
+    }
+}
+
+val goldenPaths = file("src/jmh/resources/golden-paths.txt")
+
+// fails when a scenario's route or its cost differs from the recorded one
+val verifyGoldenPaths by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Checks the benchmark scenarios still produce the recorded routes"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.tonic.benchmarks.GoldenPaths")
+    jvmArgs(listOf("-Xmx4g", "-Djava.awt.headless=true") + mapArgs)
+    args("verify", goldenPaths.absolutePath)
+}
+
+// run after an intended routing change and commit the result
+val recordGoldenPaths by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Records the routes of the benchmark scenarios as the new golden paths"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.tonic.benchmarks.GoldenPaths")
+    jvmArgs(listOf("-Xmx4g", "-Djava.awt.headless=true") + mapArgs)
+    args("record", goldenPaths.absolutePath)
+}
+
+// prints tiles expanded and search time of A* and JPS side by side, fails if JPS expands more
+val compareJumpPoints by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Checks jump point search expands fewer tiles than A* on the benchmark scenarios"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.tonic.benchmarks.JumpPointReport")
+    jvmArgs(listOf("-Xmx4g", "-Djava.awt.headless=true") + mapArgs)
+}
+
+// prints search time of A* and the parallel search side by side, and how many buckets ran on the pool
+val compareParallel by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Measures the parallel search against A* on the benchmark scenarios"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.tonic.benchmarks.ParallelReport")
+    // -PparallelThreshold=<tiles> to try another bucket size for the pool
+    val threshold = listOfNotNull(project.findProperty("parallelThreshold")?.let { "-Dvitalite.parallelThreshold=$it" })
+    jvmArgs(listOf("-Xmx4g", "-Djava.awt.headless=true") + mapArgs + threshold)
+}
+
+// benchmarks are not a library, the root project applies maven-publish to every subproject
+tasks.withType<PublishToMavenRepository>().configureEach { enabled = false }
+tasks.withType<PublishToMavenLocal>().configureEach { enabled = false }
@@ -0,0 +1,132 @@
+package com.tonic.benchmarks;
+
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.local.SceneCollisionSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per tile collision lookups a search makes for every tile it expands.
+ *
+ * <p>Compares {@code all()} on the map loaded from map.dat with the {@code MovementMaskCollisionMap}
+ * layer the Pathfinder wraps it in, and measures an 8 direction probe of the instance scene through
+ * {@link LocalCollisionMap} and straight from its {@link SceneCollisionSnapshot}. Each operation is
+ * one tile, and with the gc profiler the scene probes should allocate nothing.</p>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollisionBenchmark
+{
+    private static final int TILES = 4096;
+
+    private CollisionMap raw;
+    private CollisionMap masked;
+    private SceneCollisionSnapshot scene;
+    private LocalCollisionMap localMap;
+    // the tiles are packed as x, y, plane triples
+    private short[] worldTiles;
+    private short[] sceneTiles;
+
+    @Setup
+    public void setup()
+    {
+        final OfflineWorld world = OfflineWorld.get();
+        raw = world.getRawCollisionMap();
+        masked = world.getCollisionMap();
+        scene = world.getScene();
+        localMap = world.getLocalMap();
+
+        final Random random = new Random(4096);
+        worldTiles = new short[TILES * 3];
+        sceneTiles = new short[TILES * 3];
+        for (int i = 0; i < TILES; i++)
+        {
+            // Misthalin and Asgarnia, where most routes are searched
+            worldTiles[i * 3] = (short) (2900 + random.nextInt(400));
+            worldTiles[i * 3 + 1] = (short) (3150 + random.nextInt(350));
+            sceneTiles[i * 3] = (short) (OfflineWorld.SCENE_BASE_X + random.nextInt(OfflineWorld.SCENE_SIZE));
+            sceneTiles[i * 3 + 1] = (short) (OfflineWorld.SCENE_BASE_Y + random.nextInt(OfflineWorld.SCENE_SIZE));
+        }
+        for (int i = 0; i < TILES; i++)
+        {
+            all(masked, worldTiles, i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public int rawAll()
+    {
+        int sum = 0;
+        for (int i = 0; i < TILES; i++)
+        {
+            sum += all(raw, worldTiles, i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public int maskedAll()
+    {
+        int sum = 0;
+        for (int i = 0; i < TILES; i++)
+        {
+            sum += all(masked, worldTiles, i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public int localDirections()
+    {
+        int open = 0;
+        for (int i = 0; i < TILES; i++)
+        {
+            final int x = sceneTiles[i * 3];
+            final int y = sceneTiles[i * 3 + 1];
+            final int z = sceneTiles[i * 3 + 2];
+            // the probes addNeighborsLocal makes for one expansion
+            open += (localMap.n(x, y, z) ? 0 : 1) + (localMap.e(x, y, z) ? 0 : 1)
+                    + (localMap.s(x, y, z) ? 0 : 1) + (localMap.w(x, y, z) ? 0 : 1)
+                    + (localMap.ne(x, y, z) ? 0 : 1) + (localMap.se(x, y, z) ? 0 : 1)
+                    + (localMap.sw(x, y, z) ? 0 : 1) + (localMap.nw(x, y, z) ? 0 : 1);
+        }
+        return open;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public int sceneAll()
+    {
+        int sum = 0;
+        for (int i = 0; i < TILES; i++)
+        {
+            sum += scene.all(sceneTiles[i * 3], sceneTiles[i * 3 + 1], sceneTiles[i * 3 + 2]);
+        }
+        return sum;
+    }
+
+    private static byte all(CollisionMap map, short[] tiles, int i)
+    {
+        return map.all(tiles[i * 3], tiles[i * 3 + 1], (byte) tiles[i * 3 + 2]);
+    }
+}
@@ -0,0 +1,133 @@
+package com.tonic.benchmarks;
+
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records and checks the route every engine finds for every {@link Scenario}, so a change to a
+ * search can not alter routes without anyone noticing.
+ *
+ * <p>Each line of the golden file is {@code scenario algorithm steps cost hash}, the hash covering
+ * every tile of the path and where transports are taken. A different cost means the engine now
+ * finds a better or worse route, the same cost with a different hash means it breaks a tie
+ * differently. Both fail the check, rerun with {@code record} when the change is intended.</p>
+ */
+public final class GoldenPaths
+{
+    private GoldenPaths()
+    {
+    }
+
+    /**
+     * @param args {@code verify} or {@code record}, then the golden file
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2 || !(args[0].equals("verify") || args[0].equals("record")))
+        {
+            System.err.println("Usage: GoldenPaths <verify|record> <golden-paths.txt>");
+            System.exit(2);
+        }
+        final Path file = Paths.get(args[1]);
+        final Map<String, String> current = run();
+
+        if (args[0].equals("record"))
+        {
+            final List<String> lines = new ArrayList<>();
+            lines.add("# scenario algorithm steps cost hash, written by GoldenPaths record");
+            for (Map.Entry<String, String> entry : current.entrySet())
+            {
+                lines.add(entry.getKey() + " " + entry.getValue());
+            }
+            if (file.getParent() != null)
+            {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, lines, StandardCharsets.UTF_8);
+            System.out.println("Recorded " + current.size() + " golden paths into " + file);
+            return;
+        }
+
+        if (!Files.exists(file))
+        {
+            // map.dat is not in the repository, so the file is recorded by whoever has one
+            System.out.println("SKIPPED: no golden paths at " + file + ", run recordGoldenPaths with map.dat and commit the file");
+            return;
+        }
+        final Map<String, String> golden = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+        {
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            final String[] parts = line.split(" ", 3);
+            golden.put(parts[0] + " " + parts[1], parts[2]);
+        }
+
+        int failures = 0;
+        for (Map.Entry<String, String> entry : current.entrySet())
+        {
+            final String expected = golden.remove(entry.getKey());
+            if (expected == null)
+            {
+                System.err.println("NEW     " + entry.getKey() + " " + entry.getValue());
+                failures++;
+            }
+            else if (!expected.equals(entry.getValue()))
+            {
+                System.err.println("CHANGED " + entry.getKey() + " expected " + expected + ", found " + entry.getValue());
+                failures++;
+            }
+        }
+        for (String key : golden.keySet())
+        {
+            System.err.println("MISSING " + key);
+            failures++;
+        }
+        if (failures > 0)
+        {
+            System.err.println(failures + " of " + current.size() + " golden paths differ");
+            System.exit(1);
+        }
+        System.out.println("All " + current.size() + " golden paths match");
+    }
+
+    private static Map<String, String> run()
+    {
+        final OfflineWorld world = OfflineWorld.get();
+        final Map<String, String> results = new LinkedHashMap<>();
+        for (Scenario scenario : Scenario.values())
+        {
+            for (SearchAlgorithm algorithm : SearchAlgorithm.values())
+            {
+                final List<Step> path = Routes.find(world, scenario, algorithm).getPath();
+                results.put(scenario + " " + algorithm,
+                        path.size() + " " + Routes.cost(scenario, path) + " " + String.format("%016x", hash(path)));
+            }
+        }
+        return results;
+    }
+
+    private static long hash(List<Step> path)
+    {
+        // FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (Step step : path)
+        {
+            hash = (hash ^ step.position) * 0x100000001b3L;
+            hash = (hash ^ (step.transport != null ? 1 : 0)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
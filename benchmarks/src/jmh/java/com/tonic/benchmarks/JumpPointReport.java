@@ -0,0 +1,56 @@
+package com.tonic.benchmarks;
+
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+
+/**
+ * Compares jump point search with plain A* on every non instanced {@link Scenario}: tiles
+ * expanded and the median time of a search, after a warmup.
+ *
+ * <p>Jump points only pay off when they expand fewer tiles than A* in less time, the scans between
+ * them are not free. The report fails when JPS expands more tiles than A* on any scenario or finds
+ * a route of a different cost, since both mean the pruning is broken.</p>
+ */
+public final class JumpPointReport
+{
+    private static final int WARMUP = 20;
+    private static final int RUNS = 51;
+
+    private JumpPointReport()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        final OfflineWorld world = OfflineWorld.get();
+        int failures = 0;
+        System.out.printf("%-24s %12s %12s %12s %12s%n", "scenario", "A* expanded", "JPS expanded", "A* us", "JPS us");
+        for (Scenario scenario : Scenario.values())
+        {
+            if (scenario.isInstanced())
+            {
+                continue;
+            }
+            final Routes.Route astar = Routes.find(world, scenario, SearchAlgorithm.ASTAR);
+            final Routes.Route jps = Routes.find(world, scenario, SearchAlgorithm.JPS);
+            final long astarTime = Routes.medianNanos(world, scenario, SearchAlgorithm.ASTAR, WARMUP, RUNS);
+            final long jpsTime = Routes.medianNanos(world, scenario, SearchAlgorithm.JPS, WARMUP, RUNS);
+            System.out.printf("%-24s %12d %12d %12d %12d%n", scenario, astar.getExpanded(), jps.getExpanded(), astarTime / 1000, jpsTime / 1000);
+
+            if (jps.getExpanded() > astar.getExpanded())
+            {
+                System.err.println(scenario + ": JPS expanded more tiles than A*");
+                failures++;
+            }
+            if (Routes.cost(scenario, jps.getPath()) != Routes.cost(scenario, astar.getPath()))
+            {
+                System.err.println(scenario + ": JPS found a route of cost " + Routes.cost(scenario, jps.getPath())
+                        + ", A* one of cost " + Routes.cost(scenario, astar.getPath()));
+                failures++;
+            }
+        }
+        if (failures > 0)
+        {
+            System.exit(1);
+        }
+    }
+}
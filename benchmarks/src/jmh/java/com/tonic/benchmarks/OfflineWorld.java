@@ -0,0 +1,167 @@
+package com.tonic.benchmarks;
+
+import com.tonic.Logger;
+import com.tonic.services.pathfinder.OfflinePathfinder;
+import com.tonic.services.pathfinder.Pathfinder;
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.collision.GlobalCollisionMap;
+import com.tonic.services.pathfinder.collision.MovementMaskCollisionMap;
+import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.local.SceneCollisionSnapshot;
+import com.tonic.services.pathfinder.transports.Transport;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import com.tonic.services.pathfinder.transports.TransportLoader;
+import com.tonic.util.WorldPointUtil;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import lombok.Getter;
+import net.runelite.api.CollisionDataFlag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The world the benchmarks search, loaded from the api's resources without a client.
+ *
+ * <p>The collision map is read from map.dat, either the one on the classpath or the file named by
+ * the {@code vitalite.map} system property. Transports are everything {@link TransportLoader} can
+ * build offline, with requirements ignored. The instance scene is generated from a fixed seed so
+ * every run searches the same rooms.</p>
+ */
+@Getter
+public final class OfflineWorld
+{
+    public static final int SCENE_BASE_X = 7040;
+    public static final int SCENE_BASE_Y = 4224;
+    public static final int SCENE_SIZE = 104;
+    private static final int ROOM_SIZE = 12;
+    // scene tiles kept open for the instance scenario, in opposite corner rooms
+    public static final int SCENE_START = WorldPointUtil.compress(SCENE_BASE_X + 5, SCENE_BASE_Y + 5, 0);
+    public static final int SCENE_TARGET = WorldPointUtil.compress(SCENE_BASE_X + 98, SCENE_BASE_Y + 98, 0);
+
+    private static volatile OfflineWorld instance;
+
+    private final CollisionMap rawCollisionMap;
+    private final CollisionMap collisionMap;
+    private final TIntObjectHashMap<ArrayList<Transport>> transports;
+    private final TransportIndex transportIndex;
+    private final TransportIndex transportIndexByDestination;
+    private final SceneCollisionSnapshot scene;
+    private final LocalCollisionMap localMap;
+
+    private OfflineWorld() throws Exception
+    {
+        // every search logs its node counts, keep writing them to the console out of the measurements
+        Logger.setInfo(false);
+        this.rawCollisionMap = loadCollisionMap();
+        this.collisionMap = new MovementMaskCollisionMap(rawCollisionMap);
+
+        TransportLoader.init();
+        this.transports = TransportLoader.buildOfflineTransports();
+        final TIntObjectHashMap<ArrayList<Transport>> byDestination = new TIntObjectHashMap<>();
+        transports.forEachValue(list -> {
+            for (Transport transport : list)
+            {
+                ArrayList<Transport> bucket = byDestination.get(transport.getDestination());
+                if (bucket == null)
+                {
+                    bucket = new ArrayList<>();
+                    byDestination.put(transport.getDestination(), bucket);
+                }
+                bucket.add(transport);
+            }
+            return true;
+        });
+        this.transportIndex = new TransportIndex(transports, false);
+        this.transportIndexByDestination = new TransportIndex(byDestination, true);
+
+        this.scene = buildScene();
+        this.localMap = new LocalCollisionMap(scene);
+        // runs the Pathfinder's static initializer, which maps its own collision cache before this one replaces it
+        OfflinePathfinder.init(collisionMap, transports);
+    }
+
+    /**
+     * @return the shared world, loaded on first use
+     */
+    public static OfflineWorld get()
+    {
+        OfflineWorld world = instance;
+        if (world == null)
+        {
+            synchronized (OfflineWorld.class)
+            {
+                world = instance;
+                if (world == null)
+                {
+                    try
+                    {
+                        world = new OfflineWorld();
+                    }
+                    catch (Exception e)
+                    {
+                        throw new IllegalStateException("Failed to load the offline world", e);
+                    }
+                    instance = world;
+                }
+            }
+        }
+        return world;
+    }
+
+    private static CollisionMap loadCollisionMap() throws Exception
+    {
+        final String path = System.getProperty("vitalite.map");
+        if (path != null)
+        {
+            final GlobalCollisionMap map = GlobalCollisionMap.load(path);
+            if (map == null)
+            {
+                throw new IllegalStateException("No collision map at " + path);
+            }
+            return map;
+        }
+        // a class literal does not run Pathfinder's static initializer, which needs the client's directories
+        if (Pathfinder.class.getResource("map.dat") == null)
+        {
+            throw new IllegalStateException("map.dat is not on the classpath, pass -Dvitalite.map=<path to map.dat>");
+        }
+        return GlobalCollisionMap.load();
+    }
+
+    /**
+     * A 104x104 instance of 12x12 rooms. Every wall has one opening, a fixed share of them are
+     * doors, and the rooms are scattered with blocked tiles.
+     */
+    private static SceneCollisionSnapshot buildScene()
+    {
+        final Random random = new Random(104);
+        final int[][] flags = new int[SCENE_SIZE][SCENE_SIZE];
+        final List<Integer> doors = new ArrayList<>();
+        for (int x = 0; x < SCENE_SIZE; x++)
+        {
+            for (int y = 0; y < SCENE_SIZE; y++)
+            {
+                final boolean wall = x % ROOM_SIZE == 0 || y % ROOM_SIZE == 0;
+                final boolean opening = (x % ROOM_SIZE == 0) != (y % ROOM_SIZE == 0)
+                        && (x % ROOM_SIZE == ROOM_SIZE / 2 || y % ROOM_SIZE == ROOM_SIZE / 2);
+                if (wall && !opening)
+                {
+                    flags[x][y] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+                }
+                else if (opening && random.nextInt(3) == 0)
+                {
+                    flags[x][y] = CollisionDataFlag.BLOCK_MOVEMENT_OBJECT;
+                    doors.add(WorldPointUtil.compress(SCENE_BASE_X + x, SCENE_BASE_Y + y, 0));
+                }
+                else if (!wall && random.nextInt(16) == 0)
+                {
+                    flags[x][y] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+                }
+            }
+        }
+        flags[WorldPointUtil.getCompressedX(SCENE_START) - SCENE_BASE_X][WorldPointUtil.getCompressedY(SCENE_START) - SCENE_BASE_Y] = 0;
+        flags[WorldPointUtil.getCompressedX(SCENE_TARGET) - SCENE_BASE_X][WorldPointUtil.getCompressedY(SCENE_TARGET) - SCENE_BASE_Y] = 0;
+        return new SceneCollisionSnapshot(SCENE_BASE_X, SCENE_BASE_Y, 0, flags, doors);
+    }
+}
@@ -0,0 +1,69 @@
+package com.tonic.benchmarks;
+
+import com.tonic.services.pathfinder.collision.Properties;
+import com.tonic.services.pathfinder.search.CostModel;
+import com.tonic.services.pathfinder.search.ParallelSearch;
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import com.tonic.services.pathfinder.search.SearchContext;
+
+/**
+ * Compares the parallel search with A* on every non instanced {@link Scenario}: the median time of
+ * a search after a warmup, and how many of the parallel search's cost buckets were large enough to
+ * be handed to the pool.
+ *
+ * <p>Buckets below the parallel threshold run on the calling thread, so a scenario where few
+ * buckets go to the pool measures the bucket queue rather than the workers. The report fails when
+ * the parallel search finds a route of a different cost than A*.</p>
+ */
+public final class ParallelReport
+{
+    private static final int WARMUP = 20;
+    private static final int RUNS = 51;
+
+    private ParallelReport()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        final OfflineWorld world = OfflineWorld.get();
+        int failures = 0;
+        System.out.printf("%-24s %12s %12s %10s %10s %12s%n", "scenario", "A* us", "parallel us", "buckets", "on pool", "expanded");
+        for (Scenario scenario : Scenario.values())
+        {
+            if (scenario.isInstanced())
+            {
+                continue;
+            }
+            final int astarCost = Routes.cost(scenario, Routes.find(world, scenario, SearchAlgorithm.ASTAR).getPath());
+            final int cost = Routes.cost(scenario, Routes.find(world, scenario, SearchAlgorithm.PARALLEL).getPath());
+            // run once more on its own for the bucket counts the Pathfinder does not report
+            final SearchContext context = SearchContext.acquire();
+            final ParallelSearch search = new ParallelSearch(world.getCollisionMap(), world.getTransportIndex(), CostModel.DEFAULT, context);
+            try
+            {
+                search.setBlacklist(Properties.getBlacklist());
+                search.search(scenario.getStarts(), scenario.getStartCosts(), scenario.getTargets());
+            }
+            finally
+            {
+                SearchContext.release(context);
+            }
+            final long astarTime = Routes.medianNanos(world, scenario, SearchAlgorithm.ASTAR, WARMUP, RUNS);
+            final long parallelTime = Routes.medianNanos(world, scenario, SearchAlgorithm.PARALLEL, WARMUP, RUNS);
+            System.out.printf("%-24s %12d %12d %10d %10d %12d%n", scenario, astarTime / 1000, parallelTime / 1000,
+                    search.getBuckets(), search.getParallelBuckets(), search.getExpanded());
+
+            if (cost != astarCost)
+            {
+                System.err.println(scenario + ": the parallel search found a route of cost " + cost
+                        + ", A* one of cost " + astarCost);
+                failures++;
+            }
+        }
+        if (failures > 0)
+        {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tonic.benchmarks;
+
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of every {@link Scenario} on every {@link SearchAlgorithm}.
+ *
+ * <p>{@link #route()} samples single searches, so the report carries the latency percentiles.
+ * {@link #expansions(Counters)} reports how many tiles the search expanded and how long the path
+ * is as secondary results, which change only when the algorithm does. The build runs the gc
+ * profiler, so both also report the allocation rate and bytes allocated per search.</p>
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathfinderBenchmark
+{
+    @Param
+    public Scenario scenario;
+
+    @Param
+    public SearchAlgorithm algorithm;
+
+    private OfflineWorld world;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters
+    {
+        public long expanded;
+        public long pathLength;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            expanded = 0;
+            pathLength = 0;
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        world = OfflineWorld.get();
+        if (Routes.find(world, scenario, algorithm).getPath().isEmpty())
+        {
+            throw new IllegalStateException(scenario + " has no route with " + algorithm);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Routes.Route route()
+    {
+        return Routes.find(world, scenario, algorithm);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Routes.Route expansions(Counters counters)
+    {
+        final Routes.Route route = Routes.find(world, scenario, algorithm);
+        // the same every search, keep the last one instead of summing
+        counters.expanded = route.getExpanded();
+        counters.pathLength = route.getPath().size();
+        return route;
+    }
+}
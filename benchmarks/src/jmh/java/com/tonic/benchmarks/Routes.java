@@ -0,0 +1,96 @@
+package com.tonic.benchmarks;
+
+import com.tonic.services.pathfinder.OfflinePathfinder;
+import com.tonic.services.pathfinder.Pathfinder;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.search.CostModel;
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a {@link Scenario} through {@link Pathfinder}'s own engine selection, the search a walk with
+ * the same {@link SearchAlgorithm} would run, including its fallbacks inside instances. Every
+ * algorithm is covered: the transports and hub graph come from the {@link OfflineWorld} instead of
+ * the client.
+ */
+public final class Routes
+{
+    private Routes()
+    {
+    }
+
+    @Value
+    public static class Route
+    {
+        List<Step> path;
+        int expanded;
+    }
+
+    /**
+     * @param world the world to search
+     * @param scenario the route to find
+     * @param algorithm the engine the Pathfinder is configured with
+     * @return the path and how many tiles the engines expanded for it
+     */
+    public static Route find(OfflineWorld world, Scenario scenario, SearchAlgorithm algorithm)
+    {
+        final Pathfinder pathfinder = OfflinePathfinder.prepare(algorithm, world.getTransports(), world.getTransportIndex(),
+                world.getTransportIndexByDestination(), scenario.isInstanced() ? world.getLocalMap() : null,
+                scenario.getStarts(), scenario.getStartCosts(), scenario.getTargets());
+        final List<Step> path = OfflinePathfinder.search(pathfinder);
+        return new Route(path, pathfinder.getMetrics().getExpanded());
+    }
+
+    /**
+     * Times a scenario outside of JMH, for the reports that print a table instead of a score.
+     * @param warmup searches run before measuring
+     * @param runs searches measured
+     * @return the median time of a search in nanoseconds
+     */
+    public static long medianNanos(OfflineWorld world, Scenario scenario, SearchAlgorithm algorithm, int warmup, int runs)
+    {
+        for (int i = 0; i < warmup; i++)
+        {
+            find(world, scenario, algorithm);
+        }
+        final long[] times = new long[runs];
+        for (int i = 0; i < runs; i++)
+        {
+            final long start = System.nanoTime();
+            find(world, scenario, algorithm);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    /**
+     * Prices a path with the default {@link CostModel}, from the cheapest start on its first tile.
+     * @return the cost, or -1 for an empty path
+     */
+    public static int cost(Scenario scenario, List<Step> path)
+    {
+        if (path.isEmpty())
+        {
+            return -1;
+        }
+        int cost = Integer.MAX_VALUE;
+        for (int i = 0; i < scenario.getStarts().length; i++)
+        {
+            if (scenario.getStarts()[i] == path.get(0).position)
+            {
+                cost = Math.min(cost, scenario.getStartCosts()[i]);
+            }
+        }
+        final CostModel costModel = CostModel.DEFAULT;
+        for (int i = 0; i + 1 < path.size(); i++)
+        {
+            final Step step = path.get(i);
+            cost += step.transport != null ? costModel.transportCost(step.transport) : costModel.stepCost();
+        }
+        return cost;
+    }
+}
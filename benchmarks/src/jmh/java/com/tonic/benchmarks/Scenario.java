@@ -0,0 +1,98 @@
+package com.tonic.benchmarks;
+
+import com.tonic.util.WorldPointUtil;
+import lombok.Getter;
+import net.runelite.api.coords.WorldArea;
+
+/**
+ * The fixed corpus of routes the benchmarks and the golden path check run. Changing a scenario
+ * invalidates its recorded golden paths.
+ */
+@Getter
+public enum Scenario
+{
+    /**
+     * A short overland walk with no transports worth taking.
+     */
+    LUMBRIDGE_TO_VARROCK(false,
+            starts(tile(3222, 3218, 0)), costs(0),
+            targets(tile(3213, 3428, 0))),
+
+    /**
+     * A long walk across Asgarnia and Kandarin, through doors, gates and stairs.
+     */
+    FALADOR_TO_ARDOUGNE(false,
+            starts(tile(2965, 3379, 0)), costs(0),
+            targets(tile(2662, 3305, 0))),
+
+    /**
+     * Mainland to Kourend, only reachable through ships and the fairy ring network.
+     */
+    LUMBRIDGE_TO_HOSIDIUS(false,
+            starts(tile(3222, 3218, 0)), costs(0),
+            targets(tile(1746, 3600, 0))),
+
+    /**
+     * The player's tile and a spread of teleport destinations as starts, like a search seeded with
+     * the player's usable teleports.
+     */
+    TELEPORTS_TO_CATHERBY(false,
+            starts(tile(3222, 3218, 0), tile(3212, 3424, 0), tile(2965, 3379, 0), tile(2757, 3478, 0),
+                    tile(2662, 3305, 0), tile(3105, 3251, 0), tile(2897, 3551, 0), tile(1643, 3672, 0)),
+            costs(0, 10, 10, 10, 10, 12, 14, 16),
+            targets(tile(2809, 3440, 0))),
+
+    /**
+     * The nearest of several banks, given as whole areas.
+     */
+    NEAREST_BANK(false,
+            starts(tile(3222, 3218, 0)), costs(0),
+            WorldPointUtil.toCompressedPoints(new WorldArea[]{
+                    new WorldArea(3180, 3433, 6, 14, 0),
+                    new WorldArea(3250, 3416, 8, 8, 0),
+                    new WorldArea(3092, 3240, 6, 7, 0),
+                    new WorldArea(3269, 3164, 5, 10, 0),
+                    new WorldArea(3009, 3353, 10, 6, 0)
+            })),
+
+    /**
+     * Corner to corner through the generated instance of {@link OfflineWorld}, searched on the
+     * scene collision map.
+     */
+    INSTANCE(true,
+            starts(OfflineWorld.SCENE_START), costs(0),
+            targets(OfflineWorld.SCENE_TARGET));
+
+    private final boolean instanced;
+    private final int[] starts;
+    private final int[] startCosts;
+    private final int[] targets;
+
+    Scenario(boolean instanced, int[] starts, int[] startCosts, int[] targets)
+    {
+        this.instanced = instanced;
+        this.starts = starts;
+        this.startCosts = startCosts;
+        this.targets = targets;
+    }
+
+    private static int tile(int x, int y, int plane)
+    {
+        return WorldPointUtil.compress(x, y, plane);
+    }
+
+    private static int[] starts(int... tiles)
+    {
+        return tiles;
+    }
+
+    private static int[] costs(int... costs)
+    {
+        return costs;
+    }
+
+    private static int[] targets(int... tiles)
+    {
+        return tiles;
+    }
+}
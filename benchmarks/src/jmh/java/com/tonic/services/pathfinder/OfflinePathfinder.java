@@ -0,0 +1,58 @@
+package com.tonic.services.pathfinder;
+
+import com.tonic.services.pathfinder.collision.CollisionMap;
+import com.tonic.services.pathfinder.local.LocalCollisionMap;
+import com.tonic.services.pathfinder.model.Step;
+import com.tonic.services.pathfinder.search.HubGraph;
+import com.tonic.services.pathfinder.search.SearchAlgorithm;
+import com.tonic.services.pathfinder.transports.Transport;
+import com.tonic.services.pathfinder.transports.TransportIndex;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs searches through the {@link Pathfinder}'s own engine selection without a client, so the
+ * benchmarks measure what a walk would run, fallbacks included. Lives in the Pathfinder's package to
+ * reach the hooks it keeps package private.
+ */
+public final class OfflinePathfinder
+{
+    private OfflinePathfinder()
+    {
+    }
+
+    /**
+     * Points every search at the given world and builds the hub graph from its transports.
+     * @param collisionMap the collision map to search
+     * @param transports every transport, requirements ignored
+     */
+    public static void init(CollisionMap collisionMap, TIntObjectHashMap<ArrayList<Transport>> transports)
+    {
+        Pathfinder.useCollisionMap(collisionMap);
+        HubGraph.build(collisionMap, transports);
+    }
+
+    /**
+     * @param localMap the scene collision when the starts are in an instance, otherwise null
+     * @return a Pathfinder holding everything {@link #search(Pathfinder)} needs
+     */
+    public static Pathfinder prepare(SearchAlgorithm algorithm, TIntObjectHashMap<ArrayList<Transport>> transports,
+                                     TransportIndex transportIndex, TransportIndex transportIndexByDestination,
+                                     LocalCollisionMap localMap, int[] starts, int[] startCosts, int[] targets)
+    {
+        final Pathfinder pathfinder = new Pathfinder(targets);
+        pathfinder.setAlgorithm(algorithm);
+        pathfinder.prepare(transports, transportIndex, transportIndexByDestination, localMap, starts, startCosts);
+        return pathfinder;
+    }
+
+    /**
+     * @return the path, its statistics are in {@link Pathfinder#getMetrics()}
+     */
+    public static List<Step> search(Pathfinder pathfinder)
+    {
+        return pathfinder.search();
+    }
+}
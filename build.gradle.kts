@@ -81,9 +81,24 @@ tasks.register<Copy>("copySubmoduleJar2") {
     outputs.upToDateWhen { false }
 }
 
+val generateMappings = tasks.register<JavaExec>("generateMappings") {
+    description = "Converts mappings.json to the binary mappings MappingProvider loads at startup"
+    dependsOn(tasks.compileJava)
+
+    val json = file("src/main/resources/com/tonic/injector/mappings.json")
+    val output = layout.buildDirectory.dir("generated/mappings")
+    inputs.file(json)
+    outputs.dir(output)
+
+    classpath = files(sourceSets.main.get().java.destinationDirectory, configurations.runtimeClasspath)
+    mainClass.set("com.tonic.injector.util.MappingsFormat")
+    args(json.absolutePath, output.get().file("com/tonic/injector/mappings.bin").asFile.absolutePath)
+}
+
 tasks.processResources {
     dependsOn("copySubmoduleJar")
     dependsOn("copySubmoduleJar2")
+    from(generateMappings)
 }
 
 tasks {
@@ -95,11 +110,14 @@ tasks {
         manifest {
             attributes(mutableMapOf("Main-Class" to "com.tonic.VitaLite"))
         }
+        // generateMappings packages mappings.bin, the json is only read by runs from the IDE
+        exclude("com/tonic/injector/mappings.json")
     }
 
     shadowJar {
         archiveClassifier.set("shaded")
         isZip64 = true
+        exclude("com/tonic/injector/mappings.json")
 
         manifest {
             attributes(
@@ -63,6 +63,12 @@ public class VitaLiteOptions extends OptionsParser
     )
     private boolean disableMouseHook = false;
 
+    @CLIArgument(
+            name = "noInjectionCache",
+            description = "[Optional] Always inject the gamepack instead of reusing the injection cache"
+    )
+    private boolean noInjectionCache = false;
+
     public void _checkAudio()
     {
         if(!AudioDeviceChecker.hasAudioDevice())
@@ -17,10 +17,20 @@ public class JdkVersionUtil {
     private static final Path JRE_PATH = Path.of(System.getProperty("user.home"), "AppData", "Local", "RuneLite", "jre");
 
     public static String calculateJreVersion() {
+        String installed = installedJreVersion();
+        return installed != null ? installed : extractJavaVersionForCurrentSystem();
+    }
+
+    /**
+     * Reads the version of the JRE RuneLite installed, without going to the network.
+     *
+     * @return The installed version, or null if RuneLite's JRE is not installed
+     */
+    public static String installedJreVersion() {
         Path releaseFile = JRE_PATH.resolve("release");
 
         if (!Files.exists(releaseFile)) {
-            return extractJavaVersionForCurrentSystem();
+            return null;
         }
 
         try (Stream<String> lines = Files.lines(releaseFile)) {
@@ -28,9 +38,9 @@ public class JdkVersionUtil {
                     .filter(line -> line.startsWith("JAVA_VERSION="))
                     .findFirst()
                     .map(line -> line.split("=")[1].replace("\"", "").trim())
-                    .orElse(extractJavaVersionForCurrentSystem());
+                    .orElse(null);
         } catch (IOException e) {
-            return extractJavaVersionForCurrentSystem();
+            return null;
         }
     }
 
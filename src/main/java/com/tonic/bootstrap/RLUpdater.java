@@ -5,6 +5,7 @@ import com.tonic.bootstrap.beans.Artifact;
 import com.tonic.bootstrap.beans.Bootstrap;
 import com.tonic.bootstrap.beans.Diff;
 import com.tonic.util.HashUtil;
+import lombok.Getter;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -19,6 +20,7 @@ import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static com.tonic.vitalite.Main.REPOSITORY_DIR;
 
@@ -26,6 +28,11 @@ public class RLUpdater
 {
     private static Map<String, String> properties;
     private static HttpClient httpClient;
+    /**
+     * The SHA-256 of every artifact in the repository, verified against the bootstrap on this launch.
+     */
+    @Getter
+    private static final Map<String, String> artifactHashes = new TreeMap<>();
 
     public static void main(String[] args) throws Exception
     {
@@ -92,6 +99,7 @@ public class RLUpdater
                             + ", got " + downloadedHash + ")");
                 }
             }
+            artifactHashes.put(art.getName(), art.getHash().toLowerCase());
         }
 
         System.out.println("Repository is up to date!");
@@ -0,0 +1,311 @@
+package com.tonic.injector;
+
+import com.tonic.VitaLiteOptions;
+import com.tonic.bootstrap.JdkVersionUtil;
+import com.tonic.bootstrap.RLUpdater;
+import com.tonic.injector.util.SignerMapper;
+import com.tonic.vitalite.Main;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the output of the injector on disk so a launch with the same inputs can skip
+ * {@link SignerMapper#map()}, {@link Injector#patch()} and {@link RLInjector#patch()} entirely.
+ *
+ * <p>Entries are addressed by a SHA-256 over everything the injection reads: the RuneLite artifacts
+ * (using the hashes {@link RLUpdater} already verified), the gamepack classes, all of VitaLite's
+ * own classes and resources, the installed JRE version and the options that change what gets
+ * injected. A stale entry can therefore never be loaded, it simply stops being looked up and is
+ * eventually pruned.</p>
+ */
+public class InjectionCache
+{
+    private static final Path CACHE_DIR = Main.REPOSITORY_DIR.resolve("injected");
+    private static final int MAGIC = 0x56494E4A; // VINJ
+    private static final int VERSION = 1;
+    private static final int END = 0x454E4421; // END!
+    // entries kept for clients launched with other options, the least recently used go first
+    private static final int MAX_ENTRIES = 4;
+
+    /**
+     * Computes the cache key of this launch. Must be called after the artifacts are loaded and
+     * before anything is injected.
+     * @param urls the artifact jars the client is loaded from
+     * @return the key as hex, or null if the cache is disabled or the key could not be computed
+     */
+    public static String key(URL[] urls)
+    {
+        if (Main.optionsParser.isNoInjectionCache())
+        {
+            return null;
+        }
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            update(md, "v" + VERSION);
+
+            URL[] sorted = urls.clone();
+            Arrays.sort(sorted, Comparator.comparing(URL::getPath));
+            for (URL url : sorted)
+            {
+                File file = new File(url.toURI());
+                String hash = RLUpdater.getArtifactHashes().get(file.getName());
+                update(md, file.getName());
+                update(md, hash != null ? hash : file.length() + ":" + file.lastModified());
+            }
+
+            Map<String, byte[]> gamepack = new TreeMap<>(Main.LIBS.getGamepack().classes);
+            for (Map.Entry<String, byte[]> entry : gamepack.entrySet())
+            {
+                update(md, entry.getKey());
+                md.update(entry.getValue());
+            }
+
+            hashInjectionCode(md);
+
+            VitaLiteOptions options = Main.optionsParser;
+            update(md, "noMusic=" + options.isNoMusic());
+            update(md, "min=" + options.isMin());
+            update(md, "incognito=" + options.isIncognito());
+            update(md, "noPlugins=" + options.isNoPlugins());
+            update(md, "disableMouseHook=" + options.isDisableMouseHook());
+            // the gamepack is told this java.version, a JRE update changes the injected code
+            update(md, "jre=" + JdkVersionUtil.installedJreVersion());
+
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest())
+            {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+        catch (Exception e)
+        {
+            System.err.println("InjectionCache::key " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Loads the injected classes and the signed class blacklist of a previous launch into
+     * {@link Main#LIBS} and {@link SignerMapper}.
+     * @param key the key from {@link #key(URL[])}
+     * @return true if the entry existed and was loaded, false if the injector has to run
+     */
+    public static boolean load(String key)
+    {
+        if (key == null)
+        {
+            return false;
+        }
+        Path file = CACHE_DIR.resolve(key + ".bin");
+        if (!Files.exists(file))
+        {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16)))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(key))
+            {
+                return false;
+            }
+            Set<String> blacklist = new HashSet<>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                blacklist.add(in.readUTF());
+            }
+            HashMap<String, byte[]> gamepack = readClasses(in);
+            HashMap<String, byte[]> gamepackClean = readClasses(in);
+            HashMap<String, byte[]> runelite = readClasses(in);
+            if (in.readInt() != END)
+            {
+                return false;
+            }
+
+            SignerMapper.addAll(blacklist);
+            Main.LIBS.getGamepack().classes.putAll(gamepack);
+            Main.LIBS.getGamepackClean().classes.putAll(gamepackClean);
+            Main.LIBS.getRunelite().classes.putAll(runelite);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            System.out.println("Loaded injected classes from cache in " + (System.currentTimeMillis() - start) + "ms");
+            return true;
+        }
+        catch (IOException e)
+        {
+            System.err.println("InjectionCache::load " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stores the injected classes and the signed class blacklist of this launch and prunes the
+     * least recently used entries. The entry is written to a temporary file and moved into place,
+     * so clients starting at the same time never read a partial entry.
+     * @param key the key from {@link #key(URL[])}
+     */
+    public static void store(String key)
+    {
+        if (key == null)
+        {
+            return;
+        }
+        Path file = CACHE_DIR.resolve(key + ".bin");
+        Path temp = null;
+        try
+        {
+            Files.createDirectories(CACHE_DIR);
+            temp = Files.createTempFile(CACHE_DIR, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(key);
+                Set<String> blacklist = SignerMapper.getBlacklist();
+                out.writeInt(blacklist.size());
+                for (String name : blacklist)
+                {
+                    out.writeUTF(name);
+                }
+                writeClasses(out, Main.LIBS.getGamepack().classes);
+                writeClasses(out, Main.LIBS.getGamepackClean().classes);
+                writeClasses(out, Main.LIBS.getRunelite().classes);
+                out.writeInt(END);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            prune();
+        }
+        catch (IOException e)
+        {
+            System.err.println("InjectionCache::store " + e.getMessage());
+        }
+        finally
+        {
+            if (temp != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(temp);
+                }
+                catch (IOException ignored) { }
+            }
+        }
+    }
+
+    private static void writeClasses(DataOutputStream out, Map<String, byte[]> classes) throws IOException
+    {
+        out.writeInt(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet())
+        {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+    }
+
+    private static HashMap<String, byte[]> readClasses(DataInputStream in) throws IOException
+    {
+        int count = in.readInt();
+        HashMap<String, byte[]> classes = new HashMap<>(count * 2, 0.5f);
+        for (int i = 0; i < count; i++)
+        {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            classes.put(name, bytes);
+        }
+        return classes;
+    }
+
+    /**
+     * Hashes all of VitaLite's own code and resources: the whole jar or, when running from an IDE,
+     * every file under the output directories on the classpath. Anything in them can end up in or
+     * steer the injected classes, so no part is left out.
+     */
+    private static void hashInjectionCode(MessageDigest md) throws Exception
+    {
+        File source = new File(InjectionCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        if (source.isFile())
+        {
+            update(md, source.getName());
+            try (InputStream is = new BufferedInputStream(new FileInputStream(source), 1 << 16))
+            {
+                byte[] buffer = new byte[1 << 16];
+                int read;
+                while ((read = is.read(buffer)) != -1)
+                {
+                    md.update(buffer, 0, read);
+                }
+            }
+            return;
+        }
+
+        // the classes and the resources output directories, of every module run from the IDE
+        List<Path> roots = new ArrayList<>();
+        for (URL url : Collections.list(InjectionCache.class.getClassLoader().getResources("")))
+        {
+            if (url.getProtocol().equals("file"))
+            {
+                roots.add(Paths.get(url.toURI()));
+            }
+        }
+        if (!roots.contains(source.toPath()))
+        {
+            roots.add(source.toPath());
+        }
+        roots.sort(Comparator.naturalOrder());
+        for (Path root : roots)
+        {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root))
+            {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            update(md, root.toString());
+            for (Path path : files)
+            {
+                update(md, root.relativize(path).toString().replace(File.separatorChar, '/'));
+                md.update(Files.readAllBytes(path));
+            }
+        }
+    }
+
+    private static void prune()
+    {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(CACHE_DIR, "*.bin"))
+        {
+            stream.forEach(entries::add);
+        }
+        catch (IOException e)
+        {
+            System.err.println("InjectionCache::prune " + e.getMessage());
+            return;
+        }
+        entries.sort(Comparator.comparing((Path path) -> path.toFile().lastModified()).reversed());
+        for (int i = MAX_ENTRIES; i < entries.size(); i++)
+        {
+            try
+            {
+                Files.deleteIfExists(entries.get(i));
+            }
+            catch (IOException ignored) { }
+        }
+    }
+
+    private static void update(MessageDigest md, String value)
+    {
+        md.update(value.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+    }
+}
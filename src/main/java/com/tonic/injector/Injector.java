@@ -1,5 +1,6 @@
 package com.tonic.injector;
 
+import com.tonic.injector.types.ClassHierarchy;
 import com.tonic.injector.util.AnnotationUtil;
 import com.tonic.injector.util.*;
 import com.tonic.vitalite.Main;
@@ -14,45 +15,67 @@ import org.objectweb.asm.tree.MethodNode;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Injector {
     private static final String MIXINS = "com.tonic.mixins";
     public static HashMap<String, ClassNode> gamepack = new HashMap<>();
 
     public static void patch() throws Exception {
-        for (var entry : Main.LIBS.getGamepack().classes.entrySet()) {
-            String name = entry.getKey();
-            byte[] bytes = entry.getValue();
-            gamepack.put(name, ClassNodeUtil.toNode(bytes));
+        long start = System.nanoTime();
+        List<Map.Entry<String, byte[]>> entries = new ArrayList<>(Main.LIBS.getGamepack().classes.entrySet());
+        List<ClassNode> nodes = Parallel.map(entries, entry -> ClassNodeUtil.toNode(entry.getValue()));
+        for (int i = 0; i < entries.size(); i++) {
+            gamepack.put(entries.get(i).getKey(), nodes.get(i));
         }
+        long parsed = System.nanoTime();
 
         HashMap<ClassNode, ClassNode> pairs = PackageUtil.getPairs(MIXINS);
 
         applyInterfaces(pairs);
         applyMixins(pairs);
+        long mixed = System.nanoTime();
 
-        for (var entry : gamepack.entrySet()) {
-            String name = entry.getKey();
-
+        List<String> names = new ArrayList<>();
+        for (String name : gamepack.keySet()) {
             if(SignerMapper.shouldIgnore(name))
             {
                 System.out.println("Skipping cert-checked class: " + name);
                 continue;
             }
+            names.add(name);
+        }
 
-            ClassNode classNode = entry.getValue();
-            FieldHookTransformer.instrument(classNode);
+        // every class is instrumented and written on its own, the mixins above have already
+        // registered all hooks and the gamepack map is only read from here on
+        ClassHierarchy hierarchy = new ClassHierarchy(gamepack, Main.CTX_CLASSLOADER);
+        List<byte[][]> written = Parallel.map(names, name -> {
+            ClassNode classNode = gamepack.get(name);
             OSGlobalMixin.patch(classNode);
 
-            Main.LIBS.getGamepack().classes.put(name, ClassNodeUtil.toBytes(classNode));
+            byte[] injected = ClassNodeUtil.toBytes(classNode, hierarchy);
 
             StripAnnotationsTransformer.stripAnnotations(classNode);
-            Main.LIBS.getGamepackClean().classes.put(name, ClassNodeUtil.toBytes(classNode));
+            return new byte[][] { injected, ClassNodeUtil.toBytes(classNode, hierarchy) };
+        });
+        for (int i = 0; i < names.size(); i++) {
+            Main.LIBS.getGamepack().classes.put(names.get(i), written.get(i)[0]);
+            Main.LIBS.getGamepackClean().classes.put(names.get(i), written.get(i)[1]);
         }
+        long end = System.nanoTime();
+
+        System.out.println("[Injector] parse " + millis(start, parsed) + "ms, mixins " + millis(parsed, mixed)
+                + "ms, instrument+write " + millis(mixed, end) + "ms (" + names.size() + " classes, "
+                + Parallel.parallelism() + " threads)");
         gamepack.clear();
         JarDumper.dump(Main.LIBS.getGamepackClean().classes);
     }
 
+    static long millis(long from, long to) {
+        return (to - from) / 1_000_000;
+    }
+
     private static void applyMixins(HashMap<ClassNode, ClassNode> pairs) throws ClassNotFoundException {
         for (ClassNode mixin : pairs.keySet()) {
             StripLvtInfo.run(mixin);
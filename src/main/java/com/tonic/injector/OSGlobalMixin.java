@@ -1,8 +1,11 @@
 package com.tonic.injector;
 
+import com.tonic.injector.pipeline.FieldHookTransformer;
 import com.tonic.injector.util.BytecodeBuilder;
-import com.tonic.injector.util.LdcRewriter;
 import com.tonic.injector.util.MappingProvider;
+import com.tonic.injector.util.expreditor.ExprDispatcher;
+import com.tonic.injector.util.expreditor.ExprEditor;
+import com.tonic.injector.util.expreditor.FieldAccess;
 import com.tonic.injector.util.expreditor.impls.*;
 import com.tonic.util.dto.JClass;
 import com.tonic.util.dto.JField;
@@ -10,111 +13,103 @@ import com.tonic.vitalite.Main;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.*;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class OSGlobalMixin
 {
-    private static final PathsGetReplacer pathsGetReplacer = new PathsGetReplacer();
-    private static final ModifyResourceLoading modifyResourceLoading = new ModifyResourceLoading();
-    private static final ReplaceMethodByString replaceMethodByString = new ReplaceMethodByString("Attempted to load patches of already loading midiplayer!");
-    private static final RuntimeMaxMemoryReplacer memoryReplacer = new RuntimeMaxMemoryReplacer(805_306_368L);
-    private static final SystemPropertyReplacer propertyReplacer = new SystemPropertyReplacer();
-    private static final IntegerLiteralReplacer integerReplacer = new IntegerLiteralReplacer(-1094877034);
+    private static final int REMOVED_CONSTANT = -1094877034;
+    private static final String MIDI_PATCHES = "Attempted to load patches of already loading midiplayer!";
+
+    // some editors keep state between instructions and classes are patched in parallel, so every
+    // thread builds its own. Built on first use, which has to come after all mixins are applied.
+    private static final ThreadLocal<ExprDispatcher> dispatcher = ThreadLocal.withInitial(OSGlobalMixin::createDispatcher);
 
+    /**
+     * Applies the field hooks and every global gamepack patch in a single pass over the class.
+     * @param classNode gamepack class
+     */
     public static void patch(ClassNode classNode)
     {
-        pathsGetReplacer.instrument(classNode);
-        memoryReplacer.instrument(classNode);
-        propertyReplacer.instrument(classNode);
-        integerReplacer.instrument(classNode);
+        dispatcher.get().instrument(classNode);
+    }
 
-        if(Main.optionsParser.isNoMusic() || Main.optionsParser.isMin())
-        {
-            replaceMethodByString.instrument(classNode);
-            modifyResourceLoading.instrument(classNode);
-        }
+    private static ExprDispatcher createDispatcher()
+    {
+        ExprDispatcher dispatcher = new ExprDispatcher();
+        FieldHookTransformer.register(dispatcher);
+
+        RuntimeMaxMemoryReplacer memoryReplacer = new RuntimeMaxMemoryReplacer(805_306_368L);
+        dispatcher.onMethodCall("java/nio/file/Path", "toString", new PathsGetReplacer())
+                .onMethodCall("java/lang/Runtime", "getRuntime", memoryReplacer)
+                .onMethodCall("java/lang/Runtime", "maxMemory", memoryReplacer)
+                .onMethodCall("java/lang/System", "getProperty", new SystemPropertyReplacer())
+                .onLiteral(REMOVED_CONSTANT, new IntegerLiteralReplacer(REMOVED_CONSTANT));
 
-        for(MethodNode method : classNode.methods)
+        if(Main.optionsParser.isNoMusic() || Main.optionsParser.isMin())
         {
-            randomDat(classNode, method);
-            mouseFlag(method);
-
-            if(!Main.optionsParser.isIncognito())
-            {
-                LdcRewriter.rewriteString(
-                        method,
-                        "Welcome to RuneScape",
-                        "<col=FFFFFF>Welcome to </col><col=00FFFF>VitaLite</col>"
-                );
-            }
+            dispatcher.onLiteral(MIDI_PATCHES, new ReplaceMethodByString(MIDI_PATCHES))
+                    .onLiteral("Sound FX", new ModifyResourceLoading());
         }
-    }
 
-    public static void mouseFlag(MethodNode method)
-    {
         JClass client = MappingProvider.getClass("Client");
+        JField randomDat = MappingProvider.getField(client, "randomDat");
         JField mouseFlag = MappingProvider.getField(client, "mouseFlag");
+        dispatcher.onFieldAccess(randomDat.getOwnerObfuscatedName(), randomDat.getObfuscatedName(), randomDat())
+                .onFieldAccess(mouseFlag.getOwnerObfuscatedName(), mouseFlag.getObfuscatedName(), mouseFlag());
 
-        List<FieldInsnNode> toReplace = new ArrayList<>();
-
-        for(AbstractInsnNode insn : method.instructions)
+        if(!Main.optionsParser.isIncognito())
         {
-            if(insn.getOpcode() != Opcodes.GETSTATIC)
-                continue;
-
-            FieldInsnNode fin = (FieldInsnNode) insn;
-            if(!fin.owner.equals(mouseFlag.getOwnerObfuscatedName()) || !fin.name.equals(mouseFlag.getObfuscatedName()))
-                continue;
-
-            toReplace.add(fin);
+            dispatcher.onLiteral(
+                    "Welcome to RuneScape",
+                    new StringLiteralReplacer(
+                            "Welcome to RuneScape",
+                            "<col=FFFFFF>Welcome to </col><col=00FFFF>VitaLite</col>"
+                    )
+            );
         }
+        return dispatcher;
+    }
 
-        if(toReplace.isEmpty())
-            return;
+    private static ExprEditor mouseFlag()
+    {
+        return new ExprEditor() {
+            @Override
+            public void edit(FieldAccess access) {
+                if(access.getOpcode() != Opcodes.GETSTATIC)
+                    return;
 
-        for (FieldInsnNode insn : toReplace) {
-            InsnNode iconst0 = new InsnNode(Opcodes.ICONST_0);
-            method.instructions.set(insn, iconst0);
-        }
+                access.getMethod().instructions.set(access.getInstruction(), new InsnNode(Opcodes.ICONST_0));
+            }
+        };
     }
 
-    public static void randomDat(ClassNode clazz, MethodNode method)
+    private static ExprEditor randomDat()
     {
-        JClass client = MappingProvider.getClass("Client");
-        JField randomDat = MappingProvider.getField(client, "randomDat");
-        AbstractInsnNode target = null;
-        for(AbstractInsnNode insn : method.instructions)
-        {
-            if (!(insn instanceof FieldInsnNode))
-                continue;
-            FieldInsnNode fin = (FieldInsnNode) insn;
-            if(!fin.owner.equals(randomDat.getOwnerObfuscatedName()) || !fin.name.equals(randomDat.getObfuscatedName()))
-                continue;
-
-            if(insn.getNext().getOpcode() != Opcodes.IFNULL)
-            {
-                if(insn.getPrevious().getOpcode() != Opcodes.ACONST_NULL || !(insn.getNext() instanceof JumpInsnNode))
-                    continue;
-                if(insn.getNext().getOpcode() == Opcodes.GOTO)
-                    continue;
-                target = insn;
-                break;
+        return new ExprEditor() {
+            // only the first fitting access of a method is reported
+            private MethodNode patched;
+
+            @Override
+            public void edit(FieldAccess access) {
+                MethodNode method = access.getMethod();
+                if(method == patched)
+                    return;
+
+                AbstractInsnNode insn = access.getInstruction();
+                if(insn.getNext().getOpcode() != Opcodes.IFNULL)
+                {
+                    if(insn.getPrevious().getOpcode() != Opcodes.ACONST_NULL || !(insn.getNext() instanceof JumpInsnNode))
+                        return;
+                    if(insn.getNext().getOpcode() == Opcodes.GOTO)
+                        return;
+                }
+                patched = method;
+
+                InsnList code = BytecodeBuilder.create()
+                        .pushString(access.getClassNode().name + "." + method.name + method.desc)
+                        .invokeStatic("client", "setRandomDat", "(Ljava/lang/String;)V")
+                        .build();
+
+                method.instructions.insertBefore(insn, code);
             }
-            target = insn;
-            break;
-        }
-
-        if(target == null)
-        {
-            return;
-        }
-
-        InsnList code = BytecodeBuilder.create()
-                .pushString(clazz.name + "." + method.name + method.desc)
-                .invokeStatic("client", "setRandomDat", "(Ljava/lang/String;)V")
-                .build();
-
-        method.instructions.insertBefore(target, code);
+        };
     }
 }
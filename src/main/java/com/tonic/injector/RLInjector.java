@@ -2,8 +2,10 @@ package com.tonic.injector;
 
 import com.tonic.injector.annotations.*;
 import com.tonic.injector.pipeline.*;
+import com.tonic.injector.types.ClassHierarchy;
 import com.tonic.injector.util.AnnotationUtil;
 import com.tonic.injector.util.ClassFileUtil;
+import com.tonic.injector.util.Parallel;
 import com.tonic.injector.util.SignerMapper;
 import com.tonic.util.PackageUtil;
 import com.tonic.vitalite.Main;
@@ -12,6 +14,7 @@ import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +26,8 @@ public class RLInjector
 
     public static void patch() throws Exception
     {
+        long start = System.nanoTime();
+        List<Map.Entry<String, byte[]>> entries = new ArrayList<>();
         for (var entry : Main.LIBS.getRunelite().classes.entrySet()) {
             String name = entry.getKey();
             if(SignerMapper.shouldIgnore(name))
@@ -30,9 +35,14 @@ public class RLInjector
                 System.out.println("Ignoring class: " + name);
                 continue;
             }
-            byte[] bytes = entry.getValue();
-            runelite.put(name.replace(".", "/"), ClassNodeUtil.toNode(bytes));
+            entries.add(entry);
         }
+        List<ClassNode> nodes = Parallel.map(entries, entry -> ClassNodeUtil.toNode(entry.getValue()));
+        for (int i = 0; i < entries.size(); i++)
+        {
+            runelite.put(entries.get(i).getKey().replace(".", "/"), nodes.get(i));
+        }
+        long parsed = System.nanoTime();
 
         List<ClassNode> mixins = PackageUtil.getClasses(MIXINS, null);
 
@@ -80,27 +90,40 @@ public class RLInjector
             }
         }
 
-        for (var entry : runelite.entrySet()) {
-            String name = entry.getKey().replace("/", ".");
-            if(SignerMapper.shouldIgnore(name))
+        long mixed = System.nanoTime();
+
+        List<String> names = new ArrayList<>();
+        for (String name : runelite.keySet())
+        {
+            if(!SignerMapper.shouldIgnore(name.replace("/", ".")))
             {
-                continue;
+                names.add(name);
             }
-            RLGlobalMixin.patch(entry.getValue());
-            byte[] bytes = ClassNodeUtil.toBytes(entry.getValue());
+        }
+        ClassHierarchy hierarchy = new ClassHierarchy(runelite, Main.CTX_CLASSLOADER);
+        List<byte[]> written = Parallel.map(names, name -> {
+            ClassNode classNode = runelite.get(name);
+            RLGlobalMixin.patch(classNode);
+            return ClassNodeUtil.toBytes(classNode, hierarchy);
+        });
+
+        List<String> toDump = List.of(
+                "net.runelite.client.RuneLite",
+                "net.runelite.client.RuneLiteModule",
+                "net.runelite.client.plugins.PluginManager",
+                "net.runelite.client.ui.ClientUI",
+                "net.runelite.client.ui.SplashScreen",
+                "net.runelite.client.plugins.config.TopLevelConfigPanel"
+        );
+        for (int i = 0; i < names.size(); i++)
+        {
+            String name = names.get(i).replace("/", ".");
+            byte[] bytes = written.get(i);
             Main.LIBS.getRunelite().classes.put(
                     name,
                     bytes
             );
 
-            List<String> toDump = List.of(
-                    "net.runelite.client.RuneLite",
-                    "net.runelite.client.RuneLiteModule",
-                    "net.runelite.client.plugins.PluginManager",
-                    "net.runelite.client.ui.ClientUI",
-                    "net.runelite.client.ui.SplashScreen",
-                    "net.runelite.client.plugins.config.TopLevelConfigPanel"
-            );
             if(toDump.contains(name))
             {
                 ClassFileUtil.writeClass(
@@ -110,6 +133,11 @@ public class RLInjector
                 );
             }
         }
+        long end = System.nanoTime();
+
+        System.out.println("[RLInjector] parse " + Injector.millis(start, parsed) + "ms, mixins " + Injector.millis(parsed, mixed)
+                + "ms, write " + Injector.millis(mixed, end) + "ms (" + names.size() + " classes, "
+                + Parallel.parallelism() + " threads)");
         runelite.clear();
     }
 }
@@ -8,7 +8,9 @@ import com.tonic.injector.annotations.FieldHook;
 import com.tonic.injector.annotations.Mixin;
 import com.tonic.injector.types.FieldHookDef;
 import com.tonic.injector.util.AnnotationUtil;
-import org.jetbrains.annotations.NotNull;
+import com.tonic.injector.util.expreditor.ExprDispatcher;
+import com.tonic.injector.util.expreditor.ExprEditor;
+import com.tonic.injector.util.expreditor.FieldAccess;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.*;
 
@@ -42,74 +44,80 @@ public class FieldHookTransformer {
     }
 
     /**
-     * Instruments all methods in class with registered field hooks.
-     * @param classNode class to instrument
+     * Routes the writes of every registered hooked field to its hook. Must be called after all
+     * mixins are applied.
+     * @param dispatcher dispatcher of the instrumentation pass
      */
-    public static void instrument(ClassNode classNode)
+    public static void register(ExprDispatcher dispatcher)
     {
         for(FieldHookDef hook : fieldHooks)
         {
-            for(MethodNode methodNode : classNode.methods)
-            {
-                instrument(methodNode, hook);
-            }
+            JField target = hook.getTarget();
+            dispatcher.onFieldAccess(target.getOwnerObfuscatedName(), target.getObfuscatedName(), new ExprEditor() {
+                @Override
+                public void edit(FieldAccess access) {
+                    int opcode = hook.isStatic() ? Opcodes.PUTSTATIC : Opcodes.PUTFIELD;
+                    MethodNode method = access.getMethod();
+                    if (access.getOpcode() != opcode || !access.getFieldDesc().equals(target.getDescriptor()))
+                        return;
+                    if ((method.name + method.desc).equals(hook.getHookMethod() + hook.getHookDesc()))
+                        return;
+                    FieldHookTransformer.instrument(method, hook, access.getInstruction());
+                }
+            });
         }
     }
 
     /**
-     * Instruments single method with field access hooks.
-     * @param method method to instrument
+     * Wraps a single field write with its hook.
+     * @param method method containing the write
      * @param hook field hook definition
+     * @param fieldInsn the field write
      */
-    private static void instrument(MethodNode method, FieldHookDef hook) {
+    private static void instrument(MethodNode method, FieldHookDef hook, AbstractInsnNode fieldInsn) {
         String desc = hook.getTarget().getDescriptor();
         boolean isStatic = hook.isStatic();
 
-        if((method.name + method.desc).equals(hook.getHookMethod() + hook.getHookDesc()))
-            return;
-
-        List<AbstractInsnNode> fieldSets = getInjectionPoints(method, hook, isStatic);
-        for (AbstractInsnNode fieldInsn : fieldSets) {
-            InsnList wrapper = new InsnList();
-            LabelNode skipLabel = new LabelNode();
-
-            if (isStatic) {
-                wrapper.add(new InsnNode(getDupOpcode(desc)));
-                
-                if (hook.getTarget().getGetter() != null) {
-                    Number multiplier = hook.getTarget().getGetter();
-                    if (desc.equals("I")) {
-                        wrapper.add(new LdcInsnNode(multiplier.intValue()));
-                        wrapper.add(new InsnNode(Opcodes.IMUL));
-                    } else if (desc.equals("J")) {
-                        wrapper.add(new LdcInsnNode(multiplier.longValue()));
-                        wrapper.add(new InsnNode(Opcodes.LMUL));
-                    }
-                }
-                
-                wrapper.add(new MethodInsnNode(
-                        Opcodes.INVOKESTATIC,
-                        hook.getHookClass(),
-                        hook.getHookMethod(),
-                        hook.getHookDesc(),
-                        false
-                ));
-                wrapper.add(new JumpInsnNode(Opcodes.IFNE, skipLabel));
-                if (isWideType(desc)) {
-                    wrapper.add(new InsnNode(Opcodes.POP2));
-                } else {
-                    wrapper.add(new InsnNode(Opcodes.POP));
+        InsnList wrapper = new InsnList();
+        LabelNode skipLabel = new LabelNode();
+
+        if (isStatic) {
+            wrapper.add(new InsnNode(getDupOpcode(desc)));
+            
+            if (hook.getTarget().getGetter() != null) {
+                Number multiplier = hook.getTarget().getGetter();
+                if (desc.equals("I")) {
+                    wrapper.add(new LdcInsnNode(multiplier.intValue()));
+                    wrapper.add(new InsnNode(Opcodes.IMUL));
+                } else if (desc.equals("J")) {
+                    wrapper.add(new LdcInsnNode(multiplier.longValue()));
+                    wrapper.add(new InsnNode(Opcodes.LMUL));
                 }
-                LabelNode continueLabel = new LabelNode();
-                wrapper.add(new JumpInsnNode(Opcodes.GOTO, continueLabel));
-                wrapper.add(skipLabel);
-                method.instructions.insertBefore(fieldInsn, wrapper);
-                method.instructions.insert(fieldInsn, continueLabel);
+            }
+            
+            wrapper.add(new MethodInsnNode(
+                    Opcodes.INVOKESTATIC,
+                    hook.getHookClass(),
+                    hook.getHookMethod(),
+                    hook.getHookDesc(),
+                    false
+            ));
+            wrapper.add(new JumpInsnNode(Opcodes.IFNE, skipLabel));
+            if (isWideType(desc)) {
+                wrapper.add(new InsnNode(Opcodes.POP2));
             } else {
-                //dupe obj ref {obj, value} -> {obj, value, obj}
-                wrapper.add(new InsnNode(Opcodes.DUP2));
-
-                //wrapper.add(new InsnNode(getDupOpcode(desc)));
+                wrapper.add(new InsnNode(Opcodes.POP));
+            }
+            LabelNode continueLabel = new LabelNode();
+            wrapper.add(new JumpInsnNode(Opcodes.GOTO, continueLabel));
+            wrapper.add(skipLabel);
+            method.instructions.insertBefore(fieldInsn, wrapper);
+            method.instructions.insert(fieldInsn, continueLabel);
+        } else {
+            //dupe obj ref {obj, value} -> {obj, value, obj}
+            wrapper.add(new InsnNode(Opcodes.DUP2));
+
+            //wrapper.add(new InsnNode(getDupOpcode(desc)));
 //                if (isWideType(desc)) {
 //                    wrapper.add(new InsnNode(Opcodes.DUP2_X1));
 //                    wrapper.add(new InsnNode(Opcodes.POP2));
@@ -119,65 +127,39 @@ public class FieldHookTransformer {
 //                    wrapper.add(new InsnNode(Opcodes.POP));
 //                    wrapper.add(new InsnNode(Opcodes.DUP));
 //                }
-                
-                if (hook.getTarget().getGetter() != null) {
-                    Number multiplier = hook.getTarget().getGetter();
-                    if (desc.equals("I")) {
-                        wrapper.add(new LdcInsnNode(multiplier.intValue()));
-                        wrapper.add(new InsnNode(Opcodes.IMUL));
-                    } else if (desc.equals("J")) {
-                        wrapper.add(new LdcInsnNode(multiplier.longValue()));
-                        wrapper.add(new InsnNode(Opcodes.LMUL));
-                    }
-                }
-                
-                wrapper.add(new MethodInsnNode(
-                        Opcodes.INVOKEVIRTUAL,
-                        hook.getHookClass(),
-                        hook.getHookMethod(),
-                        hook.getHookDesc(),
-                        false
-                ));
-                wrapper.add(new JumpInsnNode(Opcodes.IFNE, skipLabel));
-                if (isWideType(desc)) {
-                    wrapper.add(new InsnNode(Opcodes.POP2));
-                } else {
-                    wrapper.add(new InsnNode(Opcodes.POP));
+            
+            if (hook.getTarget().getGetter() != null) {
+                Number multiplier = hook.getTarget().getGetter();
+                if (desc.equals("I")) {
+                    wrapper.add(new LdcInsnNode(multiplier.intValue()));
+                    wrapper.add(new InsnNode(Opcodes.IMUL));
+                } else if (desc.equals("J")) {
+                    wrapper.add(new LdcInsnNode(multiplier.longValue()));
+                    wrapper.add(new InsnNode(Opcodes.LMUL));
                 }
+            }
+            
+            wrapper.add(new MethodInsnNode(
+                    Opcodes.INVOKEVIRTUAL,
+                    hook.getHookClass(),
+                    hook.getHookMethod(),
+                    hook.getHookDesc(),
+                    false
+            ));
+            wrapper.add(new JumpInsnNode(Opcodes.IFNE, skipLabel));
+            if (isWideType(desc)) {
+                wrapper.add(new InsnNode(Opcodes.POP2));
+            } else {
                 wrapper.add(new InsnNode(Opcodes.POP));
-                LabelNode continueLabel = new LabelNode();
-                wrapper.add(new JumpInsnNode(Opcodes.GOTO, continueLabel));
-                wrapper.add(skipLabel);
-
-                method.instructions.insertBefore(fieldInsn, wrapper);
-                method.instructions.insert(fieldInsn, continueLabel);
             }
-        }
-    }
+            wrapper.add(new InsnNode(Opcodes.POP));
+            LabelNode continueLabel = new LabelNode();
+            wrapper.add(new JumpInsnNode(Opcodes.GOTO, continueLabel));
+            wrapper.add(skipLabel);
 
-    /**
-     * Finds field access instructions matching hook definition.
-     * @param method method to scan
-     * @param hook hook definition
-     * @param isStatic whether to look for static field access
-     * @return matching field access instructions
-     */
-    @NotNull
-    private static List<AbstractInsnNode> getInjectionPoints(MethodNode method, FieldHookDef hook, boolean isStatic) {
-        List<AbstractInsnNode> fieldSets = new ArrayList<>();
-        for (AbstractInsnNode insn = method.instructions.getFirst();
-             insn != null; insn = insn.getNext()) {
-
-            if ((isStatic && insn.getOpcode() == Opcodes.PUTSTATIC) || (!isStatic && insn.getOpcode() == Opcodes.PUTFIELD)) {
-                FieldInsnNode fieldInsn = (FieldInsnNode) insn;
-                if (fieldInsn.owner.equals(hook.getTarget().getOwnerObfuscatedName()) &&
-                        fieldInsn.name.equals(hook.getTarget().getObfuscatedName()) &&
-                        fieldInsn.desc.equals(hook.getTarget().getDescriptor())) {
-                    fieldSets.add(insn);
-                }
-            }
+            method.instructions.insertBefore(fieldInsn, wrapper);
+            method.instructions.insert(fieldInsn, continueLabel);
         }
-        return fieldSets;
     }
 
     /**
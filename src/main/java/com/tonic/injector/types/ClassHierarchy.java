@@ -0,0 +1,164 @@
+package com.tonic.injector.types;
+
+import com.tonic.vitalite.Main;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers {@link org.objectweb.asm.ClassWriter#getCommonSuperClass} from class headers instead of
+ * loading classes, so any number of {@link GamepackClassWriter}s can share one instance.
+ *
+ * <p>A class is looked up in the class nodes being injected first, then in the artifact bytes of
+ * {@link Main#LIBS}, then as a resource of the class loader. Headers are cached, nothing here ever
+ * defines a class. Classes that cannot be found are treated like the old writer treated a
+ * ClassNotFoundException, as if their only common super class was java/lang/Object.</p>
+ */
+public class ClassHierarchy
+{
+    private static final String OBJECT = "java/lang/Object";
+    private static final Header MISSING = new Header(null, new String[0]);
+
+    private final Map<String, ClassNode> nodes;
+    private final ClassLoader loader;
+    private final Map<String, Header> headers = new ConcurrentHashMap<>();
+
+    /**
+     * @param nodes class nodes by internal name, must not change while the hierarchy is in use
+     * @param loader the loader to read every other class from
+     */
+    public ClassHierarchy(Map<String, ClassNode> nodes, ClassLoader loader)
+    {
+        this.nodes = nodes != null ? nodes : Collections.emptyMap();
+        this.loader = loader;
+    }
+
+    public String getCommonSuperClass(String t1, String t2)
+    {
+        if (isAssignableFrom(t1, t2))
+        {
+            return t1;
+        }
+        if (isAssignableFrom(t2, t1))
+        {
+            return t2;
+        }
+        String type = header(t1).superName;
+        while (type != null)
+        {
+            if (isAssignableFrom(type, t2))
+            {
+                return type;
+            }
+            type = header(type).superName;
+        }
+        return OBJECT;
+    }
+
+    /**
+     * @return whether a value of type {@code from} can be stored in a variable of type {@code to}
+     */
+    private boolean isAssignableFrom(String to, String from)
+    {
+        if (to.equals(from) || to.equals(OBJECT))
+        {
+            return true;
+        }
+        Set<String> seen = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(from);
+        while (!pending.isEmpty())
+        {
+            Header header = header(pending.poll());
+            if (header.superName != null && seen.add(header.superName))
+            {
+                if (header.superName.equals(to))
+                {
+                    return true;
+                }
+                pending.add(header.superName);
+            }
+            for (String iface : header.interfaces)
+            {
+                if (seen.add(iface))
+                {
+                    if (iface.equals(to))
+                    {
+                        return true;
+                    }
+                    pending.add(iface);
+                }
+            }
+        }
+        return false;
+    }
+
+    private Header header(String name)
+    {
+        Header header = headers.get(name);
+        if (header == null)
+        {
+            header = read(name);
+            headers.putIfAbsent(name, header);
+        }
+        return header;
+    }
+
+    private Header read(String name)
+    {
+        ClassNode node = nodes.get(name);
+        if (node != null)
+        {
+            return new Header(node.superName, node.interfaces.toArray(new String[0]));
+        }
+
+        byte[] bytes = null;
+        if (Main.LIBS != null)
+        {
+            String className = name.replace('/', '.');
+            bytes = Main.LIBS.gamepackByName(className);
+            if (bytes == null)
+            {
+                bytes = Main.LIBS.classByName(className);
+            }
+        }
+        if (bytes == null && loader != null)
+        {
+            try (InputStream is = loader.getResourceAsStream(name + ".class"))
+            {
+                if (is != null)
+                {
+                    bytes = is.readAllBytes();
+                }
+            }
+            catch (IOException ignored) { }
+        }
+        if (bytes == null)
+        {
+            return MISSING;
+        }
+        ClassReader reader = new ClassReader(bytes);
+        return new Header(reader.getSuperName(), reader.getInterfaces());
+    }
+
+    private static final class Header
+    {
+        private final String superName;
+        private final String[] interfaces;
+
+        private Header(String superName, String[] interfaces)
+        {
+            this.superName = superName;
+            this.interfaces = interfaces;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.tonic.injector.util;
 
 import com.tonic.vitalite.Main;
+import com.tonic.injector.types.ClassHierarchy;
 import com.tonic.injector.types.GamepackClassWriter;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
@@ -16,9 +17,19 @@ import java.io.StringWriter;
 
 public class ClassNodeUtil {
     public static byte[] toBytes(ClassNode classNode) {
+        return toBytes(classNode, new ClassHierarchy(null, Main.CTX_CLASSLOADER));
+    }
+
+    /**
+     * Writes a class, computing frames against a hierarchy that may be shared between threads.
+     * @param classNode the class
+     * @param hierarchy the hierarchy of the classes being written
+     * @return the class file
+     */
+    public static byte[] toBytes(ClassNode classNode, ClassHierarchy hierarchy) {
         try
         {
-            ClassWriter classWriter = new GamepackClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS, Main.CTX_CLASSLOADER) ;
+            ClassWriter classWriter = new GamepackClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS, hierarchy);
             classNode.accept(classWriter);
             return classWriter.toByteArray();
         }
@@ -0,0 +1,182 @@
+package com.tonic.injector.util;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Finds classes in large sets of class files without fully parsing every one of them.
+ *
+ * <p>A class can only reference a method, field or class whose name is in its constant pool, so
+ * {@link #references(byte[], String...)} reads just the constant pool and compares its UTF8
+ * entries byte for byte. The classes that pass are parsed in parallel on {@link Parallel}.</p>
+ */
+public final class ClassScanner
+{
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+
+    private ClassScanner() {}
+
+    /**
+     * Parses every class that references all of the given constants.
+     * @param classes the class files
+     * @param constants names as they appear in the constant pool, e.g. {@code java/lang/Class} and {@code getSigners}
+     * @return the matching classes, parsed with {@link ClassReader#SKIP_FRAMES} and {@link ClassReader#SKIP_DEBUG}
+     */
+    public static List<ClassNode> findReferences(Collection<byte[]> classes, String... constants)
+    {
+        byte[][] needles = needles(constants);
+        return scan(classes, bytes -> references(bytes, needles), ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+    }
+
+    /**
+     * Parses the classes that pass a filter, in parallel.
+     * @param classes the class files
+     * @param filter called concurrently on the raw class files, null to parse every class
+     * @param parsingOptions the {@link ClassReader} parsing options
+     * @return the parsed classes, in the order of the class files
+     */
+    public static List<ClassNode> scan(Collection<byte[]> classes, Predicate<byte[]> filter, int parsingOptions)
+    {
+        List<ClassNode> parsed = Parallel.map(new ArrayList<>(classes), bytes -> {
+            if (filter != null && !filter.test(bytes))
+            {
+                return null;
+            }
+            ClassNode classNode = new ClassNode();
+            new ClassReader(bytes).accept(classNode, parsingOptions);
+            return classNode;
+        });
+        List<ClassNode> matches = new ArrayList<>();
+        for (ClassNode classNode : parsed)
+        {
+            if (classNode != null)
+            {
+                matches.add(classNode);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @param classFile the class file
+     * @param constants names as they appear in the constant pool
+     * @return whether the constant pool contains every one of the constants as a UTF8 entry,
+     * or true if the class file is malformed so the caller's parse reports it
+     */
+    public static boolean references(byte[] classFile, String... constants)
+    {
+        return references(classFile, needles(constants));
+    }
+
+    // the names looked for never contain NUL or supplementary characters, the only characters
+    // where the modified UTF-8 of class files differs from UTF-8
+    private static byte[][] needles(String... constants)
+    {
+        byte[][] needles = new byte[constants.length][];
+        for (int i = 0; i < constants.length; i++)
+        {
+            needles[i] = constants[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return needles;
+    }
+
+    private static boolean references(byte[] classFile, byte[][] needles)
+    {
+        try
+        {
+            boolean[] found = new boolean[needles.length];
+            int remaining = needles.length;
+            int count = readUnsignedShort(classFile, 8);
+            int offset = 10;
+            for (int i = 1; i < count && remaining > 0; i++)
+            {
+                int tag = classFile[offset];
+                if (tag == CONSTANT_UTF8)
+                {
+                    int length = readUnsignedShort(classFile, offset + 1);
+                    for (int n = 0; n < needles.length; n++)
+                    {
+                        if (!found[n] && matches(classFile, offset + 3, length, needles[n]))
+                        {
+                            found[n] = true;
+                            remaining--;
+                        }
+                    }
+                    offset += 3 + length;
+                    continue;
+                }
+                if (tag == CONSTANT_LONG || tag == CONSTANT_DOUBLE)
+                {
+                    i++;
+                }
+                offset += entrySize(tag);
+            }
+            return remaining == 0;
+        }
+        catch (RuntimeException e)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * @return the size of a constant pool entry including its tag, for every tag but UTF8
+     */
+    private static int entrySize(int tag)
+    {
+        switch (tag)
+        {
+            case 7:  // Class
+            case 8:  // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                return 3;
+            case 15: // MethodHandle
+                return 4;
+            case 3:  // Integer
+            case 4:  // Float
+            case 9:  // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                return 5;
+            case CONSTANT_LONG:
+            case CONSTANT_DOUBLE:
+                return 9;
+            default:
+                throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+        }
+    }
+
+    private static boolean matches(byte[] classFile, int offset, int length, byte[] needle)
+    {
+        if (length != needle.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (classFile[offset + i] != needle[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readUnsignedShort(byte[] classFile, int offset)
+    {
+        return ((classFile[offset] & 0xFF) << 8) | (classFile[offset + 1] & 0xFF);
+    }
+}
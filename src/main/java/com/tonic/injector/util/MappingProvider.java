@@ -1,8 +1,5 @@
 package com.tonic.injector.util;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.tonic.injector.Injector;
 import com.tonic.util.dto.JClass;
 import com.tonic.util.dto.JField;
@@ -10,142 +7,193 @@ import com.tonic.util.dto.JMethod;
 import lombok.Getter;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * This class provides methods to retrieve mappings for classes, methods, and fields.
+ *
+ * <p>The mappings are loaded from the binary {@code mappings.bin} generated at build time and indexed
+ * once. The jars only ship the binary, {@code mappings.json} is read when running from an IDE that
+ * did not run the gradle build. Every lookup returns the same entry the first match of a scan over
+ * the mappings in file order would.</p>
  */
 @Getter
 public class MappingProvider
 {
     @Getter
     private static final List<JClass> mappings = new ArrayList<>();
+    private static final Map<String, JClass> classes = new HashMap<>();
+    private static final Map<String, JClass> obfuscatedClasses = new HashMap<>();
+    private static final Map<JClass, Members> members = new IdentityHashMap<>();
+    private static final Map<String, JMethod> staticMethods = new HashMap<>();
+    private static final Map<String, JField> staticFields = new HashMap<>();
 
     static
     {
-        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
-        try (InputStream inputStream = Injector.class.getResourceAsStream("mappings.json")) {
-            if( inputStream == null) {
-                throw new IOException("Mappings file not found");
-            }
-            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-            String fileContent = bufferedReader.lines().collect(Collectors.joining(System.lineSeparator()));
-            mappings.addAll(gson.fromJson(fileContent, new TypeToken<List<JClass>>(){}.getType()));
+        try
+        {
+            mappings.addAll(load());
         }
         catch (IOException e)
         {
             System.err.println("MappingProvider::fillMaps " + e.getMessage());
         }
+        index();
     }
 
-    public static JClass getClass(String name)
+    private static List<JClass> load() throws IOException
     {
-        for (JClass jClass : mappings)
-        {
-            if (jClass.getName() != null && jClass.getName().equals(name))
-            {
-                return jClass;
+        try (InputStream inputStream = Injector.class.getResourceAsStream("mappings.bin")) {
+            if(inputStream != null) {
+                return MappingsFormat.read(new BufferedInputStream(inputStream, 1 << 16));
             }
         }
-        return null;
+        try (InputStream inputStream = Injector.class.getResourceAsStream("mappings.json")) {
+            if( inputStream == null) {
+                throw new IOException("Mappings file not found");
+            }
+            System.out.println("mappings.bin not found, reading mappings.json");
+            return MappingsFormat.readJson(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
     }
 
-    public static JClass getClassByObfuscatedName(String obfuscatedName)
+    private static void index()
     {
         for (JClass jClass : mappings)
         {
-            if (jClass.getObfuscatedName().equals(obfuscatedName))
+            if (jClass.getName() != null)
             {
-                return jClass;
+                classes.putIfAbsent(jClass.getName(), jClass);
+            }
+            obfuscatedClasses.putIfAbsent(jClass.getObfuscatedName(), jClass);
+
+            members.put(jClass, new Members(jClass));
+            for (JField jField : jClass.getFields())
+            {
+                if (jField.getName() != null && jField.isStatic())
+                {
+                    staticFields.putIfAbsent(jField.getName(), jField);
+                }
+            }
+            for (JMethod jMethod : jClass.getMethods())
+            {
+                if (jMethod.getName() != null && jMethod.isStatic())
+                {
+                    staticMethods.putIfAbsent(jMethod.getName(), jMethod);
+                }
             }
         }
-        return null;
+    }
+
+    /**
+     * Drops the mappings and their indexes once nothing is injected anymore.
+     */
+    public static void clear()
+    {
+        mappings.clear();
+        classes.clear();
+        obfuscatedClasses.clear();
+        members.clear();
+        staticMethods.clear();
+        staticFields.clear();
+    }
+
+    public static JClass getClass(String name)
+    {
+        return classes.get(name);
+    }
+
+    public static JClass getClassByObfuscatedName(String obfuscatedName)
+    {
+        return obfuscatedClasses.get(obfuscatedName);
     }
 
     public static JMethod getMethod(JClass owner, String name)
     {
-        for (JMethod jMethod : owner.getMethods())
+        JMethod jMethod = members(owner).methods.get(name);
+        if (jMethod != null)
         {
-            if (jMethod.getName() != null && jMethod.getName().equals(name))
-            {
-                return jMethod;
-            }
+            return jMethod;
         }
         return getStaticMethod(name);
     }
 
     public static JMethod getMethodByObfuscatedName(JClass owner, String obfuscatedName)
     {
-        for (JMethod jMethod : owner.getMethods())
-        {
-            if (jMethod.getObfuscatedName().equals(obfuscatedName))
-            {
-                return jMethod;
-            }
-        }
-        return null;
+        return members(owner).obfuscatedMethods.get(obfuscatedName);
     }
 
     public static JMethod getStaticMethod(String name)
     {
-        for (JClass jClass : mappings)
-        {
-            for (JMethod jMethod : jClass.getMethods())
-            {
-                if (jMethod.getName() != null && jMethod.getName().equals(name) && jMethod.isStatic())
-                {
-                    return jMethod;
-                }
-            }
-        }
-        return null;
+        return staticMethods.get(name);
     }
 
     public static JField getField(@Nullable JClass owner, String name)
     {
         if(owner == null)
             return getStaticField(name);
-        for (JField jField : owner.getFields())
+        JField jField = members(owner).fields.get(name);
+        if (jField != null)
         {
-            if (jField.getName() != null && jField.getName().equals(name))
-            {
-                return jField;
-            }
+            return jField;
         }
         return getStaticField(name);
     }
 
     public static JField getFieldByObfuscatedName(JClass owner, String obfuscatedName)
     {
-        for (JField jField : owner.getFields())
-        {
-            if (jField.getObfuscatedName().equals(obfuscatedName))
-            {
-                return jField;
-            }
-        }
-        return null;
+        return members(owner).obfuscatedFields.get(obfuscatedName);
     }
 
     public static JField getStaticField(String name)
     {
-        for (JClass jClass : mappings)
+        return staticFields.get(name);
+    }
+
+    /**
+     * @return the member index of a class, built on the spot for classes that are not part of the
+     * loaded mappings
+     */
+    private static Members members(JClass owner)
+    {
+        Members index = members.get(owner);
+        return index != null ? index : new Members(owner);
+    }
+
+    private static final class Members
+    {
+        private final Map<String, JField> fields = new HashMap<>();
+        private final Map<String, JField> obfuscatedFields = new HashMap<>();
+        private final Map<String, JMethod> methods = new HashMap<>();
+        private final Map<String, JMethod> obfuscatedMethods = new HashMap<>();
+
+        private Members(JClass owner)
         {
-            for (JField jField : jClass.getFields())
+            for (JField jField : owner.getFields())
+            {
+                if (jField.getName() != null)
+                {
+                    fields.putIfAbsent(jField.getName(), jField);
+                }
+                obfuscatedFields.putIfAbsent(jField.getObfuscatedName(), jField);
+            }
+            for (JMethod jMethod : owner.getMethods())
             {
-                if (jField.getName() != null && jField.getName().equals(name) && jField.isStatic())
+                if (jMethod.getName() != null)
                 {
-                    return jField;
+                    methods.putIfAbsent(jMethod.getName(), jMethod);
                 }
+                obfuscatedMethods.putIfAbsent(jMethod.getObfuscatedName(), jMethod);
             }
         }
-        return null;
     }
 }
@@ -0,0 +1,223 @@
+package com.tonic.injector.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.internal.LazilyParsedNumber;
+import com.google.gson.reflect.TypeToken;
+import com.tonic.util.dto.JClass;
+import com.tonic.util.dto.JField;
+import com.tonic.util.dto.JMethod;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of {@code mappings.json}, generated at build time so {@link MappingProvider}
+ * does not have to parse megabytes of JSON on every launch.
+ *
+ * <p>Every string is stored once in a table and referenced by index, index 0 being null. Numbers
+ * are kept as their JSON text and read back as the {@link LazilyParsedNumber}s Gson produces, so
+ * the transformers see exactly the same values either way.</p>
+ */
+public final class MappingsFormat
+{
+    private static final int MAGIC = 0x564D4150; // VMAP
+    private static final int VERSION = 1;
+
+    private MappingsFormat() {}
+
+    /**
+     * Converts the JSON mappings to the binary format.
+     * @param args the mappings.json to read and the mappings.bin to write
+     */
+    public static void main(String[] args) throws IOException
+    {
+        Path output = Paths.get(args[1]);
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8))
+        {
+            List<JClass> mappings = readJson(reader);
+            if (output.getParent() != null)
+            {
+                Files.createDirectories(output.getParent());
+            }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output)))
+            {
+                write(mappings, out);
+            }
+        }
+    }
+
+    public static List<JClass> readJson(Reader reader)
+    {
+        Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        return gson.fromJson(reader, new TypeToken<List<JClass>>(){}.getType());
+    }
+
+    public static void write(List<JClass> mappings, OutputStream output) throws IOException
+    {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (JClass jClass : mappings)
+        {
+            intern(strings, indexes, jClass.getName(), jClass.getObfuscatedName());
+            for (JField jField : jClass.getFields())
+            {
+                intern(strings, indexes, jField.getName(), jField.getObfuscatedName(), jField.getOwner(),
+                        jField.getOwnerObfuscatedName(), jField.getDescriptor(), text(jField.getGetter()), text(jField.getSetter()));
+            }
+            for (JMethod jMethod : jClass.getMethods())
+            {
+                intern(strings, indexes, jMethod.getName(), jMethod.getObfuscatedName(), jMethod.getOwner(),
+                        jMethod.getOwnerObfuscatedName(), jMethod.getDescriptor(), text(jMethod.getGarbageValue()));
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeVarInt(out, strings.size());
+        for (String string : strings)
+        {
+            out.writeUTF(string);
+        }
+        writeVarInt(out, mappings.size());
+        for (JClass jClass : mappings)
+        {
+            writeString(out, indexes, jClass.getName());
+            writeString(out, indexes, jClass.getObfuscatedName());
+            writeVarInt(out, jClass.getFields().size());
+            for (JField jField : jClass.getFields())
+            {
+                writeString(out, indexes, jField.getName());
+                writeString(out, indexes, jField.getObfuscatedName());
+                writeString(out, indexes, jField.getOwner());
+                writeString(out, indexes, jField.getOwnerObfuscatedName());
+                writeString(out, indexes, jField.getDescriptor());
+                writeString(out, indexes, text(jField.getGetter()));
+                writeString(out, indexes, text(jField.getSetter()));
+                out.writeBoolean(jField.isStatic());
+            }
+            writeVarInt(out, jClass.getMethods().size());
+            for (JMethod jMethod : jClass.getMethods())
+            {
+                writeString(out, indexes, jMethod.getName());
+                writeString(out, indexes, jMethod.getObfuscatedName());
+                writeString(out, indexes, jMethod.getOwner());
+                writeString(out, indexes, jMethod.getOwnerObfuscatedName());
+                writeString(out, indexes, jMethod.getDescriptor());
+                writeString(out, indexes, text(jMethod.getGarbageValue()));
+                out.writeBoolean(jMethod.isStatic());
+            }
+        }
+        out.flush();
+    }
+
+    public static List<JClass> read(InputStream input) throws IOException
+    {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+        {
+            throw new IOException("Unsupported mappings format");
+        }
+        String[] strings = new String[readVarInt(in) + 1];
+        for (int i = 1; i < strings.length; i++)
+        {
+            strings[i] = in.readUTF();
+        }
+        int classCount = readVarInt(in);
+        List<JClass> mappings = new ArrayList<>(classCount);
+        for (int c = 0; c < classCount; c++)
+        {
+            JClass jClass = new JClass();
+            jClass.setName(strings[readVarInt(in)]);
+            jClass.setObfuscatedName(strings[readVarInt(in)]);
+            int fieldCount = readVarInt(in);
+            for (int f = 0; f < fieldCount; f++)
+            {
+                JField jField = new JField();
+                jField.setName(strings[readVarInt(in)]);
+                jField.setObfuscatedName(strings[readVarInt(in)]);
+                jField.setOwner(strings[readVarInt(in)]);
+                jField.setOwnerObfuscatedName(strings[readVarInt(in)]);
+                jField.setDescriptor(strings[readVarInt(in)]);
+                jField.setGetter(number(strings[readVarInt(in)]));
+                jField.setSetter(number(strings[readVarInt(in)]));
+                jField.setStatic(in.readBoolean());
+                jClass.getFields().add(jField);
+            }
+            int methodCount = readVarInt(in);
+            for (int m = 0; m < methodCount; m++)
+            {
+                JMethod jMethod = new JMethod();
+                jMethod.setName(strings[readVarInt(in)]);
+                jMethod.setObfuscatedName(strings[readVarInt(in)]);
+                jMethod.setOwner(strings[readVarInt(in)]);
+                jMethod.setOwnerObfuscatedName(strings[readVarInt(in)]);
+                jMethod.setDescriptor(strings[readVarInt(in)]);
+                jMethod.setGarbageValue(number(strings[readVarInt(in)]));
+                jMethod.setStatic(in.readBoolean());
+                jClass.getMethods().add(jMethod);
+            }
+            mappings.add(jClass);
+        }
+        return mappings;
+    }
+
+    private static void intern(List<String> strings, Map<String, Integer> indexes, String... values)
+    {
+        for (String value : values)
+        {
+            if (value != null && !indexes.containsKey(value))
+            {
+                strings.add(value);
+                indexes.put(value, strings.size());
+            }
+        }
+    }
+
+    private static String text(Number number)
+    {
+        return number != null ? number.toString() : null;
+    }
+
+    private static Number number(String text)
+    {
+        return text != null ? new LazilyParsedNumber(text) : null;
+    }
+
+    private static void writeString(DataOutputStream out, Map<String, Integer> indexes, String value) throws IOException
+    {
+        writeVarInt(out, value != null ? indexes.get(value) : 0);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+    }
+}
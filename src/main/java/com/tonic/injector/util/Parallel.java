@@ -0,0 +1,62 @@
+package com.tonic.injector.util;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the per-class phases of the injectors on a fork-join pool sized to the machine.
+ *
+ * <p>Only use it for work that touches nothing but its own class, plus state that is read only
+ * while the phase runs (mappings, registered hooks, the class nodes of other classes).</p>
+ */
+public final class Parallel
+{
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("injector-worker-" + THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null,
+            false
+    );
+
+    private Parallel() {}
+
+    /**
+     * @return the number of workers
+     */
+    public static int parallelism()
+    {
+        return POOL.getParallelism();
+    }
+
+    /**
+     * Applies a function to every item on the pool.
+     * @param items the items
+     * @param function the function, called concurrently
+     * @return the results, in the order of the items
+     */
+    public static <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> function)
+    {
+        return POOL.submit(() -> items.parallelStream().map(function).collect(Collectors.<R>toList())).join();
+    }
+
+    /**
+     * Runs an action on every item on the pool and waits for all of them.
+     * @param items the items
+     * @param action the action, called concurrently
+     */
+    public static <T> void forEach(List<T> items, Consumer<? super T> action)
+    {
+        POOL.submit(() -> items.parallelStream().forEach(action)).join();
+    }
+}
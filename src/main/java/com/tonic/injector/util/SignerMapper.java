@@ -1,10 +1,11 @@
 package com.tonic.injector.util;
 
 import com.tonic.vitalite.Main;
-import com.tonic.injector.util.ClassNodeUtil;
 import org.objectweb.asm.tree.*;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.objectweb.asm.Opcodes.*;
@@ -21,37 +22,43 @@ public class SignerMapper
         return blacklist.contains(className);
     }
 
+    /**
+     * @return a copy of the classes that have to be loaded from their signed jars
+     */
+    public static Set<String> getBlacklist()
+    {
+        return new HashSet<>(blacklist);
+    }
+
+    /**
+     * Restores a blacklist computed by an earlier {@link #map()}, used when the injected classes
+     * come from the {@link com.tonic.injector.InjectionCache}.
+     */
+    public static void addAll(Set<String> classNames)
+    {
+        blacklist.addAll(classNames);
+    }
+
     public static void map()
     {
         blacklist.add("net.runelite.api.hooks.Callbacks");
         blacklist.add("net.runelite.client.callback.Hooks");
-        for(var entry : Main.LIBS.getRunelite().classes.entrySet())
-        {
-            ClassNode node = ClassNodeUtil.toNode(entry.getValue());
-            for(MethodNode mn : node.methods)
-            {
-                scan(mn);
-            }
-        }
 
-        for(var entry : Main.LIBS.getGamepack().classes.entrySet())
-        {
-            ClassNode node = ClassNodeUtil.toNode(entry.getValue());
-            for(MethodNode mn : node.methods)
-            {
-                scan(mn);
-            }
-        }
+        List<byte[]> classes = new ArrayList<>();
+        classes.addAll(Main.LIBS.getRunelite().classes.values());
+        classes.addAll(Main.LIBS.getGamepack().classes.values());
+        classes.addAll(Main.LIBS.getOther().classes.values());
 
-        for(var entry : Main.LIBS.getOther().classes.entrySet())
+        // only the few classes that call Class.getSigners are parsed at all
+        for(ClassNode node : ClassScanner.findReferences(classes, "java/lang/Class", "getSigners"))
         {
-            ClassNode node = ClassNodeUtil.toNode(entry.getValue());
             for(MethodNode mn : node.methods)
             {
                 scan(mn);
             }
         }
     }
+
     private static void scan(MethodNode mn)
     {
         AbstractInsnNode target;
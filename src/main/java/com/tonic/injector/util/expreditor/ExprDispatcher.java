@@ -0,0 +1,153 @@
+package com.tonic.injector.util.expreditor;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs many {@link ExprEditor}s in a single walk over each method.
+ *
+ * <p>Editors are registered for the method calls, field accesses or literal values they care
+ * about. Every instruction is looked up in the table for its kind and only the editors registered
+ * for it are called, in the order they were registered, so adding an editor costs a table entry
+ * instead of another pass over every method.</p>
+ *
+ * <p>Like {@link ExprEditor#instrument(ClassNode)}, the walk goes over the instructions the method
+ * had when it started, so instructions inserted by an editor are not dispatched. Instructions an
+ * editor removed are skipped, including the whole old body of a method an editor replaced.</p>
+ */
+public class ExprDispatcher {
+    // name -> owner -> editors, most instructions are rejected by name alone
+    private final Map<String, Map<String, List<ExprEditor>>> methodCalls = new HashMap<>();
+    private final Map<String, Map<String, List<ExprEditor>>> fieldAccesses = new HashMap<>();
+    private final Map<Object, List<ExprEditor>> literals = new HashMap<>();
+
+    /**
+     * Routes calls of a method to an editor, whatever their descriptor and invoke opcode.
+     *
+     * @param owner the internal name of the method owner
+     * @param name the method name
+     * @param editor the editor, its {@link ExprEditor#edit(MethodCall)} is called
+     * @return this dispatcher
+     */
+    public ExprDispatcher onMethodCall(String owner, String name, ExprEditor editor) {
+        register(methodCalls, owner, name, editor);
+        return this;
+    }
+
+    /**
+     * Routes reads and writes of a field to an editor, whatever their descriptor.
+     *
+     * @param owner the internal name of the field owner
+     * @param name the field name
+     * @param editor the editor, its {@link ExprEditor#edit(FieldAccess)} is called
+     * @return this dispatcher
+     */
+    public ExprDispatcher onFieldAccess(String owner, String name, ExprEditor editor) {
+        register(fieldAccesses, owner, name, editor);
+        return this;
+    }
+
+    /**
+     * Routes a literal value to an editor.
+     *
+     * @param value the value as {@link LiteralValue#getValue()} returns it, e.g. an Integer for
+     *              ICONST, BIPUSH, SIPUSH and integer LDC instructions
+     * @param editor the editor, its {@link ExprEditor#edit(LiteralValue)} is called
+     * @return this dispatcher
+     */
+    public ExprDispatcher onLiteral(Object value, ExprEditor editor) {
+        literals.computeIfAbsent(value, k -> new ArrayList<>()).add(editor);
+        return this;
+    }
+
+    /**
+     * Process all routed expressions in all methods of the given class.
+     *
+     * @param classNode the class to process
+     */
+    public void instrument(ClassNode classNode) {
+        for (MethodNode method : classNode.methods) {
+            if (method.instructions != null) {
+                instrument(classNode, method);
+            }
+        }
+    }
+
+    /**
+     * Process all routed expressions in the given method.
+     *
+     * @param classNode the class containing the method
+     * @param method the method to process
+     */
+    public void instrument(ClassNode classNode, MethodNode method) {
+        AbstractInsnNode[] instructions = method.instructions.toArray();
+
+        for (int i = 0; i < instructions.length; i++) {
+            AbstractInsnNode insn = instructions[i];
+            if (isRemoved(method, insn)) {
+                continue;
+            }
+
+            if (insn instanceof MethodInsnNode) {
+                MethodInsnNode methodInsn = (MethodInsnNode) insn;
+                List<ExprEditor> editors = lookup(methodCalls, methodInsn.owner, methodInsn.name);
+                if (editors != null) {
+                    MethodCall call = new MethodCall(classNode, method, methodInsn, i);
+                    for (int e = 0; e < editors.size() && !isRemoved(method, insn); e++) {
+                        editors.get(e).edit(call);
+                    }
+                }
+            } else if (insn instanceof FieldInsnNode) {
+                FieldInsnNode fieldInsn = (FieldInsnNode) insn;
+                List<ExprEditor> editors = lookup(fieldAccesses, fieldInsn.owner, fieldInsn.name);
+                if (editors != null) {
+                    FieldAccess access = new FieldAccess(classNode, method, fieldInsn, i);
+                    for (int e = 0; e < editors.size() && !isRemoved(method, insn); e++) {
+                        editors.get(e).edit(access);
+                    }
+                }
+            } else if (!literals.isEmpty() && isLiteral(insn.getOpcode())) {
+                Object value = LiteralValue.extractValue(insn);
+                List<ExprEditor> editors = value != null ? literals.get(value) : null;
+                if (editors != null) {
+                    LiteralValue literal = new LiteralValue(classNode, method, insn, i);
+                    for (int e = 0; e < editors.size() && !isRemoved(method, insn); e++) {
+                        editors.get(e).edit(literal);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void register(Map<String, Map<String, List<ExprEditor>>> table, String owner, String name, ExprEditor editor) {
+        table.computeIfAbsent(name, k -> new HashMap<>())
+                .computeIfAbsent(owner, k -> new ArrayList<>())
+                .add(editor);
+    }
+
+    private static List<ExprEditor> lookup(Map<String, Map<String, List<ExprEditor>>> table, String owner, String name) {
+        Map<String, List<ExprEditor>> owners = table.get(name);
+        return owners != null ? owners.get(owner) : null;
+    }
+
+    /**
+     * Check if an instruction is no longer part of the method, because an editor removed or
+     * replaced it or cleared the method. {@link InsnList#clear()} leaves the old instructions
+     * linked to each other, so their links cannot tell. The index cache is only rebuilt after the
+     * list changed.
+     */
+    private static boolean isRemoved(MethodNode method, AbstractInsnNode insn) {
+        InsnList instructions = method.instructions;
+        int index = instructions.indexOf(insn);
+        return index < 0 || index >= instructions.size() || instructions.get(index) != insn;
+    }
+
+    private static boolean isLiteral(int opcode) {
+        return (opcode >= Opcodes.ICONST_M1 && opcode <= Opcodes.SIPUSH) || opcode == Opcodes.LDC;
+    }
+}
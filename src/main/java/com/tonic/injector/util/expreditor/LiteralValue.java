@@ -134,7 +134,7 @@ public class LiteralValue extends Expression {
         return literalInsn.getOpcode();
     }
     
-    private Object extractValue(AbstractInsnNode insn) {
+    static Object extractValue(AbstractInsnNode insn) {
         int opcode = insn.getOpcode();
         
         // Handle ICONST instructions
@@ -0,0 +1,23 @@
+package com.tonic.injector.util.expreditor.impls;
+
+import com.tonic.injector.util.expreditor.ExprEditor;
+import com.tonic.injector.util.expreditor.LiteralValue;
+import org.objectweb.asm.tree.LdcInsnNode;
+
+public class StringLiteralReplacer extends ExprEditor {
+    private final String from;
+    private final String to;
+
+    public StringLiteralReplacer(String from, String to)
+    {
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public void edit(LiteralValue literal) {
+        if (literal.isString() && literal.getStringValue().equals(from)) {
+            ((LdcInsnNode) literal.getLiteralInstruction()).cst = to;
+        }
+    }
+}
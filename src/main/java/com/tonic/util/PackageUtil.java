@@ -3,6 +3,8 @@ package com.tonic.util;
 import com.tonic.injector.annotations.Mixin;
 import com.tonic.injector.util.AnnotationUtil;
 import com.tonic.injector.util.ClassNodeUtil;
+import com.tonic.injector.util.ClassScanner;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
@@ -163,7 +165,7 @@ public class PackageUtil
      */
     public static List<ClassNode> getClassesExternal(String packageName, List<String> ignores)
     {
-        List<ClassNode> classes = new ArrayList<>();
+        List<byte[]> classes = new ArrayList<>();
         try
         {
             String jarPath = PackageUtil.class
@@ -183,7 +185,7 @@ public class PackageUtil
                         {
                             try {
                                 try (InputStream is = jar.getInputStream(e)) {
-                                    classes.add(ClassNodeUtil.toNode(is.readAllBytes()));
+                                    classes.add(is.readAllBytes());
                                 }
                             } catch (IOException ignored) { }
                         }
@@ -193,7 +195,7 @@ public class PackageUtil
         }
         catch (Exception ignored) {
         }
-        return classes;
+        return ClassScanner.scan(classes, null, ClassReader.EXPAND_FRAMES);
     }
 
     /**
@@ -203,7 +205,7 @@ public class PackageUtil
      * @return list of CtClass objects from package
      */
     public static List<ClassNode> getClassesIntelliJ(String packageName, List<String> ignores) {
-        List<ClassNode> classes = new ArrayList<>();
+        List<byte[]> classes = new ArrayList<>();
         try
         {
             ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
@@ -219,11 +221,11 @@ public class PackageUtil
             }
         }
         catch (Exception ignored) { }
-        return classes;
+        return ClassScanner.scan(classes, null, ClassReader.EXPAND_FRAMES);
     }
 
-    private static List<ClassNode> findClasses(File directory, List<String> ignores) {
-        List<ClassNode> classes = new ArrayList<>();
+    private static List<byte[]> findClasses(File directory, List<String> ignores) {
+        List<byte[]> classes = new ArrayList<>();
         if (!directory.exists()) {
             return classes;
         }
@@ -234,7 +236,7 @@ public class PackageUtil
             if (file.getName().endsWith(".class") && (ignores == null || ignores.stream().noneMatch(s -> file.getName().contains(s)))) {
                 try {
                     try (DataInputStream stream = new DataInputStream(new DataInputStream(new FileInputStream(file)))) {
-                        classes.add(ClassNodeUtil.toNode(stream.readAllBytes()));
+                        classes.add(stream.readAllBytes());
                     }
                 } catch (Exception ignored) {
                 }
@@ -5,6 +5,7 @@ import com.tonic.Static;
 import com.tonic.VitaLiteOptions;
 import com.tonic.bootstrap.RLUpdater;
 import com.tonic.classloader.RLClassLoader;
+import com.tonic.injector.InjectionCache;
 import com.tonic.injector.util.MappingProvider;
 import com.tonic.injector.util.SignerMapper;
 import com.tonic.runelite.Install;
@@ -14,6 +15,7 @@ import com.tonic.injector.RLInjector;
 import com.tonic.model.Libs;
 import com.tonic.services.CatFacts;
 import com.tonic.services.proxy.ProxyManager;
+import com.tonic.util.JarDumper;
 import com.tonic.util.LauncherCom;
 
 import javax.swing.*;
@@ -51,11 +53,24 @@ public class Main {
         JvmParams.set();
         RLUpdater.run();
         loadArtifacts();
-        SignerMapper.map();
+        String cacheKey = InjectionCache.key(URLS);
+        boolean cached = InjectionCache.load(cacheKey);
+        if(!cached)
+        {
+            SignerMapper.map();
+        }
         loadClassLoader();
-        Injector.patch();
-        RLInjector.patch();
-        MappingProvider.getMappings().clear();
+        if(cached)
+        {
+            JarDumper.dump(LIBS.getGamepackClean().classes);
+        }
+        else
+        {
+            Injector.patch();
+            RLInjector.patch();
+            MappingProvider.clear();
+            InjectionCache.store(cacheKey);
+        }
         if(optionsParser.getPort() != null)
         {
             LauncherCom.sendReadySignal(Integer.parseInt(optionsParser.getPort()), "Done");